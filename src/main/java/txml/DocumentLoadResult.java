@@ -0,0 +1,53 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml;
+
+/**
+ * This is result of storing one document by 
+ * {@link TXml#loadDocumentsToDb loadDocumentsToDb}.
+ *
+ * @author Tomas Kunovsky
+ */
+public class DocumentLoadResult {
+    private final String documentName;
+    private final Exception exception;
+
+    public DocumentLoadResult(String documentName, Exception exception) {
+        this.documentName = documentName;
+        this.exception = exception;
+    }
+
+    /**
+     * Returns name of document in database.
+     */
+    public String getDocumentName() {
+        return documentName;
+    }
+
+    /**
+     * Returns true if document was stored and committed.
+     */
+    public boolean isLoaded() {
+        return exception == null;
+    }
+
+    /**
+     * Returns cause of failure or null if document was stored.
+     */
+    public Exception getException() {
+        return exception;
+    }
+}
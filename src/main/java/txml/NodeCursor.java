@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml;
+
+import java.sql.SQLException;
+
+/**
+ * The <code>NodeCursor</code> interface provides nodes of XPath result one 
+ * by one. Nodes are read from database while the cursor is iterated, so 
+ * the connection must not be committed or closed before the cursor is closed.
+ * 
+ * @author Tomas Kunovsky
+ */
+public interface NodeCursor extends AutoCloseable {
+
+    /**
+     * Check if there are more nodes.
+     * @return true if the cursor has more nodes, false otherwise
+     * @throws SQLException
+     * @throws TXmlException
+     */
+    boolean hasNext() throws SQLException, TXmlException;
+
+    /**
+     * Returns the next node.
+     * @throws SQLException
+     * @throws TXmlException
+     */
+    Node next() throws SQLException, TXmlException;
+
+    /**
+     * Free database sources (statements).
+     * @throws SQLException
+     */
+    @Override
+    void close() throws SQLException;
+
+    /**
+     * Free database sources (statements) and close database connection.
+     * @throws SQLException
+     */
+    void closeDbConnection() throws SQLException;
+}
@@ -31,11 +31,30 @@ import java.io.*;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
 import javax.xml.stream.XMLStreamException;
 import txml.interpreter.InstructionsInterpreter;
-import txml.load.model.XmlDataModel;
+import txml.interpreter.model.Instruction;
 import txml.load.XmlDocumentReader;
+import txml.load.model.XmlDataModel;
 import txml.snapshot.TXMLEventReader;
+import txml.xpath.model.NodeGlobalSettings;
+import txml.xpath.model.ParallelExecution;
+import txml.xpath.model.TNode;
+import txml.xpath.model.TNodeList;
+import txml.xpath.model.TreeWriter;
 
 /**
  *
@@ -48,6 +67,15 @@ import txml.snapshot.TXMLEventReader;
 public class TXml {
 
     private final DbApi sqlStatements = new DbApi();
+    private static volatile boolean driversLoaded = false;
+    private int queryCacheSize = 64;
+    private ParallelExecution parallelExecution = null;
+    private final Map<String, TXmlQuery> queryCache = new LinkedHashMap<String, TXmlQuery>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TXmlQuery> eldest) {
+            return size() > queryCacheSize;
+        }
+    };
     
     /**
      * Creates database schema with empty tables for future documents.
@@ -59,6 +87,102 @@ public class TXml {
         sqlStatements.initSchema(connection, schema);
     }
     
+    /**
+     * Creates secondary indexes which are missing in schema created 
+     * by older version of library. Existing indexes are kept, indexes 
+     * replaced by newer ones are dropped.
+     * @param connection connection of target database
+     * @param schema schema name
+     * @throws SQLException
+     */
+    public void upgradeSchemaIndexes(Connection connection, String schema) throws SQLException {
+        sqlStatements.upgradeSchemaIndexes(connection, schema);
+    }
+    
+    /**
+     * Adds ancestor paths of nodes to schema created by older version 
+     * of library. Descendant steps and updates use the paths, so the schema 
+     * has to be upgraded before it is used by this version.
+     * @param connection connection of target database
+     * @param schema schema name
+     * @throws SQLException
+     */
+    public void upgradeSchemaPaths(Connection connection, String schema) throws SQLException {
+        sqlStatements.upgradeSchemaPaths(connection, schema);
+    }
+    
+    /**
+     * Sets number of rows which are sent to database in one batch 
+     * during document storing.
+     * @param batchSize positive number of rows in one batch
+     */
+    public void setBatchSize(int batchSize) {
+        sqlStatements.setBatchSize(batchSize);
+    }
+    
+    /**
+     * Enables storing of nodes by COPY command on PostgreSQL. Other 
+     * databases always use batched inserts.
+     * @param useCopy true for COPY on PostgreSQL
+     */
+    public void setUseCopy(boolean useCopy) {
+        sqlStatements.setUseCopy(useCopy);
+    }
+    
+    /**
+     * Enables bulk load mode. Foreign keys of stored document are checked 
+     * at once before commit instead of row by row. PostgreSQL defers them, 
+     * which needs deferrable foreign keys of schemas created by this version. 
+     * H2 disables referential integrity of node tables for all sessions, so 
+     * the load runs in exclusive mode of the database, other sessions wait 
+     * until it finishes, and pending changes of the connection are committed.
+     * @param bulkLoad true for bulk load mode
+     */
+    public void setBulkLoad(boolean bulkLoad) {
+        sqlStatements.setBulkLoad(bulkLoad);
+    }
+    
+    /**
+     * Sets maximal number of prepared statements which are kept open 
+     * for reuse by one connection, zero disables reuse of statements.
+     * @param statementCacheSize non-negative number of statements
+     * @throws SQLException
+     */
+    public void setStatementCacheSize(int statementCacheSize) throws SQLException {
+        sqlStatements.setStatementCacheSize(statementCacheSize);
+    }
+    
+    /**
+     * Closes prepared statements kept for <code>connection</code>. It should 
+     * be called before the connection is closed or given back to a pool.
+     * @param connection connection of target database
+     * @throws SQLException
+     */
+    public void closeStatements(Connection connection) throws SQLException {
+        sqlStatements.closeStatements(connection);
+    }
+    
+    /**
+     * Enables parallel evaluation of XPath steps. Lists of context nodes 
+     * longer than <code>chunkSize</code> are split into chunks, which are 
+     * evaluated by <code>parallelism</code> threads with their own 
+     * connections from <code>dataSource</code>, and results are joined in 
+     * order of context nodes. Chunks see only committed data, so queries 
+     * which change documents or declare connection are evaluated by one 
+     * thread.
+     * @param dataSource source of connections of target database, null 
+     * disables parallel evaluation
+     * @param parallelism number of threads
+     * @param chunkSize minimal number of context nodes of one chunk
+     */
+    public void setParallelExecution(DataSource dataSource, int parallelism, int chunkSize) {
+        ParallelExecution newParallelExecution = dataSource == null ? null : new ParallelExecution(dataSource, parallelism, chunkSize);
+        if (parallelExecution != null) {
+            parallelExecution.shutdown();
+        }
+        parallelExecution = newParallelExecution;
+    }
+    
     /**
      * Removes schema and its documents from database.
      * @param connection connection of target database
@@ -114,11 +238,145 @@ public class TXml {
      * @throws SQLException
      */
     public TXmlResult eval(String code, Connection connection, Boolean sort) throws TXmlException, SQLException {
+        return eval(prepare(code), connection, sort, null);
+    }
+    
+    /**
+     * Interprets compiled query <code>query</code>.
+     * @param query query returned by {@link #prepare prepare}
+     * @param connection connection of target database
+     * @param parameters values of query parameters by their names
+     * @return XPath result or snapshot result or empty result
+     * @throws TXmlException
+     * @throws SQLException
+     */
+    public TXmlResult eval(TXmlQuery query, Connection connection, Map<String, String> parameters) throws TXmlException, SQLException {
+        return eval(query, connection, true, parameters);
+    }
+    
+    /**
+     * Interprets compiled query <code>query</code>.
+     * @param query query returned by {@link #prepare prepare}
+     * @param connection connection of target database
+     * @param sort true for sorted XPath result
+     * @param parameters values of query parameters by their names
+     * @return XPath result or snapshot result or empty result
+     * @throws TXmlException
+     * @throws SQLException
+     */
+    public TXmlResult eval(TXmlQuery query, Connection connection, Boolean sort, Map<String, String> parameters) throws TXmlException, SQLException {
+        List<Instruction> program = query.bind(parameters);
         InstructionsInterpreter instructionsInterpreter = null;
         try {
             if (connection != null) connection.setAutoCommit(false);
-            Class.forName("org.postgresql.Driver");
-            Class.forName("org.h2.Driver");
+            loadDrivers();
+            instructionsInterpreter = new InstructionsInterpreter(connection, sqlStatements, sort);
+            if (InstructionsInterpreter.isReadOnly(program)) {
+                instructionsInterpreter.setParallelExecution(parallelExecution);
+            }
+            instructionsInterpreter.run(program);
+            instructionsInterpreter.getConnection().commit();
+        } catch(Exception ex) {
+            if (instructionsInterpreter != null && instructionsInterpreter.getConnection() != null) {
+                instructionsInterpreter.getConnection().rollback();
+                System.err.println("DB ROLLBACK");
+            }
+            throw new TXmlException(ex.getLocalizedMessage());
+        } finally {
+            if ((instructionsInterpreter != null) && instructionsInterpreter.isNewConnection() && instructionsInterpreter.getResult() == null) {
+                sqlStatements.closeStatements(instructionsInterpreter.getConnection());
+                instructionsInterpreter.getConnection().close();
+            }
+        }
+        
+        if (instructionsInterpreter != null)
+            return instructionsInterpreter.getResult();
+        else 
+            return null;
+    }
+    
+    /**
+     * Interprets compiled XPath query <code>query</code> and returns its 
+     * nodes one by one. Nodes of the last step are read while the cursor is 
+     * iterated, so large results don't have to fit into memory. Nodes are 
+     * not sorted. The cursor has to be closed before the transaction 
+     * of <code>connection</code> is finished.
+     * @param query query returned by {@link #prepare prepare}
+     * @param connection connection of target database
+     * @param parameters values of query parameters by their names
+     * @param fetchSize number of rows fetched from database at once, zero 
+     * for default of the driver
+     * @return cursor of XPath result
+     * @throws TXmlException
+     * @throws SQLException
+     */
+    public NodeCursor evalCursor(TXmlQuery query, Connection connection, Map<String, String> parameters, int fetchSize) throws TXmlException, SQLException {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative.");
+        }
+        
+        List<Instruction> program = query.bind(parameters);
+        InstructionsInterpreter instructionsInterpreter = null;
+        try {
+            if (connection != null) connection.setAutoCommit(false);
+            loadDrivers();
+            instructionsInterpreter = new InstructionsInterpreter(connection, sqlStatements, false);
+            return instructionsInterpreter.runCursor(program, fetchSize);
+        } catch(Exception ex) {
+            if (instructionsInterpreter != null && instructionsInterpreter.getConnection() != null) {
+                instructionsInterpreter.getConnection().rollback();
+                System.err.println("DB ROLLBACK");
+                if (instructionsInterpreter.isNewConnection()) {
+                    sqlStatements.closeStatements(instructionsInterpreter.getConnection());
+                    instructionsInterpreter.getConnection().close();
+                }
+            }
+            throw new TXmlException(ex.getLocalizedMessage());
+        }
+    }
+    
+    /**
+     * Compiles source code <code>code</code> for repeated evaluation. 
+     * String values in predicates and inserts can be replaced by parameters 
+     * like <code>$price</code>. Compiled queries are cached by source code, 
+     * the least recently used one is dropped when the cache is full.
+     * @param code source code for interpreter
+     * @return compiled query
+     * @throws TXmlException
+     */
+    public TXmlQuery prepare(String code) throws TXmlException {
+        synchronized (queryCache) {
+            TXmlQuery query = queryCache.get(code);
+            if (query != null) {
+                return query;
+            }
+        }
+        
+        TXmlQuery query = compile(code);
+        synchronized (queryCache) {
+            queryCache.put(code, query);
+        }
+        return query;
+    }
+    
+    /**
+     * Sets maximal number of compiled queries kept by 
+     * {@link #prepare prepare}, zero disables the cache.
+     * @param queryCacheSize non-negative number of queries
+     */
+    public void setQueryCacheSize(int queryCacheSize) {
+        if (queryCacheSize < 0) {
+            throw new IllegalArgumentException("Query cache size must not be negative.");
+        }
+        
+        synchronized (queryCache) {
+            this.queryCacheSize = queryCacheSize;
+            queryCache.clear();
+        }
+    }
+    
+    private TXmlQuery compile(String code) throws TXmlException {
+        try {
             XQueryErrorListener xQueryErrorListener = new XQueryErrorListener();
 
             // Get our lexer
@@ -137,28 +395,23 @@ public class TXml {
             // Specify our entry point
             XQueryParser.MainContext mainContext = parser.main();
 
-            // Walk it and attach our listener
+            // Walk it and attach our listener, instructions are only collected
             ParseTreeWalker walker = new ParseTreeWalker();
-            instructionsInterpreter = new InstructionsInterpreter(connection, sqlStatements, sort);
+            InstructionsInterpreter instructionsInterpreter = new InstructionsInterpreter(null, sqlStatements, true);
             XQueryInterpreter listener = new XQueryInterpreter(instructionsInterpreter);
             walker.walk(listener, mainContext);
-            instructionsInterpreter.getConnection().commit();
+            return new TXmlQuery(code, instructionsInterpreter.compile());
         } catch(Exception ex) {
-            if (instructionsInterpreter != null && instructionsInterpreter.getConnection() != null) {
-                instructionsInterpreter.getConnection().rollback();
-                System.err.println("DB ROLLBACK");
-            }
             throw new TXmlException(ex.getLocalizedMessage());
-        } finally {
-            if ((instructionsInterpreter != null) && instructionsInterpreter.isNewConnection() && instructionsInterpreter.getResult() == null) {
-                instructionsInterpreter.getConnection().close();
-            }
         }
-        
-        if (instructionsInterpreter != null)
-            return instructionsInterpreter.getResult();
-        else 
-            return null;
+    }
+    
+    private static void loadDrivers() throws ClassNotFoundException {
+        if (!driversLoaded) {
+            Class.forName("org.postgresql.Driver");
+            Class.forName("org.h2.Driver");
+            driversLoaded = true;
+        }
     }
     
     /**
@@ -239,11 +492,9 @@ public class TXml {
      * @throws XMLStreamException
      */
     public void loadDocumentToDb(Connection connection, String schema, String documentName, String filename) throws IOException, FileNotFoundException, ParserConfigurationException, SQLException, XMLStreamException {
-        sqlStatements.refreshCurrentTime();
-        XmlDocumentReader reader = new XmlDocumentReader();
-        XmlDataModel dataModel = reader.loadDocumentToDb(filename);
-        dataModel.setDocumentName(documentName);
-        sqlStatements.loadDocumentToDb(connection, schema, dataModel);
+        try (InputStream in = new FileInputStream(filename)) {
+            loadDocumentToDb(connection, schema, documentName, in);
+        }
     }
     
     /**
@@ -260,10 +511,123 @@ public class TXml {
      */
     public void loadDocumentToDb(Connection connection, String schema, String documentName, InputStream in) throws IOException, FileNotFoundException, ParserConfigurationException, SQLException, XMLStreamException {
         sqlStatements.refreshCurrentTime();
-        XmlDocumentReader reader = new XmlDocumentReader();
-        XmlDataModel dataModel = reader.loadDocumentToDb(in);
-        dataModel.setDocumentName(documentName);
-        sqlStatements.loadDocumentToDb(connection, schema, dataModel);
+        sqlStatements.loadDocumentToDb(connection, schema, documentName, in);
+    }
+
+    /**
+     * Stores new version of already stored document. Only differences
+     * against current version are written, so unchanged nodes keep their
+     * history. Header and namespace declarations of root are kept.
+     * @param connection connection of target database
+     * @param schema database schema with inicialized tables
+     * @param documentName document name in database
+     * @param in content of new version of document
+     * @throws IOException
+     * @throws SQLException
+     * @throws XMLStreamException
+     */
+    public void loadDocumentVersion(Connection connection, String schema, String documentName, InputStream in) throws IOException, SQLException, XMLStreamException {
+        XmlDataModel dataModel = new XmlDocumentReader().loadDocumentToDb(in);
+        NodeGlobalSettings settings = new NodeGlobalSettings(connection, schema, documentName, sqlStatements, true);
+        try {
+            connection.setAutoCommit(false);
+            TNode root = new TNodeList(settings).getDocumentRoot();
+            if (root == null) {
+                throw new TXmlException("unknown document name: '" + documentName + "'");
+            }
+            root.updateInDocument(true, dataModel.getRoot());
+            connection.commit();
+        } catch (Exception ex) {
+            connection.rollback();
+            throw ex;
+        }
+    }
+
+    /**
+     * Stores documents to database by a pool of workers. Every worker uses 
+     * its own connection from <code>dataSource</code>, documents are 
+     * committed one by one, so failure of one document doesn't affect others.
+     * @param dataSource source of connections of target database
+     * @param schema database schema with inicialized tables
+     * @param documents contents of documents by their names in database
+     * @param parallelism number of workers
+     * @return results of documents in order of <code>documents</code>
+     * @throws InterruptedException when waiting for workers is interrupted, 
+     * running workers are interrupted then
+     */
+    public List<DocumentLoadResult> loadDocumentsToDb(final DataSource dataSource, final String schema, Map<String, InputStream> documents, int parallelism) throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        
+        final Queue<Map.Entry<String, InputStream>> queue = new ConcurrentLinkedQueue<>(documents.entrySet());
+        final Map<String, DocumentLoadResult> results = new ConcurrentHashMap<>();
+        final List<Exception> connectionExceptions = Collections.synchronizedList(new ArrayList<Exception>());
+        int workers = Math.max(1, Math.min(parallelism, documents.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        DbApi dbApi = new DbApi();
+                        dbApi.setBatchSize(sqlStatements.getBatchSize());
+                        dbApi.setUseCopy(sqlStatements.isUseCopy());
+                        dbApi.setBulkLoad(sqlStatements.isBulkLoad());
+                        
+                        try (Connection connection = dataSource.getConnection()) {
+                            dbApi.setStatementCacheSize(sqlStatements.getStatementCacheSize());
+                            Map.Entry<String, InputStream> document;
+                            while ((document = queue.poll()) != null) {
+                                try {
+                                    dbApi.refreshCurrentTime();
+                                    dbApi.loadDocumentToDb(connection, schema, document.getKey(), document.getValue());
+                                    results.put(document.getKey(), new DocumentLoadResult(document.getKey(), null));
+                                } catch (Exception ex) {
+                                    results.put(document.getKey(), new DocumentLoadResult(document.getKey(), ex));
+                                }
+                            }
+                            dbApi.closeStatements(connection);
+                        } catch (SQLException ex) {
+                            connectionExceptions.add(ex);
+                        }
+                    }
+                }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw ex;
+        } catch (ExecutionException ex) {
+            //failures of documents and connections are results, other failures of workers are rethrown
+            executor.shutdownNow();
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw (RuntimeException) ex.getCause();
+        }
+        
+        List<DocumentLoadResult> resultList = new ArrayList<>();
+        for (String documentName:documents.keySet()) {
+            DocumentLoadResult result = results.get(documentName);
+            if (result == null) {
+                Exception cause = connectionExceptions.isEmpty() ? new TXmlException("Document wasn't stored.") : connectionExceptions.get(0);
+                result = new DocumentLoadResult(documentName, cause);
+            }
+            resultList.add(result);
+        }
+        
+        return resultList;
     }
     
     /**
@@ -281,14 +645,15 @@ public class TXml {
             TXmlResult result = tXml.eval(content);
             if (!result.isEmpty()) {
                 if (result.isNodeList()) {
-                    System.out.println(result.asNodeList().getTrees(result.asNodeList().isSorted()));
+                    new TreeWriter(System.out, result.asNodeList().isSorted()).writeTrees(result.asNodeList());
+                    System.out.println();
                     result.asNodeList().closeDbConnection();
                 } else if (result.isXMLEventReader()) {
                     System.out.println(result.asXMLEventReader().getXMLDocFormatA());
                     result.asXMLEventReader().closeDbConnection();
                 }
             }
-        } catch (IOException | TXmlException | SQLException ex) {
+        } catch (IOException | TXmlException | SQLException | XMLStreamException ex) {
             System.err.println("Error:" + "\n" + ex.getLocalizedMessage());
         }
     }
@@ -0,0 +1,87 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import txml.interpreter.model.Instruction;
+
+/**
+ * This is compiled query created by {@link TXml#prepare prepare}. Query 
+ * can be evaluated repeatedly, values of parameters like 
+ * <code>$price</code> are bound at each evaluation.
+ *
+ * @author Tomas Kunovsky
+ */
+public class TXmlQuery {
+    private final String code;
+    private final List<Instruction> instructions;
+    private final Set<String> parameterNames;
+
+    TXmlQuery(String code, List<Instruction> instructions) {
+        this.code = code;
+        this.instructions = Collections.unmodifiableList(new ArrayList<>(instructions));
+        Set<String> names = new LinkedHashSet<>();
+        for (Instruction instruction : instructions) {
+            if (instruction.getParameter() != null) {
+                names.add(instruction.getParameter().substring(1));
+            }
+        }
+        this.parameterNames = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Returns source code of query.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Returns names of parameters without leading dollar.
+     */
+    public Set<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Returns instructions with values of <code>parameters</code>, 
+     * instructions without parameters are shared.
+     */
+    List<Instruction> bind(Map<String, String> parameters) {
+        if (parameterNames.isEmpty()) {
+            return instructions;
+        }
+        
+        List<Instruction> result = new ArrayList<>(instructions.size());
+        for (Instruction instruction : instructions) {
+            if (instruction.getParameter() == null) {
+                result.add(instruction);
+            } else {
+                String value = parameters != null ? parameters.get(instruction.getParameter().substring(1)) : null;
+                if (value == null) {
+                    throw new TXmlException("Unbound parameter " + instruction.getParameter());
+                }
+                result.add(instruction.bind(value));
+            }
+        }
+        return result;
+    }
+}
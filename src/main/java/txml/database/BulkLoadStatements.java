@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import txml.TXmlException;
+
+/**
+ * Statements of bulk load mode. Foreign keys are not checked row by row
+ * during load, rows written by the load are validated at once before commit. 
+ * PostgreSQL defers triggers of deferrable foreign keys to the end of 
+ * the load. H2 can disable referential integrity only for all sessions, 
+ * so the load runs in exclusive mode of the database and rows of loaded 
+ * document are validated by one anti-join query per foreign key.
+ */
+class BulkLoadStatements {
+    private final String nonDeferrableConstraintsQuery = 
+            "SELECT count(*) as count FROM information_schema.table_constraints where constraint_schema = ? and constraint_type = 'FOREIGN KEY' and is_deferrable = 'NO'";
+    private final String deferConstraintsQuery = "SET CONSTRAINTS ALL DEFERRED";
+    private final String immediateConstraintsQuery = "SET CONSTRAINTS ALL IMMEDIATE";
+    private final String exclusiveModeQuery = "SET EXCLUSIVE %s";
+    private final String referentialIntegrityQuery = "ALTER TABLE %s.%s SET REFERENTIAL_INTEGRITY %s";
+
+    private final String[] checkedTables = {"lcp", "lcp_namespace", "cp"};
+
+    //node rows are selected by ids handed out to the load and its time, so primary keys are used
+    private final String missingLcpParentQuery =
+            "SELECT count(*) as count FROM %s.LCP as lcp where lcp.id between ? and ? and lcp.\"from\" = ? and lcp.parentId is not null and not exists "
+            + "(SELECT 1 FROM %s.LCP as parent where parent.id = lcp.parentId and parent.\"from\" = lcp.parentFrom and parent.\"to\" = lcp.parentTo)";
+    private final String missingLcpClassQuery =
+            "SELECT count(*) as count FROM %s.LCP as lcp where lcp.id between ? and ? and lcp.\"from\" = ? and not exists "
+            + "(SELECT 1 FROM %s.LCP_Class as lcp_class where lcp_class.id = lcp.LCP_Class)";
+    private final String missingLcpNamespaceNodeQuery =
+            "SELECT count(*) as count FROM %s.lcp_namespace as lcp_namespace where lcp_namespace.node_id between ? and ? and lcp_namespace.node_from = ? and not exists "
+            + "(SELECT 1 FROM %s.LCP as lcp where lcp.id = lcp_namespace.node_id and lcp.\"from\" = lcp_namespace.node_from and lcp.\"to\" = lcp_namespace.node_to)";
+    private final String missingLcpNamespaceNamespaceQuery =
+            "SELECT count(*) as count FROM %s.lcp_namespace as lcp_namespace where lcp_namespace.node_id between ? and ? and lcp_namespace.node_from = ? and not exists "
+            + "(SELECT 1 FROM %s.namespace as namespace where namespace.id = lcp_namespace.namespace_id)";
+    private final String missingCpClassQuery =
+            "SELECT count(*) as count FROM %s.CP as cp where cp.\"from\" = ? and not exists "
+            + "(SELECT 1 FROM %s.CP_Class as cp_class where cp_class.id = cp.CP_Class)";
+    
+    //class and namespace rows are selected by loaded document
+    private final String missingLcpClassDocumentQuery =
+            "SELECT count(*) as count FROM %s.LCP_Class as lcp_class where lcp_class.document = ? and not exists "
+            + "(SELECT 1 FROM %s.Document as document where document.id = lcp_class.document)";
+    private final String missingLcpClassParentQuery =
+            "SELECT count(*) as count FROM %s.LCP_Class as lcp_class where lcp_class.document = ? and lcp_class.parent is not null and not exists "
+            + "(SELECT 1 FROM %s.LCP_Class as parent where parent.id = lcp_class.parent)";
+    private final String missingLcpClassNamespaceQuery =
+            "SELECT count(*) as count FROM %s.LCP_Class as lcp_class where lcp_class.document = ? and lcp_class.namespace_id is not null and not exists "
+            + "(SELECT 1 FROM %s.namespace as namespace where namespace.id = lcp_class.namespace_id)";
+    private final String missingCpClassDocumentQuery =
+            "SELECT count(*) as count FROM %s.CP_Class as cp_class where cp_class.document = ? and not exists "
+            + "(SELECT 1 FROM %s.Document as document where document.id = cp_class.document)";
+    private final String missingCpClassParentQuery =
+            "SELECT count(*) as count FROM %s.CP_Class as cp_class where cp_class.document = ? and cp_class.parent is not null and not exists "
+            + "(SELECT 1 FROM %s.CP_Class as parent where parent.id = cp_class.parent)";
+    private final String missingNamespaceDocumentQuery =
+            "SELECT count(*) as count FROM %s.namespace as namespace where namespace.document_id = ? and not exists "
+            + "(SELECT 1 FROM %s.Document as document where document.id = namespace.document_id)";
+    
+    private boolean deferred = false;
+    private boolean exclusive = false;
+
+    void deferConstraints(Connection connection, String schema) throws SQLException {
+        DatabaseEnum databaseEnum = DatabaseEnum.getDatabase(connection);
+        if (databaseEnum == DatabaseEnum.POSTGRE) {
+            checkDeferrableConstraints(connection, schema);
+            try (PreparedStatement deferConstraintsStatement = connection.prepareStatement(deferConstraintsQuery)) {
+                deferConstraintsStatement.executeUpdate();
+            }
+            deferred = true;
+        } else if (databaseEnum == DatabaseEnum.H2) {
+            //other sessions wait until the load finishes, so they never write without checks
+            setExclusiveMode(connection, true);
+            setReferentialIntegrity(connection, schema, false);
+        }
+    }
+    
+    /**
+     * Schemas created by older versions have foreign keys which can't be deferred.
+     */
+    private void checkDeferrableConstraints(Connection connection, String schema) throws SQLException {
+        try (PreparedStatement nonDeferrableConstraintsStatement = connection.prepareStatement(nonDeferrableConstraintsQuery)) {
+            //unquoted names are stored in lower case by PostgreSQL
+            nonDeferrableConstraintsStatement.setString(1, schema.toLowerCase());
+            try (ResultSet resultSet = nonDeferrableConstraintsStatement.executeQuery()) {
+                resultSet.next();
+                if (resultSet.getLong("count") > 0) {
+                    throw new TXmlException("Foreign keys of schema " + schema + " are not deferrable, bulk load needs the schema to be created again");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks foreign keys of rows written by the load of <code>statements</code> at <code>from</code>.
+     */
+    void validateConstraints(Connection connection, String schema, LoadDocumentToDbStatements statements, Long from) throws SQLException {
+        if (deferred) {
+            try (PreparedStatement immediateConstraintsStatement = connection.prepareStatement(immediateConstraintsQuery)) {
+                immediateConstraintsStatement.executeUpdate();
+            }
+            return;
+        }
+
+        IdBlockAllocator nodeIdAllocator = statements.getNodeIdAllocator();
+        if (nodeIdAllocator.getFirstId() != null) {
+            String[] missingNodeReferenceQueries = {missingLcpParentQuery, missingLcpClassQuery, missingLcpNamespaceNodeQuery, missingLcpNamespaceNamespaceQuery};
+            for (String missingNodeReferenceQuery : missingNodeReferenceQueries) {
+                try (PreparedStatement missingNodeReferenceStatement = connection.prepareStatement(String.format(missingNodeReferenceQuery, schema, schema))) {
+                    missingNodeReferenceStatement.setLong(1, nodeIdAllocator.getFirstId());
+                    missingNodeReferenceStatement.setLong(2, nodeIdAllocator.getLastId());
+                    missingNodeReferenceStatement.setLong(3, from);
+                    checkMissingReferences(missingNodeReferenceStatement);
+                }
+            }
+        }
+        
+        try (PreparedStatement missingCpClassStatement = connection.prepareStatement(String.format(missingCpClassQuery, schema, schema))) {
+            missingCpClassStatement.setLong(1, from);
+            checkMissingReferences(missingCpClassStatement);
+        }
+        
+        String[] missingClassReferenceQueries = {missingLcpClassDocumentQuery, missingLcpClassParentQuery, missingLcpClassNamespaceQuery, missingCpClassDocumentQuery, missingCpClassParentQuery, missingNamespaceDocumentQuery};
+        for (String missingClassReferenceQuery : missingClassReferenceQueries) {
+            try (PreparedStatement missingClassReferenceStatement = connection.prepareStatement(String.format(missingClassReferenceQuery, schema, schema))) {
+                missingClassReferenceStatement.setLong(1, statements.getDocumentId());
+                checkMissingReferences(missingClassReferenceStatement);
+            }
+        }
+    }
+    
+    private void checkMissingReferences(PreparedStatement missingReferenceStatement) throws SQLException {
+        try (ResultSet resultSet = missingReferenceStatement.executeQuery()) {
+            resultSet.next();
+            if (resultSet.getLong("count") > 0) {
+                throw new TXmlException("Referential integrity violated by loaded document");
+            }
+        }
+    }
+
+    /**
+     * Enables referential integrity of H2 and leaves exclusive mode. 
+     * It has to be called in finally block of every load which deferred 
+     * constraints.
+     */
+    void restoreConstraints(Connection connection, String schema) throws SQLException {
+        if (!exclusive) {
+            return;
+        }
+        
+        try {
+            setReferentialIntegrity(connection, schema, true);
+        } finally {
+            setExclusiveMode(connection, false);
+        }
+    }
+    
+    private void setExclusiveMode(Connection connection, boolean enabled) throws SQLException {
+        try (PreparedStatement exclusiveModeStatement = connection.prepareStatement(String.format(exclusiveModeQuery, enabled ? "1" : "0"))) {
+            exclusiveModeStatement.executeUpdate();
+        }
+        exclusive = enabled;
+    }
+
+    /**
+     * Sets referential integrity of checked tables. Rows are validated by 
+     * queries, so it is enabled without check of whole tables, and every 
+     * table is enabled even if enabling of previous one fails.
+     */
+    private void setReferentialIntegrity(Connection connection, String schema, boolean enabled) throws SQLException {
+        SQLException exception = null;
+        for (String table : checkedTables) {
+            try (PreparedStatement referentialIntegrityStatement = connection.prepareStatement(String.format(referentialIntegrityQuery, schema, table, enabled ? "TRUE NOCHECK" : "FALSE"))) {
+                referentialIntegrityStatement.executeUpdate();
+            } catch (SQLException ex) {
+                if (!enabled) {
+                    throw ex;
+                }
+                exception = exception == null ? ex : exception;
+            }
+        }
+        
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
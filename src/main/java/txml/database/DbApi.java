@@ -16,12 +16,14 @@
 package txml.database;
 
 import txml.database.DatabaseEnum;
-import java.sql.Array;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -30,25 +32,34 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import javax.xml.stream.events.Namespace;
+import javax.xml.stream.XMLStreamException;
 import txml.database.model.NamespaceInfo;
 import txml.TXmlException;
+import txml.load.XmlDocumentReader;
+import txml.load.XmlNodeListener;
 import txml.load.model.XmlNode;
 import txml.load.model.XmlDataModel;
 import txml.load.model.XmlNodeTypeEnum;
 
 public class DbApi {
+    public static final int PARENTS_CHUNK_SIZE = 500;
+    
     private final long NOW = 9223372036854775807l;
     private long current_time; 
     private final XPathStatements xPathStatements;
     private final UpdateStatements updateStatements;
     private final SnapshotStatements snapshotStatements;
+    private final StatementCache statementCache;
     private SimpleDateFormat timeFormat;
+    private int batchSize = LoadDocumentToDbStatements.DEFAULT_BATCH_SIZE;
+    private boolean useCopy = false;
+    private boolean bulkLoad = false;
     
     public DbApi() {
-        this.xPathStatements = new XPathStatements();
-        this.updateStatements = new UpdateStatements();
-        this.snapshotStatements = new SnapshotStatements();
+        this.statementCache = new StatementCache();
+        this.xPathStatements = new XPathStatements(statementCache);
+        this.updateStatements = new UpdateStatements(statementCache);
+        this.snapshotStatements = new SnapshotStatements(statementCache);
         this.timeFormat = new SimpleDateFormat("d. M. yyyy H:mm:ss");
     }
 
@@ -56,6 +67,49 @@ public class DbApi {
         this.timeFormat = timeFormat;
     }
     
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+    
+    public int getStatementCacheSize() {
+        return statementCache.getSize();
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) throws SQLException {
+        statementCache.setSize(statementCacheSize);
+    }
+    
+    /**
+     * Closes cached statements of <code>connection</code>, it should be 
+     * called before the connection is closed or given back to a pool.
+     */
+    public void closeStatements(Connection connection) throws SQLException {
+        statementCache.close(connection);
+    }
+    
+    public boolean isUseCopy() {
+        return useCopy;
+    }
+
+    public void setUseCopy(boolean useCopy) {
+        this.useCopy = useCopy;
+    }
+
+    public boolean isBulkLoad() {
+        return bulkLoad;
+    }
+
+    public void setBulkLoad(boolean bulkLoad) {
+        this.bulkLoad = bulkLoad;
+    }
+    
     public long getNOW() {
         return NOW;
     }
@@ -167,6 +221,36 @@ public class DbApi {
         return new NamespaceInfo(namespaceId, uri, prefix, localPart);
     }
     
+    /**
+     * Returns namespace of document with given uri and prefix, the namespace 
+     * is stored to database when the document doesn't have it yet.
+     */
+    public NamespaceInfo getNamespaceInfo(Connection connection, String schema, String uri, String prefix, String localPart, Long documentId) throws SQLException {
+        try (PreparedStatement preparedStatement = getIdNamespaceStatement(connection, schema, prefix, uri, documentId); 
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (resultSet.next()) {
+                return new NamespaceInfo(resultSet.getLong("id"), uri, prefix, localPart);
+            }
+        }
+        
+        Long namespaceId;
+        try (PreparedStatement nextValStatement = this.updateStatements.getNextValNamespaceIdSequenceStatement(connection, schema); 
+             ResultSet resultSet = nextValStatement.executeQuery()) {
+            resultSet.next();
+            namespaceId = resultSet.getLong("namespace_id");
+        }
+        
+        try (PreparedStatement insertNamespaceTableStatement = this.updateStatements.getInsertNamespaceTableStatement(connection, schema)) {
+            insertNamespaceTableStatement.setLong(1, namespaceId);
+            insertNamespaceTableStatement.setString(2, uri);
+            insertNamespaceTableStatement.setString(3, prefix);
+            insertNamespaceTableStatement.setLong(4, documentId);
+            insertNamespaceTableStatement.executeUpdate();
+        }
+        
+        return new NamespaceInfo(namespaceId, uri, prefix, localPart);
+    }
+    
     public PreparedStatement getIdNamespaceStatement(Connection connection, String schema, String prefix, String uri, Long documentId) throws SQLException {
         PreparedStatement idNamespaceStatement = this.xPathStatements.getIdNamespaceStatement(connection, schema);
         idNamespaceStatement.setString(1, prefix);
@@ -323,6 +407,11 @@ public class DbApi {
         return childrenStatement;
     }
     
+    public PreparedStatement getChildrenByTypeAndLabel(Connection connection, String schema, boolean versionRange) throws SQLException {
+        PreparedStatement childrenStatement = this.xPathStatements.getChildrenByTypeAndLabelStatement(connection, schema, versionRange);
+        return childrenStatement;
+    }
+    
     public PreparedStatement getChildrenByDepth(Connection connection, String schema) throws SQLException {
         PreparedStatement childrenByDepthStatement = this.xPathStatements.getChildrenByDepthStatement(connection, schema);
         return childrenByDepthStatement;
@@ -333,11 +422,91 @@ public class DbApi {
         return childrenStatement;
     }
     
+    public PreparedStatement getChildrenOfParents(Connection connection, String schema, List<Long> parentIds) throws SQLException {
+        PreparedStatement childrenOfParentsStatement = this.xPathStatements.getChildrenOfParentsStatement(connection, schema, parentIds.size());
+        setIds(childrenOfParentsStatement, parentIds, connection);
+        return childrenOfParentsStatement;
+    }
+    
+    public PreparedStatement getDescendantsByTypeAndLabel(Connection connection, String schema, List<Long> contextIds, Long documentId, short type, String localPart, Long namespaceId) throws SQLException {
+        PreparedStatement descendantsStatement = this.xPathStatements.getDescendantsStatement(connection, schema, contextIds.size(), "lcp_class.type = ? and lcp_class.local_part = ? and lcp_class.namespace_id = ?");
+        int index = setIds(descendantsStatement, contextIds, connection);
+        descendantsStatement.setLong(index++, documentId);
+        descendantsStatement.setShort(index++, type);
+        descendantsStatement.setString(index++, localPart);
+        descendantsStatement.setLong(index, namespaceId);
+        return descendantsStatement;
+    }
+    
+    public PreparedStatement getDescendantsByTypes(Connection connection, String schema, List<Long> contextIds, Long documentId, List<Short> types) throws SQLException {
+        StringBuilder typesCondition = new StringBuilder("lcp_class.type in (");
+        for (int i = 0; i < types.size(); i++) {
+            typesCondition.append(i == 0 ? "?" : ",?");
+        }
+        
+        PreparedStatement descendantsStatement = this.xPathStatements.getDescendantsStatement(connection, schema, contextIds.size(), typesCondition.append(")").toString());
+        int index = setIds(descendantsStatement, contextIds, connection);
+        descendantsStatement.setLong(index++, documentId);
+        for (Short type : types) {
+            descendantsStatement.setShort(index++, type);
+        }
+        return descendantsStatement;
+    }
+    
+    /**
+     * Returns statement of nodes on path of child element steps below 
+     * context nodes, null item of <code>steps</code> is a step by any name.
+     */
+    public PreparedStatement getDirectPath(Connection connection, String schema, List<Long> contextIds, List<NamespaceInfo> steps) throws SQLException {
+        boolean[] labeledSteps = new boolean[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            labeledSteps[i] = steps.get(i) != null;
+        }
+        
+        PreparedStatement directPathStatement = this.xPathStatements.getDirectPathStatement(connection, schema, contextIds.size(), labeledSteps);
+        int index = setIds(directPathStatement, contextIds, connection);
+        for (NamespaceInfo step : steps) {
+            directPathStatement.setShort(index++, XmlNodeTypeEnum.ELEMENT.getShortValue());
+            if (step != null) {
+                directPathStatement.setString(index++, step.getLocalPart());
+                directPathStatement.setLong(index++, step.getId());
+            }
+        }
+        return directPathStatement;
+    }
+    
+    /**
+     * Sets ids of a condition from <code>XPathStatements.getIdsCondition</code>
+     * as first parameters, padding of H2 list repeats the last id. Returns 
+     * index of the next parameter.
+     */
+    private int setIds(PreparedStatement statement, List<Long> ids, Connection connection) throws SQLException {
+        if (DatabaseEnum.getDatabase(connection) == DatabaseEnum.POSTGRE) {
+            setArray(statement, 1, ids.toArray(), connection);
+            return 2;
+        }
+        
+        int paddedIdsCount = XPathStatements.getPaddedIdsCount(ids.size());
+        for (int i = 0; i < paddedIdsCount; i++) {
+            if (ids.isEmpty()) {
+                statement.setNull(i + 1, Types.BIGINT);
+            } else {
+                statement.setLong(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+            }
+        }
+        return paddedIdsCount + 1;
+    }
+    
     public PreparedStatement getChildrenByType(Connection connection, String schema) throws SQLException {
         PreparedStatement childrenByTypeStatement = this.xPathStatements.getChildrenByTypeStatement(connection, schema);
         return childrenByTypeStatement;
     }
     
+    public PreparedStatement getChildrenByType(Connection connection, String schema, String operator, boolean versionRange) throws SQLException {
+        PreparedStatement childrenByTypeStatement = this.xPathStatements.getChildrenByTypeStatement(connection, schema, operator, versionRange);
+        return childrenByTypeStatement;
+    }
+    
     public PreparedStatement getParent(Connection connection, String schema) throws SQLException {
         PreparedStatement parentsStatement = this.xPathStatements.getParentStatement(connection, schema);
         return parentsStatement;
@@ -350,14 +519,16 @@ public class DbApi {
     }
     
     public PreparedStatement getChildrenOfOneType(Connection connection, String schema, short type, Long[] idArray) throws SQLException {
-        PreparedStatement childrenOfOneTypeStatement = this.xPathStatements.getChildrenOfOneTypeStatement(connection, schema, Arrays.toString(idArray).replace('[', '(').replace(']', ')'));
-        childrenOfOneTypeStatement.setShort(1, type);
+        PreparedStatement childrenOfOneTypeStatement = this.xPathStatements.getChildrenOfOneTypeStatement(connection, schema, idArray.length);
+        int index = setIds(childrenOfOneTypeStatement, Arrays.asList(idArray), connection);
+        childrenOfOneTypeStatement.setShort(index, type);
         return childrenOfOneTypeStatement;
     }
     
     public PreparedStatement getValues(Connection connection, String schema, short type, Long[] idArray) throws SQLException {
-        PreparedStatement valuesStatement = this.xPathStatements.getValuesStatement(connection, schema, Arrays.toString(idArray).replace('[', '(').replace(']', ')'));
-        valuesStatement.setShort(1, type);
+        PreparedStatement valuesStatement = this.xPathStatements.getValuesStatement(connection, schema, idArray.length);
+        int index = setIds(valuesStatement, Arrays.asList(idArray), connection);
+        valuesStatement.setShort(index, type);
         return valuesStatement;
     }
     
@@ -369,29 +540,36 @@ public class DbApi {
     }    
     
     public PreparedStatement getValuesOfDescendants(Connection connection, String schema, Long[] idArray) throws SQLException {
-        PreparedStatement valuesOfDescendantsStatement = this.xPathStatements.getValuesOfDescendantsStatement(connection, schema, Arrays.toString(idArray).replace('[', '(').replace(']', ')'));
+        PreparedStatement valuesOfDescendantsStatement = this.xPathStatements.getValuesOfDescendantsStatement(connection, schema, idArray.length);
+        setIds(valuesOfDescendantsStatement, Arrays.asList(idArray), connection);
 
         return valuesOfDescendantsStatement;
     }
     
-    public PreparedStatement getParentInInterval(Connection connection, String schema, Long id, Long from, Long to, Integer depth) throws SQLException {
-        PreparedStatement parentInIntervalStatement = this.xPathStatements.getParentInIntervalStatement(connection, schema);
-        parentInIntervalStatement.setLong(1, id);
-        parentInIntervalStatement.setLong(2, from);
-        parentInIntervalStatement.setLong(3, to);
-        parentInIntervalStatement.setInt(4, depth);
-        
-        return parentInIntervalStatement;
+    /**
+     * Returns statement of rows of table CP from <code>minDepth</code> to 
+     * <code>maxDepth</code>, which overlap interval from <code>from</code> 
+     * to <code>to</code>.
+     */
+    public PreparedStatement getLevelsInInterval(Connection connection, String schema, long from, long to, int minDepth, int maxDepth, String documentName) throws SQLException {
+        PreparedStatement levelsInIntervalStatement = this.xPathStatements.getLevelsInIntervalStatement(connection, schema);
+        levelsInIntervalStatement.setLong(1, to);
+        levelsInIntervalStatement.setLong(2, from);
+        levelsInIntervalStatement.setInt(3, minDepth);
+        levelsInIntervalStatement.setInt(4, maxDepth);
+        levelsInIntervalStatement.setString(5, documentName);
+
+        return levelsInIntervalStatement;
     }
     
-    public PreparedStatement getValidsFromIntervalAndDepth(Connection connection, String schema, Long from, Long to, int depth, String documentName) throws SQLException {
-        PreparedStatement validsFromIntervalAndDepthStatement = this.xPathStatements.getValidsFromIntervalAndDepthStatement(connection, schema);
-        validsFromIntervalAndDepthStatement.setLong(1, from);
-        validsFromIntervalAndDepthStatement.setLong(2, to);
-        validsFromIntervalAndDepthStatement.setInt(3, depth);
-        validsFromIntervalAndDepthStatement.setString(4, documentName);
-
-        return validsFromIntervalAndDepthStatement;
+    /**
+     * Returns statement of ancestor paths of all versions of nodes 
+     * <code>ids</code>.
+     */
+    public PreparedStatement getNodePaths(Connection connection, String schema, List<Long> ids) throws SQLException {
+        PreparedStatement nodePathsStatement = this.xPathStatements.getNodePathsStatement(connection, schema, ids.size());
+        setIds(nodePathsStatement, ids, connection);
+        return nodePathsStatement;
     }
     
     public void splitCpInterval(Connection connection, String schema, Long from, Long to, Long cp_class, Long newTo, Object[] validObjectArray) throws SQLException {
@@ -432,6 +610,10 @@ public class DbApi {
             insertLCPTableStatement.setLong(6, parentTo);
             insertLCPTableStatement.setString(7, value);
             insertLCPTableStatement.setLong(8, LCP_Class);
+            insertLCPTableStatement.setString(9, id + "/");
+            insertLCPTableStatement.setLong(10, parentId);
+            insertLCPTableStatement.setLong(11, parentFrom);
+            insertLCPTableStatement.setLong(12, parentTo);
             
             insertLCPTableStatement.executeUpdate();
         } 
@@ -634,9 +816,10 @@ public class DbApi {
         Object[] newValidObjectArray = new Object[validObjectArray.length + 1];
         List<Long> nodesOfParentNeighbors = new ArrayList<>();
         if (!parentIsLast) {
-            preparedStatement = this.updateStatements.getNodesOfParentsStatement(connection, schema, Arrays.toString(parentNeighbors.toArray()).replace("[", "(").replace("]", ")"));
-            preparedStatement.setLong(1, NOW);
-            preparedStatement.setLong(2, NOW);
+            preparedStatement = this.updateStatements.getNodesOfParentsStatement(connection, schema, parentNeighbors.size());
+            int index = setIds(preparedStatement, parentNeighbors, connection);
+            preparedStatement.setLong(index++, NOW);
+            preparedStatement.setLong(index, NOW);
             resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -727,16 +910,18 @@ public class DbApi {
         }
     }
     
-    public void parentLcpUpdate(Connection connection, String schema, Long from, Long to, Long nodeId, Long newParentId, Long newParentFrom, Long newParentTo, Long lcpClass) throws SQLException {        
-        try (PreparedStatement parentLcpUpdateWithFromStatement = this.updateStatements.getParentLcpUpdateWithFromStatement(connection, schema)) {
-            parentLcpUpdateWithFromStatement.setLong(1, newParentId);
-            parentLcpUpdateWithFromStatement.setLong(2, newParentFrom);
-            parentLcpUpdateWithFromStatement.setLong(3, newParentTo);
-            parentLcpUpdateWithFromStatement.setLong(4, lcpClass);
-            parentLcpUpdateWithFromStatement.setLong(5, nodeId);
-            parentLcpUpdateWithFromStatement.setLong(6, from);
-            parentLcpUpdateWithFromStatement.setLong(7, to);
-            parentLcpUpdateWithFromStatement.executeUpdate();
+    /**
+     * Returns ancestor path of node version, ids from root to the node 
+     * separated by slashes, or null if the version does not exist.
+     */
+    public String getNodePath(Connection connection, String schema, Long id, Long from, Long to) throws SQLException {
+        try (PreparedStatement nodePathStatement = this.xPathStatements.getNodePathStatement(connection, schema)) {
+            nodePathStatement.setLong(1, id);
+            nodePathStatement.setLong(2, from);
+            nodePathStatement.setLong(3, to);
+            try (ResultSet resultSet = nodePathStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString("path") : null;
+            }
         }
     }
     
@@ -765,266 +950,122 @@ public class DbApi {
     }
     
     public void initSchema(Connection connection, String schema) throws SQLException {
+        //cached statements may refer to changed tables
+        statementCache.close(connection);
         connection.setAutoCommit(false);
         InitAndDeinitStatements statements = new InitAndDeinitStatements();
         statements.initSchema(connection, schema);
         connection.commit();
     }
     
+    public void upgradeSchemaIndexes(Connection connection, String schema) throws SQLException {
+        //cached statements may refer to changed tables
+        statementCache.close(connection);
+        connection.setAutoCommit(false);
+        InitAndDeinitStatements statements = new InitAndDeinitStatements();
+        statements.createIndexes(connection, schema);
+        connection.commit();
+    }
+    
+    public void upgradeSchemaPaths(Connection connection, String schema) throws SQLException {
+        //cached statements may refer to changed tables
+        statementCache.close(connection);
+        connection.setAutoCommit(false);
+        InitAndDeinitStatements statements = new InitAndDeinitStatements();
+        statements.createPaths(connection, schema);
+        connection.commit();
+    }
+    
     public void deinitSchema(Connection connection, String schema) throws SQLException {
+        //cached statements may refer to changed tables
+        statementCache.close(connection);
         connection.setAutoCommit(false);
         InitAndDeinitStatements statements = new InitAndDeinitStatements();
         statements.deinitSchema(connection, schema);
         connection.commit();
     }
     
-    public void loadDocumentToDb(Connection connection, String schema, XmlDataModel dataModel) throws SQLException {
+    public void loadDocumentToDb(Connection connection, String schema, final XmlDataModel dataModel) throws SQLException {
+        try {
+            loadDocumentToDb(connection, schema, dataModel.getDocumentName(), new DocumentLoad() {
+                @Override
+                public void load(DocumentLoader loader) throws SQLException {
+                    loader.startDocument(dataModel.getHeader());
+                    loadNode(dataModel.getRoot(), loader);
+                    loader.endDocument();
+                }
+            });
+        } catch (IOException | XMLStreamException ex) {
+            //data model is not read from a stream
+            throw new TXmlException(ex.getLocalizedMessage());
+        }
+    }
+    
+    public void loadDocumentToDb(Connection connection, String schema, String documentName, final InputStream in) throws SQLException, IOException, XMLStreamException {
+        loadDocumentToDb(connection, schema, documentName, new DocumentLoad() {
+            @Override
+            public void load(DocumentLoader loader) throws SQLException, IOException, XMLStreamException {
+                new XmlDocumentReader().readDocument(in, loader);
+            }
+        });
+    }
+    
+    /**
+     * Body of a document load, which passes the document to <code>loader</code>.
+     */
+    private interface DocumentLoad {
+        void load(DocumentLoader loader) throws SQLException, IOException, XMLStreamException;
+    }
+    
+    /**
+     * Runs <code>documentLoad</code> in one transaction, which is rolled back 
+     * when the load fails. Constraints are deferred and validated around 
+     * the load in bulk load mode.
+     */
+    private void loadDocumentToDb(Connection connection, String schema, String documentName, DocumentLoad documentLoad) throws SQLException, IOException, XMLStreamException {
         connection.setAutoCommit(false);
-        LoadDocumentToDbStatements statements = new LoadDocumentToDbStatements();
+        LoadDocumentToDbStatements statements = new LoadDocumentToDbStatements(batchSize, useCopy);
+        BulkLoadStatements bulkLoadStatements = new BulkLoadStatements();
 
         try {
-            statements.init(schema, connection);
-            statements.getInsertDocumentTableStatement().setLong(1, statements.getDocumentId());
-            statements.getInsertDocumentTableStatement().setString(2, dataModel.getDocumentName());
-            statements.getInsertDocumentTableStatement().setString(3, dataModel.getHeader());
-            statements.getInsertDocumentTableStatement().executeUpdate();
-            
-            ResultSet namespaceIdRs = statements.getNextValNamespaceIdSequenceStatement().executeQuery();
-            namespaceIdRs.next();
-            Long emptyNamespaceId  = namespaceIdRs.getLong("namespace_id");
-            namespaceIdRs.close();
+            try {
+                if (bulkLoad) {
+                    bulkLoadStatements.deferConstraints(connection, schema);
+                }
+                statements.init(schema, connection);
+                documentLoad.load(new DocumentLoader(this, connection, statements, documentName));
+                if (bulkLoad) {
+                    bulkLoadStatements.validateConstraints(connection, schema, statements, getCurrTimeAsLong());
+                }
+            } catch(Exception ex) {
+                System.err.println("DB ROLLBACK");
+                connection.rollback();
+                throw ex;
+            } finally {
+                statements.closeAll();
+            }
 
-            statements.getInsertNamespaceTableStatement().setLong(1, emptyNamespaceId);
-            statements.getInsertNamespaceTableStatement().setString(2, "");
-            statements.getInsertNamespaceTableStatement().setString(3, "");
-            statements.getInsertNamespaceTableStatement().setLong(4, statements.getDocumentId());
-            statements.getInsertNamespaceTableStatement().executeUpdate();
-            
-            insertNodeToDb(
-                    connection, 
-                    schema, 
-                    dataModel.getRoot(), 
-                    0, 
-                    statements,
-                    null,
-                    null,
-                    null);
-        
-        } catch(Exception ex) {
-            System.err.println("DB ROLLBACK");
-            connection.rollback();
-            throw ex;
+            connection.commit();
         } finally {
-            statements.closeAll();
+            if (bulkLoad) {
+                bulkLoadStatements.restoreConstraints(connection, schema);
+            }
         }
-
-        connection.commit();        
     }
     
-    private void setArray(PreparedStatement preparedStatement, int pos, Object array[], Connection connection) throws SQLException {
+    void setArray(PreparedStatement preparedStatement, int pos, Object array[], Connection connection) throws SQLException {
         if (DatabaseEnum.getDatabase(connection) == DatabaseEnum.H2)
             preparedStatement.setObject(pos, array);
         else
             preparedStatement.setArray(pos, connection.createArrayOf("bigint", array));
     }
     
-    private void insertNodeToDb(
-            Connection connection, 
-            String schema, 
-            XmlNode node, 
-            int depth,
-            LoadDocumentToDbStatements statements,
-            Long lcpParentId,
-            Long lcpClassParentId,
-            Long cpClassParentId
-        ) throws SQLException {    
-
-
-        ResultSet nodeIdRs = statements.getNextValNodeIdSequenceStatement().executeQuery();
-        nodeIdRs.next();
-        Long nodeId = nodeIdRs.getLong("node_id");
-        nodeIdRs.close();
-        
-        List<Long> declaredNamespaceIds = new ArrayList<Long>();
-
-        for (Namespace namespace:node.getNamespaces()) {
-            Long namespaceId;
-            ResultSet namespaceIdRs;
-            
-            statements.getSelectIdNamespaceStatement().setString(1, namespace.getNamespaceURI());
-            statements.getSelectIdNamespaceStatement().setString(2, namespace.getPrefix());
-            statements.getSelectIdNamespaceStatement().setLong(3, statements.getDocumentId());
-            namespaceIdRs = statements.getSelectIdNamespaceStatement().executeQuery();
-            if (namespaceIdRs.next()) {
-                namespaceId = namespaceIdRs.getLong("id");
-                namespaceIdRs.close();
-            } else {
-                namespaceIdRs.close();
-                namespaceIdRs = statements.getNextValNamespaceIdSequenceStatement().executeQuery();
-                namespaceIdRs.next();
-                namespaceId = namespaceIdRs.getLong("namespace_id");
-                namespaceIdRs.close();
-                                
-                statements.getInsertNamespaceTableStatement().setLong(1, namespaceId);
-                statements.getInsertNamespaceTableStatement().setString(2, namespace.getNamespaceURI());
-                statements.getInsertNamespaceTableStatement().setString(3, namespace.getPrefix());
-                statements.getInsertNamespaceTableStatement().setLong(4, statements.getDocumentId());
-                statements.getInsertNamespaceTableStatement().executeUpdate();
-            }
-            
-            declaredNamespaceIds.add(namespaceId);       
-        }
-        
-        Long namespaceId;
-        ResultSet namespaceIdRs;
-        statements.getSelectIdNamespaceStatement().setString(1, node.getName().getNamespaceURI());
-        statements.getSelectIdNamespaceStatement().setString(2, node.getName().getPrefix());
-        statements.getSelectIdNamespaceStatement().setLong(3, statements.getDocumentId());
-        namespaceIdRs = statements.getSelectIdNamespaceStatement().executeQuery();
-        
-        if (namespaceIdRs.next()) {
-            namespaceId = namespaceIdRs.getLong("id");
-            namespaceIdRs.close();
-        } else {
-            namespaceIdRs.close();
-            namespaceIdRs = statements.getNextValNamespaceIdSequenceStatement().executeQuery();
-            namespaceIdRs.next();
-            namespaceId = namespaceIdRs.getLong("namespace_id");
-            namespaceIdRs.close();
-
-            statements.getInsertNamespaceTableStatement().setLong(1, namespaceId);
-            statements.getInsertNamespaceTableStatement().setString(2, node.getName().getNamespaceURI());
-            statements.getInsertNamespaceTableStatement().setString(3, node.getName().getPrefix());
-            statements.getInsertNamespaceTableStatement().setLong(4, statements.getDocumentId());
-            statements.getInsertNamespaceTableStatement().executeUpdate();
-        }
-        
-        Long lcpClassId;
-        ResultSet lcpClassIdRs;
-
-        if (depth != 0) {
-            statements.getSelectIdLCPClassStatement().setShort(1, node.getType().getShortValue());
-            statements.getSelectIdLCPClassStatement().setString(2, node.getName().getLocalPart());
-            statements.getSelectIdLCPClassStatement().setInt(3, depth);
-            statements.getSelectIdLCPClassStatement().setLong(4, statements.getDocumentId());
-            statements.getSelectIdLCPClassStatement().setLong(5, lcpClassParentId);
-            statements.getSelectIdLCPClassStatement().setLong(6, namespaceId);
-            lcpClassIdRs = statements.getSelectIdLCPClassStatement().executeQuery();
-        } else {
-            statements.getSelectRootIdLCPClassStatement().setShort(1, node.getType().getShortValue());
-            statements.getSelectRootIdLCPClassStatement().setString(2, node.getName().getLocalPart());
-            statements.getSelectRootIdLCPClassStatement().setInt(3, depth);
-            statements.getSelectRootIdLCPClassStatement().setLong(4, statements.getDocumentId());
-            statements.getSelectRootIdLCPClassStatement().setLong(5, namespaceId);
-            lcpClassIdRs = statements.getSelectRootIdLCPClassStatement().executeQuery();
-        }
-
-        if (lcpClassIdRs.next()) {
-            lcpClassId = lcpClassIdRs.getLong("id");
-        } else {
-            lcpClassIdRs = statements.getNextValLCPClassIdSequenceStatement().executeQuery();
-            lcpClassIdRs.next();
-            lcpClassId = lcpClassIdRs.getLong("lcp_class_id");
-            
-            statements.getInsertLCPClassTableStatement().setLong(1, lcpClassId);
-            statements.getInsertLCPClassTableStatement().setShort(2, node.getType().getShortValue());
-            statements.getInsertLCPClassTableStatement().setString(3, node.getName().getLocalPart());
-            statements.getInsertLCPClassTableStatement().setInt(4, depth);
-            statements.getInsertLCPClassTableStatement().setLong(6, statements.getDocumentId());
-            statements.getInsertLCPClassTableStatement().setLong(7, namespaceId);
-            
-            if (depth == 0) {
-                statements.getInsertLCPClassTableStatement().setNull(5, java.sql.Types.BIGINT);
-            } else {
-                statements.getInsertLCPClassTableStatement().setLong(5, lcpClassParentId);
-            }
-            statements.getInsertLCPClassTableStatement().executeUpdate();
-        }
-
-        Long cpClassId;
-        statements.getSelectIdCPClassStatement().setInt(1, depth);
-        statements.getSelectIdCPClassStatement().setLong(2, statements.getDocumentId());
-        
-        ResultSet cpClassIdRs = statements.getSelectIdCPClassStatement().executeQuery();
-        if (cpClassIdRs.next()) {
-            cpClassId = cpClassIdRs.getLong("id");
-        } else {
-            cpClassIdRs = statements.getNextValCPClassIdSequenceStatement().executeQuery();
-            cpClassIdRs.next();
-            cpClassId = cpClassIdRs.getLong("cp_class_id");
-            
-            statements.getInsertCPClassTableStatement().setLong(1, cpClassId);
-            statements.getInsertCPClassTableStatement().setInt(2, depth);
-            statements.getInsertCPClassTableStatement().setLong(4, statements.getDocumentId());
-            
-            if (depth == 0) {
-                statements.getInsertCPClassTableStatement().setNull(3, java.sql.Types.BIGINT);
-            } else {
-                statements.getInsertCPClassTableStatement().setLong(3, cpClassParentId); 
-            }
-            
-            statements.getInsertCPClassTableStatement().executeUpdate();
-        }
-
-        Long cpId;
-        statements.getSelectPkCPStatement().setLong(1, this.current_time);
-        statements.getSelectPkCPStatement().setLong(2, NOW);
-        statements.getSelectPkCPStatement().setLong(3, cpClassId);
-        ResultSet cpPkRs = statements.getSelectPkCPStatement().executeQuery();
-        if (cpPkRs.next()) {
-            Array validArray = cpPkRs.getArray("valid");
-            Object[] validObjectArray = (Object[])validArray.getArray();
-            Object[] newValidObjectArray = Arrays.copyOf(validObjectArray, validObjectArray.length + 1);
-            newValidObjectArray[newValidObjectArray.length - 1] = nodeId;
-            setArray(statements.getUpdateValidCPStatement(), 1, newValidObjectArray, connection);
-            statements.getUpdateValidCPStatement().setLong(2, this.current_time);
-            statements.getUpdateValidCPStatement().setLong(3, NOW);
-            statements.getUpdateValidCPStatement().setLong(4, cpClassId);
-            statements.getUpdateValidCPStatement().executeUpdate();
-
-        } else {
-            statements.getInsertCPTableStatement().setLong(1, this.current_time);
-            statements.getInsertCPTableStatement().setLong(2, NOW);
-            setArray(statements.getInsertCPTableStatement(), 3, new Object[] { nodeId }, connection);
-            statements.getInsertCPTableStatement().setLong(4, cpClassId);
-            statements.getInsertCPTableStatement().executeUpdate();
-        }
-
-        statements.getInsertLCPTableStatement().setLong(1, nodeId);
-        statements.getInsertLCPTableStatement().setLong(2, this.current_time);
-        statements.getInsertLCPTableStatement().setLong(3, NOW);
-        statements.getInsertLCPTableStatement().setString(7, node.getValue());
-        statements.getInsertLCPTableStatement().setLong(8, lcpClassId);
-
-        if (depth == 0) {
-            statements.getInsertLCPTableStatement().setNull(4, java.sql.Types.BIGINT);
-            statements.getInsertLCPTableStatement().setNull(5, java.sql.Types.BIGINT);
-            statements.getInsertLCPTableStatement().setNull(6, java.sql.Types.BIGINT);
-        } else {
-            statements.getInsertLCPTableStatement().setLong(4, lcpParentId);
-            statements.getInsertLCPTableStatement().setLong(5, this.current_time);
-            statements.getInsertLCPTableStatement().setLong(6, NOW);
-        }
-        statements.getInsertLCPTableStatement().executeUpdate();
-
-        for (Long nId:declaredNamespaceIds) {
-            statements.getInsertLcpNamespaceTableStatement().setLong(1, nodeId);
-            statements.getInsertLcpNamespaceTableStatement().setLong(2, this.current_time);
-            statements.getInsertLcpNamespaceTableStatement().setLong(3, NOW);
-            statements.getInsertLcpNamespaceTableStatement().setLong(4, nId);
-            statements.getInsertLcpNamespaceTableStatement().executeUpdate(); 
-        }
-
+    private void loadNode(XmlNode node, XmlNodeListener listener) throws SQLException {
+        listener.startNode(node.getName(), node.getType(), node.getNamespaces(), node.getValue());
         for (XmlNode n:node.getChildren()) {
-            insertNodeToDb(
-                    connection, 
-                    schema, 
-                    n, 
-                    depth + 1, 
-                    statements,
-                    nodeId,
-                    lcpClassId,
-                    cpClassId);
-        } 
+            loadNode(n, listener);
+        }
+        listener.endNode();
     }
+
 }
@@ -0,0 +1,258 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+import javax.xml.stream.events.Namespace;
+import txml.database.model.LcpClassKey;
+import txml.database.model.NamespaceKey;
+import txml.load.XmlNodeListener;
+import txml.load.model.XmlNodeTypeEnum;
+
+/**
+ * Stores nodes of one document as they are read. Classes and namespaces 
+ * belong to the new document only, so they are resolved from per-load 
+ * caches and inserted on the first occurrence. Only nodes on the current 
+ * path and nodes waiting for the next batch are held in memory, the valid 
+ * arrays of CP rows are the only data which grow with the document.
+ */
+class DocumentLoader implements XmlNodeListener {
+    private final DbApi dbApi;
+    private final Connection connection;
+    private final LoadDocumentToDbStatements statements;
+    private final String documentName;
+    private final Deque<PendingNode> path = new ArrayDeque<>();
+    private final List<PendingNode> pendingNodes = new ArrayList<>();
+    private final Map<NamespaceKey, Long> namespaceIds = new HashMap<>();
+    private final Map<LcpClassKey, Long> lcpClassIds = new HashMap<>();
+    private final Map<Integer, Long> cpClassIds = new HashMap<>();
+    
+    private static class PendingNode {
+        private Long id = null;
+        private String path = null;
+        private final PendingNode parent;
+        private final Long lcpClassId;
+        private final Long cpClassId;
+        private final String value;
+        private final List<Long> declaredNamespaceIds;
+
+        PendingNode(PendingNode parent, Long lcpClassId, Long cpClassId, String value, List<Long> declaredNamespaceIds) {
+            this.parent = parent;
+            this.lcpClassId = lcpClassId;
+            this.cpClassId = cpClassId;
+            this.value = value;
+            this.declaredNamespaceIds = declaredNamespaceIds;
+        }
+    }
+
+    DocumentLoader(DbApi dbApi, Connection connection, LoadDocumentToDbStatements statements, String documentName) {
+        this.dbApi = dbApi;
+        this.connection = connection;
+        this.statements = statements;
+        this.documentName = documentName;
+    }
+    
+    @Override
+    public void startDocument(String header) throws SQLException {
+        statements.getInsertDocumentTableStatement().setLong(1, statements.getDocumentId());
+        statements.getInsertDocumentTableStatement().setString(2, documentName);
+        statements.getInsertDocumentTableStatement().setString(3, header);
+        statements.getInsertDocumentTableStatement().executeUpdate();
+        
+        getNamespaceId("", "");
+    }
+
+    @Override
+    public void startNode(QName name, XmlNodeTypeEnum type, List<Namespace> namespaces, String value) throws SQLException {
+        int depth = path.size();
+        PendingNode parent = path.peek();
+        List<Long> declaredNamespaceIds = new ArrayList<>();
+        
+        for (Namespace namespace:namespaces) {
+            declaredNamespaceIds.add(getNamespaceId(namespace.getNamespaceURI(), namespace.getPrefix()));
+        }
+        
+        Long namespaceId = getNamespaceId(name.getNamespaceURI(), name.getPrefix());
+        Long lcpClassId = getLcpClassId(type, name.getLocalPart(), depth, parent == null ? null : parent.lcpClassId, namespaceId);
+        Long cpClassId = getCpClassId(depth, parent == null ? null : parent.cpClassId);
+        
+        PendingNode node = new PendingNode(parent, lcpClassId, cpClassId, value, declaredNamespaceIds);
+        pendingNodes.add(node);
+        path.push(node);
+        
+        if (pendingNodes.size() >= statements.getBatchSize()) {
+            flush();
+        }
+    }
+
+    @Override
+    public void endNode() {
+        path.pop();
+    }
+
+    @Override
+    public void endDocument() throws SQLException {
+        flush();
+        
+        PgCopyStatements copy = statements.getPgCopyStatements();
+        for (Map.Entry<Long, List<Long>> valid:statements.getValidIds().entrySet()) {
+            if (copy != null) {
+                copy.addCPRow(dbApi.getCurrTimeAsLong(), dbApi.getNOW(), valid.getValue().toArray(), valid.getKey());
+            } else {
+                statements.getInsertCPTableStatement().setLong(1, dbApi.getCurrTimeAsLong());
+                statements.getInsertCPTableStatement().setLong(2, dbApi.getNOW());
+                dbApi.setArray(statements.getInsertCPTableStatement(), 3, valid.getValue().toArray(), connection);
+                statements.getInsertCPTableStatement().setLong(4, valid.getKey());
+                statements.getInsertCPTableStatement().addBatch();
+            }
+        }
+        statements.executeBatches();
+    }
+    
+    /**
+     * Assigns ids to pending nodes in document order and stores them together 
+     * with new classes and namespaces. Exactly 
+     * as many ids as pending nodes are reserved, so node ids of the document 
+     * have no gaps.
+     */
+    private void flush() throws SQLException {
+        long currentTime = dbApi.getCurrTimeAsLong();
+        long now = dbApi.getNOW();
+        PgCopyStatements copy = statements.getPgCopyStatements();
+        if (!pendingNodes.isEmpty()) {
+            statements.getNodeIdAllocator().reserve(pendingNodes.size());
+        }
+        
+        for (PendingNode node:pendingNodes) {
+            node.id = statements.getNodeIdAllocator().next();
+            statements.addValidId(node.cpClassId, node.id);
+            node.path = (node.parent == null ? "/" : node.parent.path) + node.id + "/";
+            
+            if (copy != null) {
+                if (node.parent == null) {
+                    copy.addLCPRow(node.id, currentTime, now, null, null, null, node.value, node.lcpClassId, node.path);
+                } else {
+                    copy.addLCPRow(node.id, currentTime, now, node.parent.id, currentTime, now, node.value, node.lcpClassId, node.path);
+                }
+                
+                for (Long namespaceId:node.declaredNamespaceIds) {
+                    copy.addLcpNamespaceRow(node.id, currentTime, now, namespaceId);
+                }
+                continue;
+            }
+            
+            statements.getInsertLCPTableStatement().setLong(1, node.id);
+            statements.getInsertLCPTableStatement().setLong(2, currentTime);
+            statements.getInsertLCPTableStatement().setLong(3, now);
+            statements.getInsertLCPTableStatement().setString(7, node.value);
+            statements.getInsertLCPTableStatement().setLong(8, node.lcpClassId);
+            statements.getInsertLCPTableStatement().setString(9, node.path);
+
+            if (node.parent == null) {
+                statements.getInsertLCPTableStatement().setNull(4, java.sql.Types.BIGINT);
+                statements.getInsertLCPTableStatement().setNull(5, java.sql.Types.BIGINT);
+                statements.getInsertLCPTableStatement().setNull(6, java.sql.Types.BIGINT);
+            } else {
+                statements.getInsertLCPTableStatement().setLong(4, node.parent.id);
+                statements.getInsertLCPTableStatement().setLong(5, currentTime);
+                statements.getInsertLCPTableStatement().setLong(6, now);
+            }
+            statements.getInsertLCPTableStatement().addBatch();
+            
+            for (Long namespaceId:node.declaredNamespaceIds) {
+                statements.getInsertLcpNamespaceTableStatement().setLong(1, node.id);
+                statements.getInsertLcpNamespaceTableStatement().setLong(2, currentTime);
+                statements.getInsertLcpNamespaceTableStatement().setLong(3, now);
+                statements.getInsertLcpNamespaceTableStatement().setLong(4, namespaceId);
+                statements.getInsertLcpNamespaceTableStatement().addBatch();
+            }
+        }
+        
+        statements.executeBatches();
+        pendingNodes.clear();
+    }
+    
+    private Long getNamespaceId(String uri, String prefix) throws SQLException {
+        NamespaceKey key = new NamespaceKey(uri, prefix);
+        Long namespaceId = namespaceIds.get(key);
+        if (namespaceId != null) {
+            return namespaceId;
+        }
+        
+        namespaceId = statements.getNamespaceIdAllocator().next();
+        statements.getInsertNamespaceTableStatement().setLong(1, namespaceId);
+        statements.getInsertNamespaceTableStatement().setString(2, uri);
+        statements.getInsertNamespaceTableStatement().setString(3, prefix);
+        statements.getInsertNamespaceTableStatement().setLong(4, statements.getDocumentId());
+        statements.getInsertNamespaceTableStatement().addBatch();
+        namespaceIds.put(key, namespaceId);
+        return namespaceId;
+    }
+    
+    private Long getLcpClassId(XmlNodeTypeEnum type, String localPart, int depth, Long lcpClassParentId, Long namespaceId) throws SQLException {
+        LcpClassKey key = new LcpClassKey(type.getShortValue(), localPart, depth, lcpClassParentId, namespaceId);
+        Long lcpClassId = lcpClassIds.get(key);
+        if (lcpClassId != null) {
+            return lcpClassId;
+        }
+        
+        lcpClassId = statements.getLcpClassIdAllocator().next();
+        statements.getInsertLCPClassTableStatement().setLong(1, lcpClassId);
+        statements.getInsertLCPClassTableStatement().setShort(2, type.getShortValue());
+        statements.getInsertLCPClassTableStatement().setString(3, localPart);
+        statements.getInsertLCPClassTableStatement().setInt(4, depth);
+        statements.getInsertLCPClassTableStatement().setLong(6, statements.getDocumentId());
+        statements.getInsertLCPClassTableStatement().setLong(7, namespaceId);
+
+        if (depth == 0) {
+            statements.getInsertLCPClassTableStatement().setNull(5, java.sql.Types.BIGINT);
+        } else {
+            statements.getInsertLCPClassTableStatement().setLong(5, lcpClassParentId);
+        }
+        statements.getInsertLCPClassTableStatement().addBatch();
+        lcpClassIds.put(key, lcpClassId);
+        return lcpClassId;
+    }
+    
+    private Long getCpClassId(int depth, Long cpClassParentId) throws SQLException {
+        Long cpClassId = cpClassIds.get(depth);
+        if (cpClassId != null) {
+            return cpClassId;
+        }
+        
+        cpClassId = statements.getCpClassIdAllocator().next();
+        statements.getInsertCPClassTableStatement().setLong(1, cpClassId);
+        statements.getInsertCPClassTableStatement().setInt(2, depth);
+        statements.getInsertCPClassTableStatement().setLong(4, statements.getDocumentId());
+
+        if (depth == 0) {
+            statements.getInsertCPClassTableStatement().setNull(3, java.sql.Types.BIGINT);
+        } else {
+            statements.getInsertCPClassTableStatement().setLong(3, cpClassParentId); 
+        }
+        statements.getInsertCPClassTableStatement().addBatch();
+        cpClassIds.put(depth, cpClassId);
+        return cpClassId;
+    }
+}
@@ -0,0 +1,106 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hands out ids of one database sequence from memory. Ids are reserved 
+ * in blocks by one query, every id is taken by nextval of the sequence, 
+ * so allocators of concurrent loaders never get the same id.
+ */
+public class IdBlockAllocator {
+    private final String reserveQueryPostgre = "SELECT nextval('%s.%s') as id FROM generate_series(1, ?)";
+    private final String reserveQueryH2 = "SELECT %s.%s.NEXTVAL as id FROM SYSTEM_RANGE(1, ?)";
+    
+    private final PreparedStatement reserveStatement;
+    private final int blockSize;
+    private final Deque<Long> ids = new ArrayDeque<>();
+    private Long firstId;
+    private Long lastId;
+    
+    public IdBlockAllocator(Connection connection, String schema, String sequence, int blockSize) throws SQLException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        this.blockSize = blockSize;
+        
+        if (DatabaseEnum.getDatabase(connection) == DatabaseEnum.POSTGRE) {
+            reserveStatement = connection.prepareStatement(String.format(reserveQueryPostgre, schema, sequence));
+        } else {
+            reserveStatement = connection.prepareStatement(String.format(reserveQueryH2, schema, sequence));
+        }
+    }
+    
+    /**
+     * Returns next free id, new block of ids is reserved when the allocator is empty.
+     */
+    public Long next() throws SQLException {
+        if (ids.isEmpty()) {
+            reserve(blockSize);
+        }
+        Long id = ids.poll();
+        firstId = firstId == null || id < firstId ? id : firstId;
+        lastId = lastId == null || id > lastId ? id : lastId;
+        return id;
+    }
+    
+    /**
+     * Returns the lowest id handed out by <code>next</code>, null if no id was handed out.
+     */
+    public Long getFirstId() {
+        return firstId;
+    }
+    
+    /**
+     * Returns the highest id handed out by <code>next</code>, null if no id was handed out.
+     */
+    public Long getLastId() {
+        return lastId;
+    }
+    
+    /**
+     * Reserves <code>count</code> ids by one query and adds them 
+     * to ids handed out by <code>next</code>.
+     */
+    public void reserve(int count) throws SQLException {
+        if (count < 1) {
+            return;
+        }
+        
+        List<Long> reserved = new ArrayList<>(count);
+        reserveStatement.setInt(1, count);
+        try (ResultSet rs = reserveStatement.executeQuery()) {
+            while (rs.next()) {
+                reserved.add(rs.getLong("id"));
+            }
+        }
+        Collections.sort(reserved);
+        ids.addAll(reserved);
+    }
+    
+    public void close() throws SQLException {
+        reserveStatement.close();
+    }
+}
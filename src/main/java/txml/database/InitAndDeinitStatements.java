@@ -16,8 +16,12 @@
 package txml.database;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
 
 public class InitAndDeinitStatements {
     private final String createSchemaQuery = "CREATE SCHEMA %s";
@@ -38,7 +42,7 @@ public class InitAndDeinitStatements {
     private final String dropNamespaceIdSequenceQuery = "drop SEQUENCE IF EXISTS %s.namespace_id_seq";*/
     
     private final String createCPClassTableQuery = "CREATE TABLE %s.CP_Class(id bigint primary key, depth int not null, parent bigint, document bigint not null)";
-    private final String createLCPTableQuery = "CREATE TABLE %s.LCP(id bigint, \"from\" bigint not null, \"to\" bigint not null, parentId bigint, parentFrom bigint, parentTo bigint, LCP_Class bigint not null, value text, CONSTRAINT pk_lcp PRIMARY KEY (id, \"from\", \"to\"), CONSTRAINT chk_2 CHECK (parentFrom <= \"from\" AND \"to\" <= parentTo))";
+    private final String createLCPTableQuery = "CREATE TABLE %s.LCP(id bigint, \"from\" bigint not null, \"to\" bigint not null, parentId bigint, parentFrom bigint, parentTo bigint, LCP_Class bigint not null, value text, path varchar%s, CONSTRAINT pk_lcp PRIMARY KEY (id, \"from\", \"to\"), CONSTRAINT chk_2 CHECK (parentFrom <= \"from\" AND \"to\" <= parentTo))";
     private final String createLCPClassTableQuery = "CREATE TABLE %s.LCP_Class(id bigint primary key, type SMALLINT not null, local_part varchar(64) not null, depth int not null, parent bigint, document bigint not null, namespace_id bigint)";
     private final String createDocumentTableQuery = "CREATE TABLE %s.Document(id bigint primary key, name varchar(64) not null unique, header text)";
     private final String createNamespaceTableQuery = "CREATE TABLE %s.Namespace(id bigint primary key, uri varchar(64), prefix varchar(32), document_id bigint not null)";
@@ -63,6 +67,33 @@ public class InitAndDeinitStatements {
     private final String alterLcpNamespaceFkLcpTableQuery = "ALTER TABLE %s.lcp_namespace ADD FOREIGN KEY (node_id, node_from, node_to) REFERENCES %s.lcp(id, \"from\", \"to\")";
     private final String alterNamespaceTableQuery = "ALTER TABLE %s.namespace ADD FOREIGN KEY (document_id) REFERENCES %s.document(id)";
     
+    private final String createIndexQuery = "CREATE INDEX %s ON %s.%s";
+    private final String dropIndexQuery = "DROP INDEX %s.%s";
+    
+    //name, table and columns of secondary indexes used by XPath, snapshot and update queries
+    private final String[][] indexes = {
+        {"idx_lcp_parent", "lcp", "(parentId, parentFrom, parentTo)"},
+        {"idx_lcp_lcp_class", "lcp", "(LCP_Class)"},
+        {"idx_lcp_path", "lcp", "(path)"},
+        {"idx_lcp_class_document_label", "lcp_class", "(document, type, local_part, namespace_id)"},
+        {"idx_lcp_class_document", "lcp_class", "(document, depth)"},
+        {"idx_cp_cp_class", "cp", "(CP_Class, \"to\", \"from\")"},
+        {"idx_cp_class_document", "cp_class", "(document, depth)"},
+        {"idx_namespace_document", "namespace", "(document_id, prefix, uri)"},
+        {"idx_lcp_namespace_namespace", "lcp_namespace", "(namespace_id)"}
+    };
+    
+    //name and table of indexes replaced by indexes above
+    private final String[][] obsoleteIndexes = {
+        {"idx_lcp_class_label", "lcp_class"}
+    };
+    
+    private final String addPathColumnQuery = "ALTER TABLE %s.LCP ADD COLUMN path varchar%s";
+    private final String rootPathsUpdateQuery = "update %s.LCP as lcp set path = '/' || lcp.id || '/' where lcp.parentId is null and lcp.path is null";
+    private final String childPathsUpdateQuery = 
+            "update %s.LCP as lcp set path = (SELECT parent.path || lcp.id || '/' FROM %s.LCP as parent where parent.id = lcp.parentId and parent.\"from\" = lcp.parentFrom and parent.\"to\" = lcp.parentTo) "
+            + "where lcp.path is null and exists (SELECT 1 FROM %s.LCP as parent where parent.id = lcp.parentId and parent.\"from\" = lcp.parentFrom and parent.\"to\" = lcp.parentTo and parent.path is not null)";
+    
     void initSchema(Connection connection, String schema) throws SQLException {
         DatabaseEnum databaseEnum = DatabaseEnum.getDatabase(connection);
         String createCPTableQuery;
@@ -71,6 +102,10 @@ public class InitAndDeinitStatements {
         } else {
             createCPTableQuery = "CREATE TABLE %s.CP(\"from\" bigint not null, \"to\" bigint not null, valid bigint array not null, CP_Class bigint not null, CONSTRAINT pk_cp PRIMARY KEY (\"from\", \"to\", CP_Class))";
         }
+        
+        //foreign keys of PostgreSQL can be deferred by bulk load
+        String deferrable = databaseEnum == DatabaseEnum.POSTGRE ? " DEFERRABLE" : "";
+        String pathCollation = getPathCollation(databaseEnum);
 
         deinitSchema(connection, schema);              
         try (PreparedStatement createSchemaStatement = connection.prepareStatement(String.format(createSchemaQuery, schema))) {
@@ -85,7 +120,7 @@ public class InitAndDeinitStatements {
             createCPClassTableStatement.executeUpdate();
         } 
         
-        try (PreparedStatement createLCPTableStatement = connection.prepareStatement(String.format(createLCPTableQuery, schema))) {
+        try (PreparedStatement createLCPTableStatement = connection.prepareStatement(String.format(createLCPTableQuery, schema, pathCollation))) {
             createLCPTableStatement.executeUpdate();
         }
         
@@ -130,49 +165,154 @@ public class InitAndDeinitStatements {
             createNamespaceIdSequenceStatement.executeUpdate();
         } 
         
-        try (PreparedStatement alterCPClassCPTableStatement = connection.prepareStatement(String.format(alterCPClassCPTableQuery, schema, schema))) {
+        try (PreparedStatement alterCPClassCPTableStatement = connection.prepareStatement(String.format(alterCPClassCPTableQuery, schema, schema) + deferrable)) {
             alterCPClassCPTableStatement.executeUpdate();
         } 
         
-        try (PreparedStatement alterLCPClassLCPTableStatement = connection.prepareStatement(String.format(alterLCPClassLCPTableQuery, schema, schema))) {
+        try (PreparedStatement alterLCPClassLCPTableStatement = connection.prepareStatement(String.format(alterLCPClassLCPTableQuery, schema, schema) + deferrable)) {
             alterLCPClassLCPTableStatement.executeUpdate();
         } 
 
-        try (PreparedStatement alterParentLCPTableStatement = connection.prepareStatement(String.format(alterParentLCPTableQuery, schema, schema))) {
+        try (PreparedStatement alterParentLCPTableStatement = connection.prepareStatement(String.format(alterParentLCPTableQuery, schema, schema) + deferrable)) {
             alterParentLCPTableStatement.executeUpdate();
         } 
         
-        try (PreparedStatement alterDocumentCPClassTableStatement = connection.prepareStatement(String.format(alterDocumentCPClassTableQuery, schema, schema))) {
+        try (PreparedStatement alterDocumentCPClassTableStatement = connection.prepareStatement(String.format(alterDocumentCPClassTableQuery, schema, schema) + deferrable)) {
             alterDocumentCPClassTableStatement.executeUpdate();
         } 
         
-        try (PreparedStatement alterDocumentLCPClassTableStatement = connection.prepareStatement(String.format(alterDocumentLCPClassTableQuery, schema, schema))) {
+        try (PreparedStatement alterDocumentLCPClassTableStatement = connection.prepareStatement(String.format(alterDocumentLCPClassTableQuery, schema, schema) + deferrable)) {
             alterDocumentLCPClassTableStatement.executeUpdate();
         }
 
-        try (PreparedStatement alterParentLCPClassTableStatement = connection.prepareStatement(String.format(alterParentLCPClassTableQuery, schema, schema))) {
+        try (PreparedStatement alterParentLCPClassTableStatement = connection.prepareStatement(String.format(alterParentLCPClassTableQuery, schema, schema) + deferrable)) {
             alterParentLCPClassTableStatement.executeUpdate();
         }
         
-        try (PreparedStatement alterParentCPClassTableStatement = connection.prepareStatement(String.format(alterParentCPClassTableQuery, schema, schema))) {
+        try (PreparedStatement alterParentCPClassTableStatement = connection.prepareStatement(String.format(alterParentCPClassTableQuery, schema, schema) + deferrable)) {
             alterParentCPClassTableStatement.executeUpdate();
         }
         
-        try (PreparedStatement alterNamespaceLCPClassTableStatement = connection.prepareStatement(String.format(alterNamespaceLCPClassTableQuery, schema, schema))) {
+        try (PreparedStatement alterNamespaceLCPClassTableStatement = connection.prepareStatement(String.format(alterNamespaceLCPClassTableQuery, schema, schema) + deferrable)) {
             alterNamespaceLCPClassTableStatement.executeUpdate();
         }
         
-        try (PreparedStatement alterLcpNamespaceFkNamespaceTableStatement = connection.prepareStatement(String.format(alterLcpNamespaceFkNamespaceTableQuery, schema, schema))) {
+        try (PreparedStatement alterLcpNamespaceFkNamespaceTableStatement = connection.prepareStatement(String.format(alterLcpNamespaceFkNamespaceTableQuery, schema, schema) + deferrable)) {
             alterLcpNamespaceFkNamespaceTableStatement.executeUpdate();
         }
         
-        try (PreparedStatement alterLcpNamespaceFkLcpTableStatement = connection.prepareStatement(String.format(alterLcpNamespaceFkLcpTableQuery, schema, schema))) {
+        try (PreparedStatement alterLcpNamespaceFkLcpTableStatement = connection.prepareStatement(String.format(alterLcpNamespaceFkLcpTableQuery, schema, schema) + deferrable)) {
             alterLcpNamespaceFkLcpTableStatement.executeUpdate();
         }
         
-        try (PreparedStatement alterNamespaceTableStatement = connection.prepareStatement(String.format(alterNamespaceTableQuery, schema, schema))) {
+        try (PreparedStatement alterNamespaceTableStatement = connection.prepareStatement(String.format(alterNamespaceTableQuery, schema, schema) + deferrable)) {
             alterNamespaceTableStatement.executeUpdate();
         }
+        
+        createIndexes(connection, schema);
+    }
+    
+    /**
+     * Creates secondary indexes which are missing in <code>schema</code> 
+     * and drops obsolete ones.
+     */
+    void createIndexes(Connection connection, String schema) throws SQLException {
+        DatabaseEnum databaseEnum = DatabaseEnum.getDatabase(connection);
+        
+        for (String[] obsoleteIndex : obsoleteIndexes) {
+            if (getIndexNames(connection, schema, obsoleteIndex[1]).contains(obsoleteIndex[0].toLowerCase())) {
+                try (PreparedStatement dropIndexStatement = connection.prepareStatement(String.format(dropIndexQuery, schema, obsoleteIndex[0]))) {
+                    dropIndexStatement.executeUpdate();
+                }
+            }
+        }
+        
+        for (String[] index : indexes) {
+            if (getIndexNames(connection, schema, index[1]).contains(index[0].toLowerCase())) {
+                continue;
+            }
+            
+            //index of PostgreSQL is always created in schema of its table
+            String indexName = databaseEnum == DatabaseEnum.H2 ? schema + "." + index[0] : index[0];
+            try (PreparedStatement createIndexStatement = connection.prepareStatement(String.format(createIndexQuery, indexName, schema, index[1] + index[2]))) {
+                createIndexStatement.executeUpdate();
+            }
+        }
+    }
+    
+    /**
+     * Adds ancestor paths to LCP rows of <code>schema</code> created by older 
+     * version of library. Paths are computed from roots down, one level 
+     * per update.
+     */
+    void createPaths(Connection connection, String schema) throws SQLException {
+        if (!getColumnNames(connection, schema, "lcp").contains("path")) {
+            try (PreparedStatement addPathColumnStatement = connection.prepareStatement(String.format(addPathColumnQuery, schema, getPathCollation(DatabaseEnum.getDatabase(connection))))) {
+                addPathColumnStatement.executeUpdate();
+            }
+        }
+        
+        try (PreparedStatement rootPathsUpdateStatement = connection.prepareStatement(String.format(rootPathsUpdateQuery, schema))) {
+            rootPathsUpdateStatement.executeUpdate();
+        }
+        
+        try (PreparedStatement childPathsUpdateStatement = connection.prepareStatement(String.format(childPathsUpdateQuery, schema, schema, schema))) {
+            int updatedRows;
+            do {
+                updatedRows = childPathsUpdateStatement.executeUpdate();
+            } while (updatedRows > 0);
+        }
+    }
+    
+    /**
+     * Returns collation of ancestor paths. Descendants are selected by range 
+     * of paths, so PostgreSQL compares them by bytes as H2 does.
+     */
+    private String getPathCollation(DatabaseEnum databaseEnum) {
+        return databaseEnum == DatabaseEnum.POSTGRE ? " COLLATE \"C\"" : "";
+    }
+    
+    private Set<String> getColumnNames(Connection connection, String schema, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if (metaData.storesUpperCaseIdentifiers()) {
+            schema = schema.toUpperCase();
+            table = table.toUpperCase();
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            schema = schema.toLowerCase();
+            table = table.toLowerCase();
+        }
+        
+        Set<String> columnNames = new HashSet<>();
+        try (ResultSet resultSet = metaData.getColumns(null, schema, table, null)) {
+            while (resultSet.next()) {
+                columnNames.add(resultSet.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        
+        return columnNames;
+    }
+    
+    private Set<String> getIndexNames(Connection connection, String schema, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if (metaData.storesUpperCaseIdentifiers()) {
+            schema = schema.toUpperCase();
+            table = table.toUpperCase();
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            schema = schema.toLowerCase();
+            table = table.toLowerCase();
+        }
+        
+        Set<String> indexNames = new HashSet<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(null, schema, table, false, false)) {
+            while (resultSet.next()) {
+                String indexName = resultSet.getString("INDEX_NAME");
+                if (indexName != null) {
+                    indexNames.add(indexName.toLowerCase());
+                }
+            }
+        }
+        
+        return indexNames;
     }
 
     void deinitSchema(Connection connection, String schema) throws SQLException { 
@@ -19,21 +19,27 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class LoadDocumentToDbStatements {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int CLASS_ID_BLOCK_SIZE = 32;
+    
     private long documentId;
+    private final int batchSize;
+    private final boolean useCopy;
+    private PgCopyStatements pgCopyStatements = null;
+    private final Map<Long, List<Long>> validIds = new LinkedHashMap<>();
     
     private PreparedStatement nextValDocumentIdSequenceStatement = null;
-    private PreparedStatement nextValLCPClassIdSequenceStatement = null;
-    private PreparedStatement nextValCPClassIdSequenceStatement = null;
-    private PreparedStatement nextValNodeIdSequenceStatement = null;
-    private PreparedStatement nextValNamespaceIdSequenceStatement = null;
+    private IdBlockAllocator lcpClassIdAllocator = null;
+    private IdBlockAllocator cpClassIdAllocator = null;
+    private IdBlockAllocator nodeIdAllocator = null;
+    private IdBlockAllocator namespaceIdAllocator = null;
     
-    private PreparedStatement selectIdLCPClassStatement = null;
-    private PreparedStatement selectIdCPClassStatement = null;
-    private PreparedStatement selectPkCPStatement = null;
-    private PreparedStatement selectRootIdLCPClassStatement = null;
-    private PreparedStatement selectIdNamespaceStatement = null;
     
     private PreparedStatement insertLCPClassTableStatement = null;
     private PreparedStatement insertCPClassTableStatement = null;
@@ -43,32 +49,31 @@ public class LoadDocumentToDbStatements {
     private PreparedStatement insertNamespaceTableStatement = null;
     private PreparedStatement insertLcpNamespaceTableStatement = null;
     
-    private PreparedStatement updateValidCPStatement = null;
-    
     private String nextValDocumentIdSequenceQuery;
-    private String nextValLCPClassIdSequenceQuery;
-    private String nextValCPClassIdSequenceQuery;
-    private String nextValNodeIdSequenceQuery;
-    private String nextValNamespaceIdSequenceQuery;
     
-    private final String selectIdLCPClassQuery = "SELECT id from %s.lcp_class where type=? and local_part=? and depth=? and document=? and parent = ? and namespace_id = ? LIMIT 1";
-    private final String selectRootIdLCPClassQuery = "SELECT id from %s.lcp_class where type=? and local_part=? and depth=? and document=? and parent is null and namespace_id = ? LIMIT 1";
-    private final String selectPkCPQuery = "SELECT valid from %s.cp where \"from\"=? and \"to\"=? and cp_class=? LIMIT 1";
-    private final String selectIdCPClassQuery = "SELECT id from %s.cp_class where depth=? and document=? LIMIT 1";
-    private final String selectIdNamespaceQuery = "SELECT id from %s.namespace where uri=? and prefix=? and document_id=? LIMIT 1";
     
-    private final String updateValidCPQuery = "UPDATE %s.cp SET valid = ? where \"from\" = ? and \"to\" = ? and cp_class = ?";
-
     private final String insertLCPClassTableQuery = "INSERT INTO %s.LCP_Class (id, type, local_part, depth, parent, document, namespace_id) VALUES (?,?,?,?,?,?,?)";
     private final String insertCPClassTableQuery = "INSERT INTO %s.CP_Class (id, depth, parent, document) VALUES (?,?,?,?)";
     private final String insertDocumentTableQuery = "INSERT INTO %s.Document (id, name, header) VALUES (?,?,?)";    
     private final String insertCPTableQuery = "INSERT INTO %s.CP (\"from\", \"to\", valid, CP_Class) VALUES (?,?,?,?)";    
-    private final String insertLCPTableQuery = "INSERT INTO %s.LCP (id, \"from\", \"to\", parentId, parentFrom, parentTo, value, LCP_Class) VALUES (?,?,?,?,?,?,?,?)";  
+    private final String insertLCPTableQuery = "INSERT INTO %s.LCP (id, \"from\", \"to\", parentId, parentFrom, parentTo, value, LCP_Class, path) VALUES (?,?,?,?,?,?,?,?,?)";  
     private final String insertNamespaceTableQuery = "INSERT INTO %s.namespace (id, uri, prefix, document_id) VALUES (?,?,?,?)"; 
     private final String insertLcpNamespaceTableQuery = "INSERT INTO %s.lcp_namespace (node_id, node_from, node_to, namespace_id) VALUES (?,?,?,?)"; 
     
     private DatabaseEnum databaseEnum;
 
+    public LoadDocumentToDbStatements() {
+        this(DEFAULT_BATCH_SIZE, false);
+    }
+    
+    public LoadDocumentToDbStatements(int batchSize, boolean useCopy) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+        this.useCopy = useCopy;
+    }
+
     public DatabaseEnum getDatabaseEnum() {
         return databaseEnum;
     }
@@ -78,28 +83,15 @@ public class LoadDocumentToDbStatements {
         
         if (databaseEnum == DatabaseEnum.POSTGRE) {
             nextValDocumentIdSequenceQuery = "SELECT nextval('%s.document_id_seq') as document_id";
-            nextValLCPClassIdSequenceQuery = "SELECT nextval('%s.lcp_class_id_seq') as lcp_class_id";
-            nextValCPClassIdSequenceQuery = "SELECT nextval('%s.cp_class_id_seq') as cp_class_id";
-            nextValNodeIdSequenceQuery = "SELECT nextval('%s.node_id_seq') as node_id";
-            nextValNamespaceIdSequenceQuery = "SELECT nextval('%s.namespace_id_seq') as namespace_id";
         } else {
             nextValDocumentIdSequenceQuery = "SELECT %s.document_id_seq.NEXTVAL as document_id FROM dual";
-            nextValLCPClassIdSequenceQuery = "SELECT %s.lcp_class_id_seq.NEXTVAL as lcp_class_id FROM dual";
-            nextValCPClassIdSequenceQuery = "SELECT %s.cp_class_id_seq.NEXTVAL as cp_class_id FROM dual";
-            nextValNodeIdSequenceQuery = "SELECT %s.node_id_seq.NEXTVAL as node_id FROM dual";
-            nextValNamespaceIdSequenceQuery = "SELECT %s.namespace_id_seq.NEXTVAL as namespace_id FROM dual";
         }
         
-        selectIdLCPClassStatement = connection.prepareStatement(String.format(selectIdLCPClassQuery, schema));
-        selectIdCPClassStatement = connection.prepareStatement(String.format(selectIdCPClassQuery, schema));
-        selectRootIdLCPClassStatement = connection.prepareStatement(String.format(selectRootIdLCPClassQuery, schema));
-        selectPkCPStatement = connection.prepareStatement(String.format(selectPkCPQuery, schema));
-        selectIdNamespaceStatement = connection.prepareStatement(String.format(selectIdNamespaceQuery, schema));
         nextValDocumentIdSequenceStatement = connection.prepareStatement(String.format(nextValDocumentIdSequenceQuery, schema));
-        nextValLCPClassIdSequenceStatement = connection.prepareStatement(String.format(nextValLCPClassIdSequenceQuery, schema)); 
-        nextValCPClassIdSequenceStatement = connection.prepareStatement(String.format(nextValCPClassIdSequenceQuery, schema));
-        nextValNodeIdSequenceStatement = connection.prepareStatement(String.format(nextValNodeIdSequenceQuery, schema));
-        nextValNamespaceIdSequenceStatement = connection.prepareStatement(String.format(nextValNamespaceIdSequenceQuery, schema));
+        lcpClassIdAllocator = new IdBlockAllocator(connection, schema, "lcp_class_id_seq", CLASS_ID_BLOCK_SIZE);
+        cpClassIdAllocator = new IdBlockAllocator(connection, schema, "cp_class_id_seq", CLASS_ID_BLOCK_SIZE);
+        nodeIdAllocator = new IdBlockAllocator(connection, schema, "node_id_seq", batchSize);
+        namespaceIdAllocator = new IdBlockAllocator(connection, schema, "namespace_id_seq", CLASS_ID_BLOCK_SIZE);
         insertLCPClassTableStatement = connection.prepareStatement(String.format(insertLCPClassTableQuery, schema));
         insertCPClassTableStatement = connection.prepareStatement(String.format(insertCPClassTableQuery, schema));
         insertDocumentTableStatement = connection.prepareStatement(String.format(insertDocumentTableQuery, schema));
@@ -107,44 +99,82 @@ public class LoadDocumentToDbStatements {
         insertLCPTableStatement = connection.prepareStatement(String.format(insertLCPTableQuery, schema));
         insertNamespaceTableStatement = connection.prepareStatement(String.format(insertNamespaceTableQuery, schema));
         insertLcpNamespaceTableStatement = connection.prepareStatement(String.format(insertLcpNamespaceTableQuery, schema));
-        updateValidCPStatement = connection.prepareStatement(String.format(updateValidCPQuery, schema));
+        
+        if (useCopy && databaseEnum == DatabaseEnum.POSTGRE) {
+            pgCopyStatements = new PgCopyStatements(connection, schema);
+        }
         
         ResultSet documentIdRs = nextValDocumentIdSequenceStatement.executeQuery();
         documentIdRs.next();
         documentId = documentIdRs.getLong("document_id");
     }
     
-    public void closeAll() throws SQLException {
-        if (selectIdLCPClassStatement != null) {
-            selectIdLCPClassStatement.close();
-        }
+    /**
+     * Executes all pending batches. Batches are executed in order of 
+     * foreign keys, classes and namespaces first, then LCP, lcp_namespace 
+     * and CP rows.
+     */
+    void executeBatches() throws SQLException {
+        insertNamespaceTableStatement.executeBatch();
+        insertLCPClassTableStatement.executeBatch();
+        insertCPClassTableStatement.executeBatch();
         
-        if (selectIdCPClassStatement != null) {
-            selectIdCPClassStatement.close();
+        if (pgCopyStatements != null) {
+            pgCopyStatements.execute();
+        } else {
+            insertLCPTableStatement.executeBatch();
+            insertLcpNamespaceTableStatement.executeBatch();
+            insertCPTableStatement.executeBatch();
         }
-        
-        if (selectPkCPStatement != null) {
-            selectPkCPStatement.close();
+    }
+    
+    /**
+     * Appends node to valid array of its CP class, arrays are stored 
+     * at the end of the load.
+     */
+    void addValidId(Long cpClassId, Long nodeId) {
+        List<Long> valid = validIds.get(cpClassId);
+        if (valid == null) {
+            valid = new ArrayList<>();
+            validIds.put(cpClassId, valid);
         }
-        
-        if (selectIdNamespaceStatement != null) {
-            selectIdNamespaceStatement.close();
+        valid.add(nodeId);
+    }
+    
+    Map<Long, List<Long>> getValidIds() {
+        return validIds;
+    }
+    
+    /**
+     * Returns COPY statements, or null when rows are inserted by batches.
+     */
+    public PgCopyStatements getPgCopyStatements() {
+        return pgCopyStatements;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void closeAll() throws SQLException {
+        if (nextValDocumentIdSequenceStatement != null) {
+            nextValDocumentIdSequenceStatement.close();
         }
         
-        if (nextValLCPClassIdSequenceStatement != null) {
-            nextValLCPClassIdSequenceStatement.close();
+        if (lcpClassIdAllocator != null) {
+            lcpClassIdAllocator.close();
         }
         
-        if (nextValCPClassIdSequenceStatement != null) {
-            nextValCPClassIdSequenceStatement.close();
+        if (cpClassIdAllocator != null) {
+            cpClassIdAllocator.close();
         }
         
-        if (nextValNodeIdSequenceStatement != null) {
-            nextValNodeIdSequenceStatement.close();
+        if (nodeIdAllocator != null) {
+            nodeIdAllocator.close();
         }
         
-        if (nextValNamespaceIdSequenceStatement != null) {
-            nextValNamespaceIdSequenceStatement.close();
+        if (namespaceIdAllocator != null) {
+            namespaceIdAllocator.close();
         }
         
         if (insertLCPClassTableStatement != null) {
@@ -175,36 +205,12 @@ public class LoadDocumentToDbStatements {
             insertLcpNamespaceTableStatement.close();
         }
         
-        if (updateValidCPStatement != null) {
-            updateValidCPStatement.close();
-        }
-        
-        if (selectRootIdLCPClassStatement != null) {
-            selectRootIdLCPClassStatement.close();
-        }
-        
     }    
     
     public PreparedStatement getNextValDocumentIdSequenceStatement() {
         return nextValDocumentIdSequenceStatement;
     }
 
-    public PreparedStatement getSelectIdLCPClassStatement() {
-        return selectIdLCPClassStatement;
-    }
-
-    public PreparedStatement getSelectIdCPClassStatement() {
-        return selectIdCPClassStatement;
-    }
-
-    public PreparedStatement getNextValLCPClassIdSequenceStatement() {
-        return nextValLCPClassIdSequenceStatement;
-    }
-
-    public PreparedStatement getNextValCPClassIdSequenceStatement() {
-        return nextValCPClassIdSequenceStatement;
-    }
-
     public PreparedStatement getInsertLCPClassTableStatement() {
         return insertLCPClassTableStatement;
     }
@@ -217,14 +223,6 @@ public class LoadDocumentToDbStatements {
         return insertDocumentTableStatement;
     }
 
-    public PreparedStatement getNextValNodeIdSequenceStatement() {
-        return nextValNodeIdSequenceStatement;
-    }
-
-    public PreparedStatement getSelectPkCPStatement() {
-        return selectPkCPStatement;
-    }
-
     public PreparedStatement getInsertCPTableStatement() {
         return insertCPTableStatement;
     }
@@ -233,28 +231,28 @@ public class LoadDocumentToDbStatements {
         return insertLCPTableStatement;
     }
 
-    public PreparedStatement getUpdateValidCPStatement() {
-        return updateValidCPStatement;
+    public PreparedStatement getInsertNamespaceTableStatement() {
+        return insertNamespaceTableStatement;
     }
 
-    public PreparedStatement getSelectRootIdLCPClassStatement() {
-        return selectRootIdLCPClassStatement;
+    public PreparedStatement getInsertLcpNamespaceTableStatement() {
+        return insertLcpNamespaceTableStatement;
     }
 
-    public PreparedStatement getNextValNamespaceIdSequenceStatement() {
-        return nextValNamespaceIdSequenceStatement;
+    public IdBlockAllocator getLcpClassIdAllocator() {
+        return lcpClassIdAllocator;
     }
 
-    public PreparedStatement getSelectIdNamespaceStatement() {
-        return selectIdNamespaceStatement;
+    public IdBlockAllocator getCpClassIdAllocator() {
+        return cpClassIdAllocator;
     }
 
-    public PreparedStatement getInsertNamespaceTableStatement() {
-        return insertNamespaceTableStatement;
+    public IdBlockAllocator getNodeIdAllocator() {
+        return nodeIdAllocator;
     }
 
-    public PreparedStatement getInsertLcpNamespaceTableStatement() {
-        return insertLcpNamespaceTableStatement;
+    public IdBlockAllocator getNamespaceIdAllocator() {
+        return namespaceIdAllocator;
     }
 
     public long getDocumentId() {
@@ -0,0 +1,112 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Collects LCP, lcp_namespace and CP rows of a document load as CSV and 
+ * sends them to PostgreSQL by COPY ... FROM STDIN.
+ */
+public class PgCopyStatements {
+    private final String copyLCPTableQuery = "COPY %s.LCP (id, \"from\", \"to\", parentId, parentFrom, parentTo, value, LCP_Class, path) FROM STDIN WITH CSV";
+    private final String copyLcpNamespaceTableQuery = "COPY %s.lcp_namespace (node_id, node_from, node_to, namespace_id) FROM STDIN WITH CSV";
+    private final String copyCPTableQuery = "COPY %s.CP (\"from\", \"to\", valid, CP_Class) FROM STDIN WITH CSV";
+    
+    private final CopyManager copyManager;
+    private final String schema;
+    private final StringBuilder lcpRows = new StringBuilder();
+    private final StringBuilder lcpNamespaceRows = new StringBuilder();
+    private final StringBuilder cpRows = new StringBuilder();
+
+    public PgCopyStatements(Connection connection, String schema) throws SQLException {
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.schema = schema;
+    }
+    
+    public void addLCPRow(Long id, Long from, Long to, Long parentId, Long parentFrom, Long parentTo, String value, Long lcpClass, String path) {
+        lcpRows.append(id).append(',')
+               .append(from).append(',')
+               .append(to).append(',');
+        appendNullable(lcpRows, parentId).append(',');
+        appendNullable(lcpRows, parentFrom).append(',');
+        appendNullable(lcpRows, parentTo).append(',');
+        appendText(lcpRows, value).append(',')
+               .append(lcpClass).append(',')
+               .append(path).append('\n');
+    }
+    
+    public void addLcpNamespaceRow(Long nodeId, Long nodeFrom, Long nodeTo, Long namespaceId) {
+        lcpNamespaceRows.append(nodeId).append(',')
+                        .append(nodeFrom).append(',')
+                        .append(nodeTo).append(',')
+                        .append(namespaceId).append('\n');
+    }
+    
+    public void addCPRow(Long from, Long to, Object[] valid, Long cpClass) {
+        cpRows.append(from).append(',')
+              .append(to).append(",\"{");
+        for (int i = 0; i < valid.length; i++) {
+            if (i != 0) {
+                cpRows.append(',');
+            }
+            cpRows.append(valid[i]);
+        }
+        cpRows.append("}\",").append(cpClass).append('\n');
+    }
+    
+    /**
+     * Sends collected rows to database. LCP rows are sent first because 
+     * lcp_namespace rows reference them.
+     */
+    public void execute() throws SQLException {
+        copy(copyLCPTableQuery, lcpRows);
+        copy(copyLcpNamespaceTableQuery, lcpNamespaceRows);
+        copy(copyCPTableQuery, cpRows);
+    }
+    
+    private void copy(String query, StringBuilder rows) throws SQLException {
+        if (rows.length() == 0) {
+            return;
+        }
+        
+        try {
+            copyManager.copyIn(String.format(query, schema), new StringReader(rows.toString()));
+        } catch (IOException ex) {
+            throw new SQLException(ex);
+        }
+        rows.setLength(0);
+    }
+    
+    private StringBuilder appendNullable(StringBuilder rows, Long value) {
+        if (value != null) {
+            rows.append(value);
+        }
+        return rows;
+    }
+    
+    private StringBuilder appendText(StringBuilder rows, String value) {
+        if (value != null) {
+            rows.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        return rows;
+    }
+}
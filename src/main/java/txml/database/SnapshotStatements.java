@@ -39,24 +39,30 @@ public class SnapshotStatements {
         + "FROM %s.namespace as namespace, %s.lcp_namespace as lcp_namespace where document_id = ? and namespace.id = lcp_namespace.namespace_id";
     
     
+    private final StatementCache statementCache;
+    
+    public SnapshotStatements(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+    
     public PreparedStatement getDocumentHeaderStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(documentHeaderQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getCpFromInstanceAndDepthStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(cpFromInstanceAndDepthQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getLcpFromInstanceAndDepthStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(lcpFromInstanceAndDepthQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getNamespacesFromDocumentStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(namespacesFromDocumentQuery, schema, schema, schema);
-        PreparedStatement statement = connection.prepareStatement(query);
+        PreparedStatement statement = statementCache.prepare(connection, query);
         return statement;
     }
     
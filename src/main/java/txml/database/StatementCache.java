@@ -0,0 +1,192 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps prepared statements of connections for reuse. Statement returned 
+ * by <code>prepare</code> goes back to the cache when it is closed, so 
+ * callers use it the same way as a statement of the connection. Statement 
+ * which is still open is never handed out twice, nested use of one query 
+ * gets a new statement. Every connection keeps at most <code>size</code> 
+ * idle statements, the least recently used one is closed first.
+ */
+public class StatementCache {
+    public static final int DEFAULT_SIZE = 64;
+    
+    private final Map<Connection, Map<String, PreparedStatement>> connections = new IdentityHashMap<>();
+    private int size = DEFAULT_SIZE;
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets maximal number of idle statements of one connection, zero 
+     * disables the cache. Statements cached so far are closed.
+     */
+    public void setSize(int size) throws SQLException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative.");
+        }
+        
+        List<PreparedStatement> statements;
+        synchronized (this) {
+            this.size = size;
+            statements = new ArrayList<>();
+            for (Map<String, PreparedStatement> cached : connections.values()) {
+                statements.addAll(cached.values());
+            }
+            connections.clear();
+        }
+        closeAll(statements);
+    }
+    
+    public PreparedStatement prepare(Connection connection, String query) throws SQLException {
+        PreparedStatement statement;
+        synchronized (this) {
+            if (size == 0) {
+                return connection.prepareStatement(query);
+            }
+            statement = getStatements(connection).remove(query);
+        }
+        
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(query);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, new CachedStatement(connection, query, statement));
+    }
+    
+    /**
+     * Closes statements cached for <code>connection</code>. It should be 
+     * called before the connection is closed or given back to a pool.
+     */
+    public void close(Connection connection) throws SQLException {
+        Map<String, PreparedStatement> statements;
+        synchronized (this) {
+            statements = connections.remove(connection);
+        }
+        if (statements != null) {
+            closeAll(new ArrayList<>(statements.values()));
+        }
+    }
+    
+    private Map<String, PreparedStatement> getStatements(Connection connection) throws SQLException {
+        Map<String, PreparedStatement> statements = connections.get(connection);
+        if (statements == null) {
+            //statements of connections closed without close of cache are dropped
+            for (Iterator<Connection> it = connections.keySet().iterator(); it.hasNext();) {
+                if (it.next().isClosed()) {
+                    it.remove();
+                }
+            }
+            
+            statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > StatementCache.this.size) {
+                        try {
+                            eldest.getValue().close();
+                        } catch (SQLException ex) {
+                            //statement is dropped anyway
+                        }
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            connections.put(connection, statements);
+        }
+        return statements;
+    }
+    
+    private void release(Connection connection, String query, PreparedStatement statement) throws SQLException {
+        if (!statement.isClosed() && !connection.isClosed()) {
+            statement.clearParameters();
+            synchronized (this) {
+                if (size > 0) {
+                    Map<String, PreparedStatement> statements = getStatements(connection);
+                    if (!statements.containsKey(query)) {
+                        statements.put(query, statement);
+                        return;
+                    }
+                }
+            }
+        }
+        statement.close();
+    }
+    
+    private void closeAll(List<PreparedStatement> statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.close();
+        }
+    }
+    
+    private class CachedStatement implements InvocationHandler {
+        private final Connection connection;
+        private final String query;
+        private final PreparedStatement statement;
+        private boolean closed = false;
+
+        CachedStatement(Connection connection, String query, PreparedStatement statement) {
+            this.connection = connection;
+            this.query = query;
+            this.statement = statement;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(connection, query, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return statement.toString();
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed.");
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+            }
+        }
+    }
+}
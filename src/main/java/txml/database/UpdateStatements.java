@@ -64,15 +64,6 @@ public class UpdateStatements {
             "  end\n" +
             "where ((id = ? and \"from\" = ? and \"to\" = ?) or (parentId = ? and parentFrom = ? and parentTo = ?))";
     
-    private final String parentLcpUpdateWithFromQuery = 
-            "update %s.LCP as lcp \n" +
-            "SET\n" +
-            "  parentId = ?, " +
-            "  parentFrom = ?, " +
-            "  parentTo = ?, " +
-            "  lcp_class = ? " +
-            "where id = ? and \"from\" = ? and \"to\" = ?";
-
     private final String lcpDeleteQuery = 
             "delete from %s.LCP where id = ? and \"to\" = ?" ;
     
@@ -84,12 +75,15 @@ public class UpdateStatements {
     
     private final String insertLCPClassTableQuery = "INSERT INTO %s.LCP_Class (id, type, local_part, namespace_id, depth, parent, document) VALUES (?,?,?,?,?,?,?)";
     private final String insertCPClassTableQuery = "INSERT INTO %s.CP_Class (id, depth, parent, document) VALUES (?,?,?,?)";
-    private final String insertLCPTableQuery = "INSERT INTO %s.LCP (id, \"from\", \"to\", parentId, parentFrom, parentTo, value, LCP_Class) VALUES (?,?,?,?,?,?,?,?)"; 
+    private final String insertNamespaceTableQuery = "INSERT INTO %s.namespace (id, uri, prefix, document_id) VALUES (?,?,?,?)";
+    private final String insertLCPTableQuery = 
+            "INSERT INTO %s.LCP (id, \"from\", \"to\", parentId, parentFrom, parentTo, value, LCP_Class, path) VALUES (?,?,?,?,?,?,?,?,"
+            + "(SELECT parent.path || ? FROM %s.LCP as parent where parent.id = ? and parent.\"from\" = ? and parent.\"to\" = ?))"; 
     
     private final String selectCPClassWithoutIdQuery = "Select * from %s.CP_CLASS as cp_class where cp_class.depth = ? and cp_class.document = ?";
         
     private final String nodesOfParentsQuery = 
-            "SELECT * FROM %s.LCP as lcp where lcp.parentId in %s and lcp.parentTo = ? and lcp.\"to\" = ?";
+            "SELECT * FROM %s.LCP as lcp where lcp.parentId %s and lcp.parentTo = ? and lcp.\"to\" = ?";
     
     private final String nodesOfParentQuery = 
             "SELECT * FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.lcp_class = lcp_class.id and lcp.parentId = ? and lcp.parentTo = ? and lcp.\"to\" = ? and lcp_class.type in %s";
@@ -98,44 +92,68 @@ public class UpdateStatements {
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id  "
             + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where lcp_class.namespace_id = namespace.id and lcp.id = ? and lcp.LCP_CLASS = lcp_class.ID order by lcp.\"to\" desc limit 1";
 
+    private final StatementCache statementCache;
+    
+    public UpdateStatements(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+    
     public PreparedStatement getLastNodeStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(lastNodeQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
-    public PreparedStatement getNodesOfParentsStatement(Connection connection, String schema, String parents) throws SQLException {
-        String query = String.format(nodesOfParentsQuery, schema, parents);
-        return connection.prepareStatement(query);
+    public PreparedStatement getNodesOfParentsStatement(Connection connection, String schema, int parentsCount) throws SQLException {
+        String query = String.format(nodesOfParentsQuery, schema, XPathStatements.getIdsCondition(connection, parentsCount));
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getNodesOfParentStatement(Connection connection, String schema, String types) throws SQLException {
         String query = String.format(nodesOfParentQuery, schema, schema, types);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getCpFromCPClassAndToStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(cpFromCPClassAndToQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
 
     public PreparedStatement getCpClassWithoutIdStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(selectCPClassWithoutIdQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
 
     public PreparedStatement getSelectDocumentStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(selectDocumentQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getInsertLCPClassTableStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(insertLCPClassTableQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getInsertCPClassTableStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(insertCPClassTableQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
+    }
+    
+    public PreparedStatement getInsertNamespaceTableStatement(Connection connection, String schema) throws SQLException {
+        String query = String.format(insertNamespaceTableQuery, schema);
+        return statementCache.prepare(connection, query);
+    }
+    
+    public PreparedStatement getNextValNamespaceIdSequenceStatement(Connection connection, String schema) throws SQLException {
+        String nextValNamespaceIdSequenceQuery;
+        
+        if (DatabaseEnum.getDatabase(connection) == DatabaseEnum.POSTGRE) {
+            nextValNamespaceIdSequenceQuery = "SELECT nextval('%s.namespace_id_seq') as namespace_id";
+        } else {
+            nextValNamespaceIdSequenceQuery = "SELECT %s.namespace_id_seq.NEXTVAL as namespace_id FROM dual";
+        }
+        
+        String query = String.format(nextValNamespaceIdSequenceQuery, schema);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getNextValNodeIdSequenceStatement(Connection connection, String schema) throws SQLException {
@@ -148,7 +166,7 @@ public class UpdateStatements {
         
         String query = String.format(nextValNodeIdSequenceQuery, schema);
         
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getNextValCPClassIdSequenceStatement(Connection connection, String schema) throws SQLException { 
@@ -161,7 +179,7 @@ public class UpdateStatements {
         }
                 
         String query = String.format(nextValCPClassIdSequenceQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getNextValLCPClassIdSequenceStatement(Connection connection, String schema) throws SQLException {
@@ -174,57 +192,52 @@ public class UpdateStatements {
         }
         
         String query = String.format(nextValLCPClassIdSequenceQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getLcpClassWithoutIdStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(selectLCPClassWithoutIdQuery, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
 
     public PreparedStatement getCpFromIntervalAndDepthStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(cpFromIntervalAndDepthQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getSplitCpIntervalUpdateStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(splitCpIntervalUpdateQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getInsertCPTableStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(insertCPTableQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getInsertLCPTableStatement(Connection connection, String schema) throws SQLException {
-        String query = String.format(insertLCPTableQuery, schema);
-        return connection.prepareStatement(query);
+        String query = String.format(insertLCPTableQuery, schema, schema);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getValidUpdateStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(validUpdateQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getToLcpUpdateStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(toLcpUpdateQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getToLcpUpdateWithFromStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(toLcpUpdateWithFromQuery, schema);
-        return connection.prepareStatement(query);
-    }
-    
-    public PreparedStatement getParentLcpUpdateWithFromStatement(Connection connection, String schema) throws SQLException {
-        String query = String.format(parentLcpUpdateWithFromQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getLcpDeleteStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(lcpDeleteQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
 }
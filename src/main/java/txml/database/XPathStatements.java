@@ -37,27 +37,47 @@ public class XPathStatements {
     
     private final String childrenByTypeAndLabelQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ? and lcp_class.local_part = ? and lcp_class.namespace_id = ? order by lcp.parentId asc, lcp.parentFrom asc";
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ? and lcp_class.local_part = ? and lcp_class.namespace_id = ? and lcp_class.document = ? and lcp.parentId between ? and ?%s order by lcp.parentId asc, lcp.parentFrom asc";
     
     private final String childrenByTypeQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ? order by lcp.parentId asc, lcp.parentFrom asc";
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ? and lcp_class.document = ? and lcp.parentId between ? and ?%s order by lcp.parentId asc, lcp.parentFrom asc";
     
     private final String childrenOfOneTypeQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parent as parent, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix and namespace.uri as uri and namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.parent in %s and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ?";
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.parent %s and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ?";
     
     private final String childrenQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
             + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.parentId = ? and lcp.parentFrom = ? and lcp.parentTo = ? and lcp.LCP_CLASS = lcp_class.ID";
     
+    private final String childrenOfParentsQuery = 
+            "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.parentId %s and lcp.LCP_CLASS = lcp_class.ID";
+    
+    private final String versionRangeCondition = " and lcp.\"from\" between ? and ? and lcp.\"to\" between ? and ?";
+    
+    private final String numberPattern = "^-?[0-9]+(\\.[0-9]+)?$";
+    
+    //paths of descendants extend path of context by digits, which sort before ':'
+    private final String descendantsQuery = 
+            "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id, context.id as context_id, context.\"from\" as context_from "
+            + "FROM %s.LCP as context, %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and context.id %s "
+            + "and lcp.path > context.path and lcp.path < context.path || ':' and context.\"from\" <= lcp.\"from\" and lcp.\"to\" <= context.\"to\" and lcp_class.document = ? and %s "
+            + "order by lcp_class.depth asc, lcp.parentId asc, lcp.parentFrom asc, lcp.id asc, lcp.\"from\" asc";
+    
+    private final String directPathQuery = 
+            "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id, context.id as context_id, context.\"from\" as context_from "
+            + "FROM %s.LCP as context, %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace%s where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and context.id %s%s "
+            + "order by lcp.parentId asc, lcp.parentFrom asc, lcp.id asc, lcp.\"from\" asc";
+    
     private final String childrenByDepthQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and lcp_class.depth <= ? order by lcp.parentId asc, lcp.parentFrom asc";
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.LCP_CLASS = lcp_class.ID and lcp_class.depth <= ? and lcp_class.document = ? and lcp.parentId between ? and ? order by lcp.parentId asc, lcp.parentFrom asc";
     
     private final String valuesQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parent as parent, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix and namespace.uri as uri and namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.parent in %s and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ?";
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.parent %s and lcp.LCP_CLASS = lcp_class.ID and lcp_class.type = ?";
     
     private final String depthMaxQuery = 
             "SELECT max(lcp_class.depth) as max_depth "
@@ -65,104 +85,232 @@ public class XPathStatements {
     
     private final String valuesOfDescendantsQuery =
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parent as parent, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.parent in %s and lcp.LCP_CLASS = lcp_class.ID";
+            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class where lcp.parent %s and lcp.LCP_CLASS = lcp_class.ID";
     
-    private final String validsFromIntervalAndDepthQuery =
-            "SELECT cp.valid, cp.\"from\", cp.\"to\" \n" +
+    private final String levelsInIntervalQuery =
+            "SELECT cp.valid, cp.\"from\", cp.\"to\", cp_class.depth \n" +
             "FROM %s.CP as cp, %s.CP_CLASS as cp_class, %s.document as document\n" +
-            " where cp.cp_class = cp_class.id and cp.\"from\" >= ? and cp.\"to\" <= ? and cp_class.depth = ? and document.id = cp_class.document and document.name = ?";
-    
-    private final String parentInIntervalQuery = 
-            "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id "
-            + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where namespace.id = lcp_class.namespace_id and lcp.id = ? and lcp.LCP_CLASS = lcp_class.ID and lcp.\"from\" <= ? and ? <= lcp.\"to\" and lcp_class.depth = ?";
+            " where cp.cp_class = cp_class.id and cp.\"from\" <= ? and ? <= cp.\"to\" and cp_class.depth between ? and ? and document.id = cp_class.document and document.name = ? order by cp_class.depth, cp.\"from\"";
     
     private final String parentQuery = 
             "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.parentId as parentId, lcp.parentFrom as parentFrom, lcp.parentTo as parentTo, lcp.value as value, lcp_class.depth as depth, lcp.lcp_class as lcp_class, lcp_class.type as type, lcp_class.local_part as local_part, namespace.prefix as prefix, namespace.uri as uri, namespace.id as namespace_id  "
             + "FROM %s.LCP as lcp, %s.LCP_CLASS as lcp_class, %s.namespace as namespace where lcp_class.namespace_id = namespace.id and lcp.id = ? and lcp.\"from\" = ? and lcp.\"to\" = ? and lcp.LCP_CLASS = lcp_class.ID";
     
+    private final String nodePathQuery = "SELECT lcp.path as path FROM %s.LCP as lcp where lcp.id = ? and lcp.\"from\" = ? and lcp.\"to\" = ?";
+    
+    private final String nodePathsQuery = "SELECT lcp.id as id, lcp.\"from\" as \"from\", lcp.\"to\" as to, lcp.path as path FROM %s.LCP as lcp where lcp.id %s";
+    
     private final String namespaceFromPrefixQuery = "SELECT id, uri from %s.namespace where prefix=? and document_id=?";
     
     private final String idNamespaceQuery = "SELECT id from %s.namespace where prefix=? and uri=? and document_id=?";
     
+    private static final int[] idsListLengths = {8, 32, 128, 500};
+    
+    private final StatementCache statementCache;
+    
+    public XPathStatements(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+    
     public PreparedStatement getIdNamespaceStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(idNamespaceQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getNamespaceFromPrefixStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(namespaceFromPrefixQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
+    }
+    
+    public PreparedStatement getNodePathStatement(Connection connection, String schema) throws SQLException {
+        String query = String.format(nodePathQuery, schema);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getParentStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(parentQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
-    public PreparedStatement getParentInIntervalStatement(Connection connection, String schema) throws SQLException {
-        String query = String.format(parentInIntervalQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+    public PreparedStatement getLevelsInIntervalStatement(Connection connection, String schema) throws SQLException {
+        String query = String.format(levelsInIntervalQuery, schema, schema, schema);
+        return statementCache.prepare(connection, query);
     }
     
-    public PreparedStatement getValidsFromIntervalAndDepthStatement(Connection connection, String schema) throws SQLException {
-        String query = String.format(validsFromIntervalAndDepthQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+    public PreparedStatement getNodePathsStatement(Connection connection, String schema, int idsCount) throws SQLException {
+        String query = String.format(nodePathsQuery, schema, getIdsCondition(connection, idsCount));
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getDepthMaxStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(depthMaxQuery, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
-    public PreparedStatement getValuesOfDescendantsStatement(Connection connection, String schema, String idArray) throws SQLException {
-        String query = String.format(valuesOfDescendantsQuery, schema, schema, idArray);
-        return connection.prepareStatement(query);
+    public PreparedStatement getValuesOfDescendantsStatement(Connection connection, String schema, int idsCount) throws SQLException {
+        String query = String.format(valuesOfDescendantsQuery, schema, schema, getIdsCondition(connection, idsCount));
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getChildrenByTypeAndLabelStatement(Connection connection, String schema) throws SQLException {
-        String query = String.format(childrenByTypeAndLabelQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return getChildrenByTypeAndLabelStatement(connection, schema, false);
+    }
+    
+    /**
+     * Returns statement of children by type and label, bounds of "from" 
+     * and "to" are four more parameters if <code>versionRange</code> is set.
+     */
+    public PreparedStatement getChildrenByTypeAndLabelStatement(Connection connection, String schema, boolean versionRange) throws SQLException {
+        String query = String.format(childrenByTypeAndLabelQuery, schema, schema, schema, versionRange ? versionRangeCondition : "");
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getChildrenByDepthStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(childrenByDepthQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getChildrenStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(childrenQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
+    }
+    
+    /**
+     * Returns statement of children of parents with <code>parentsCount</code> 
+     * ids, ids are bound as one array on PostgreSQL and as IN list on H2.
+     */
+    public PreparedStatement getChildrenOfParentsStatement(Connection connection, String schema, int parentsCount) throws SQLException {
+        String query = String.format(childrenOfParentsQuery, schema, schema, schema, getIdsCondition(connection, parentsCount));
+        return statementCache.prepare(connection, query);
+    }
+    
+    /**
+     * Returns statement of descendants of context nodes found by ancestor 
+     * paths. Context ids are bound first, then document and parameters 
+     * of <code>classCondition</code>.
+     */
+    public PreparedStatement getDescendantsStatement(Connection connection, String schema, int contextsCount, String classCondition) throws SQLException {
+        String query = String.format(descendantsQuery, schema, schema, schema, schema, getIdsCondition(connection, contextsCount), classCondition);
+        return statementCache.prepare(connection, query);
+    }
+    
+    /**
+     * Returns statement of nodes on path of child steps below context nodes.
+     * Node of each step is joined to version of node of previous step by 
+     * its parent id and parent "from", so the path is matched by one query 
+     * as by consecutive child steps. Context ids are bound first, then type 
+     * of each step and its local part and namespace id if 
+     * <code>labeledSteps</code> says the step has a label.
+     */
+    public PreparedStatement getDirectPathStatement(Connection connection, String schema, int contextsCount, boolean[] labeledSteps) throws SQLException {
+        StringBuilder stepTables = new StringBuilder();
+        StringBuilder stepConditions = new StringBuilder();
+        String previousStep = "context";
+        for (int i = 0; i < labeledSteps.length; i++) {
+            String step = i == labeledSteps.length - 1 ? "lcp" : "step" + i;
+            String stepClass = i == labeledSteps.length - 1 ? "lcp_class" : "step_class" + i;
+            if (i < labeledSteps.length - 1) {
+                stepTables.append(", ").append(schema).append(".LCP as ").append(step)
+                          .append(", ").append(schema).append(".LCP_CLASS as ").append(stepClass);
+                stepConditions.append(" and ").append(step).append(".LCP_CLASS = ").append(stepClass).append(".ID");
+            }
+            
+            stepConditions.append(" and ").append(step).append(".parentId = ").append(previousStep).append(".id")
+                          .append(" and ").append(step).append(".parentFrom = ").append(previousStep).append(".\"from\"")
+                          .append(" and ").append(stepClass).append(".type = ?");
+            if (labeledSteps[i]) {
+                stepConditions.append(" and ").append(stepClass).append(".local_part = ? and ").append(stepClass).append(".namespace_id = ?");
+            }
+            previousStep = step;
+        }
+        
+        String query = String.format(directPathQuery, schema, schema, schema, schema, stepTables, getIdsCondition(connection, contextsCount), stepConditions);
+        return statementCache.prepare(connection, query);
+    }
+    
+    /**
+     * Returns condition of a list of <code>idsCount</code> ids. H2 gets 
+     * a list of parameters padded to one of a few lengths, so lists of 
+     * different lengths share statements of the statement cache.
+     */
+    static String getIdsCondition(Connection connection, int idsCount) throws SQLException {
+        if (DatabaseEnum.getDatabase(connection) == DatabaseEnum.POSTGRE) {
+            return "= ANY(?)";
+        }
+        
+        int paddedIdsCount = getPaddedIdsCount(idsCount);
+        StringBuilder placeholders = new StringBuilder("in (");
+        for (int i = 0; i < paddedIdsCount; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+        return placeholders.append(")").toString();
+    }
+    
+    /**
+     * Returns number of parameters of H2 list of <code>idsCount</code> ids.
+     */
+    static int getPaddedIdsCount(int idsCount) {
+        for (int idsListLength : idsListLengths) {
+            if (idsCount <= idsListLength) {
+                return idsListLength;
+            }
+        }
+        
+        int maxIdsListLength = idsListLengths[idsListLengths.length - 1];
+        return (idsCount + maxIdsListLength - 1) / maxIdsListLength * maxIdsListLength;
     }
     
     public PreparedStatement getChildrenByTypeStatement(Connection connection, String schema) throws SQLException {
-        String query = String.format(childrenByTypeQuery, schema, schema, schema);
-        return connection.prepareStatement(query);
+        return getChildrenByTypeStatement(connection, schema, null, false);
+    }
+    
+    /**
+     * Returns statement of children of one type. If <code>operator</code> 
+     * is given, value is compared with one more parameter, equality operators 
+     * compare strings, other operators compare numbers and skip values 
+     * which are not numbers. Bounds of "from" and "to" follow if 
+     * <code>versionRange</code> is set.
+     */
+    public PreparedStatement getChildrenByTypeStatement(Connection connection, String schema, String operator, boolean versionRange) throws SQLException {
+        String valueCondition;
+        if (operator == null) {
+            valueCondition = "";
+        } else if (operator.equals("=") || operator.equals("<>")) {
+            valueCondition = " and lcp.value " + operator + " ?";
+        } else if (DatabaseEnum.getDatabase(connection) == DatabaseEnum.POSTGRE) {
+            valueCondition = " and CASE WHEN lcp.value ~ '" + numberPattern + "' THEN CAST(lcp.value AS double precision) END " + operator + " ?";
+        } else {
+            valueCondition = " and CASE WHEN lcp.value REGEXP '" + numberPattern + "' THEN CAST(lcp.value AS double) END " + operator + " ?";
+        }
+        
+        String query = String.format(childrenByTypeQuery, schema, schema, schema, valueCondition + (versionRange ? versionRangeCondition : ""));
+        return statementCache.prepare(connection, query);
     }
     
-    public PreparedStatement getChildrenOfOneTypeStatement(Connection connection, String schema, String idArray) throws SQLException {
-        String query = String.format(childrenOfOneTypeQuery, schema, schema, idArray);
-        return connection.prepareStatement(query);
+    public PreparedStatement getChildrenOfOneTypeStatement(Connection connection, String schema, int idsCount) throws SQLException {
+        String query = String.format(childrenOfOneTypeQuery, schema, schema, getIdsCondition(connection, idsCount));
+        return statementCache.prepare(connection, query);
     }
     
-    public PreparedStatement getValuesStatement(Connection connection, String schema, String idArray) throws SQLException {
-        String query = String.format(valuesQuery, schema, schema, idArray);
-        return connection.prepareStatement(query);
+    public PreparedStatement getValuesStatement(Connection connection, String schema, int idsCount) throws SQLException {
+        String query = String.format(valuesQuery, schema, schema, getIdsCondition(connection, idsCount));
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getDocumentRootStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(documentRootQuery, schema, schema, schema, schema, schema, 
                 schema, schema, schema, schema, schema, schema, schema, schema, 
                 schema, schema, schema, schema, schema, schema, schema, schema, schema);   
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getChildNodesWithoutAttributesStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(childNodesWithoutAttributesQuery, schema, schema, schema);   
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
     
     public PreparedStatement getChildNodesOnlyAttributesStatement(Connection connection, String schema) throws SQLException {
         String query = String.format(childNodesOnlyAttributesQuery, schema, schema, schema);   
-        return connection.prepareStatement(query);
+        return statementCache.prepare(connection, query);
     }
 }
@@ -0,0 +1,92 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database.model;
+
+import java.util.Objects;
+
+public class LcpClassKey {
+    private final short type;
+    private final String localPart;
+    private final int depth;
+    private final Long parent;
+    private final Long namespaceId;
+
+    public LcpClassKey(short type, String localPart, int depth, Long parent, Long namespaceId) {
+        this.type = type;
+        this.localPart = localPart;
+        this.depth = depth;
+        this.parent = parent;
+        this.namespaceId = namespaceId;
+    }
+
+    public short getType() {
+        return type;
+    }
+
+    public String getLocalPart() {
+        return localPart;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Long getParent() {
+        return parent;
+    }
+
+    public Long getNamespaceId() {
+        return namespaceId;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 41 * hash + this.type;
+        hash = 41 * hash + Objects.hashCode(this.localPart);
+        hash = 41 * hash + this.depth;
+        hash = 41 * hash + Objects.hashCode(this.parent);
+        hash = 41 * hash + Objects.hashCode(this.namespaceId);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final LcpClassKey other = (LcpClassKey) obj;
+        if (this.type != other.type) {
+            return false;
+        }
+        if (this.depth != other.depth) {
+            return false;
+        }
+        if (!Objects.equals(this.localPart, other.localPart)) {
+            return false;
+        }
+        if (!Objects.equals(this.parent, other.parent)) {
+            return false;
+        }
+        if (!Objects.equals(this.namespaceId, other.namespaceId)) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -13,39 +13,48 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package txml.xpath.sort.model;
+package txml.database.model;
 
-public class TreeKey {
-    long id;
+import java.util.Objects;
 
-    public TreeKey(long id) {
-        this.id = id;
+public class NamespaceKey {
+    private final String uri;
+    private final String prefix;
+
+    public NamespaceKey(String uri, String prefix) {
+        this.uri = uri;
+        this.prefix = prefix;
+    }
+
+    public String getUri() {
+        return uri;
     }
 
-    public long getId() {
-        return id;
+    public String getPrefix() {
+        return prefix;
     }
 
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 83 * hash + (int) (this.id ^ (this.id >>> 32));
+        int hash = 3;
+        hash = 59 * hash + Objects.hashCode(this.uri);
+        hash = 59 * hash + Objects.hashCode(this.prefix);
         return hash;
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
         if (obj == null) {
             return false;
         }
         if (getClass() != obj.getClass()) {
             return false;
         }
-        final TreeKey other = (TreeKey) obj;
-        if (this.id != other.id) {
+        final NamespaceKey other = (NamespaceKey) obj;
+        if (!Objects.equals(this.uri, other.uri)) {
+            return false;
+        }
+        if (!Objects.equals(this.prefix, other.prefix)) {
             return false;
         }
         return true;
@@ -0,0 +1,55 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.database.model;
+
+/**
+ * Bounds of "from" and "to" of node versions, all bounds are inclusive. 
+ * Interval operators of predicates are translated to these bounds, 
+ * so versions out of range are not read from database.
+ */
+public class VersionRange {
+    private final long fromMin;
+    private final long fromMax;
+    private final long toMin;
+    private final long toMax;
+
+    public VersionRange(long fromMin, long fromMax, long toMin, long toMax) {
+        this.fromMin = fromMin;
+        this.fromMax = fromMax;
+        this.toMin = toMin;
+        this.toMax = toMax;
+    }
+
+    public long getFromMin() {
+        return fromMin;
+    }
+
+    public long getFromMax() {
+        return fromMax;
+    }
+
+    public long getToMin() {
+        return toMin;
+    }
+
+    public long getToMax() {
+        return toMax;
+    }
+    
+    public boolean contains(long from, long to) {
+        return fromMin <= from && from <= fromMax && toMin <= to && to <= toMax;
+    }
+}
@@ -24,6 +24,7 @@ import txml.interpreter.command.CommandDeinitSchema;
 import txml.interpreter.command.CommandEraseTXmlNodes;
 import txml.interpreter.command.CommandGoBackToStartPaths;
 import txml.interpreter.command.CommandGetDirectStep;
+import txml.interpreter.command.CommandGetDirectPath;
 import txml.interpreter.command.CommandDeclareOptionSort;
 import txml.interpreter.command.CommandFilterPosition;
 import txml.interpreter.command.CommandFilterContains;
@@ -62,10 +63,12 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CancellationException;
+import java.util.Set;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
 import txml.database.DbApi;
@@ -74,6 +77,9 @@ import txml.interpreter.model.SymbolTable;
 import txml.TXmlException;
 import txml.TXmlResult;
 import txml.xpath.model.NodeGlobalSettings;
+import txml.xpath.model.ParallelExecution;
+import txml.xpath.model.TNodeCursor;
+import txml.xpath.model.TNodeList;
 
 public class InstructionsInterpreter {
     private final SymbolTable symbolTable;
@@ -89,6 +95,11 @@ public class InstructionsInterpreter {
     private final Map<String, Integer> labels;
     private String skipUntilLabel = null;
     private boolean sort;
+    private ParallelExecution parallelExecution;
+    //instructions which change data or connection seen by parallel execution
+    private static final Set<String> MODIFYING_INSTRUCTIONS = new HashSet<>(Arrays.asList(
+            "INIT_SCHEMA", "DEINIT_SCHEMA", "DECLARE_OPTION_CONNECTION", "STORE_DOCUMENT", 
+            "SET_PARENT_IN_DOCUMENT", "DELETE_IN_DOCUMENT", "INSERT_INTO_DOCUMENT"));
     
     public InstructionsInterpreter(Connection connection, DbApi sqlStatements, boolean sort) {
         this.sort = sort;
@@ -139,11 +150,61 @@ public class InstructionsInterpreter {
     
     public void add(Instruction instruction) {
         instructions.add(instruction);
-        try {
-            evalAll();
-        } catch ( XMLStreamException | SQLException | TXmlException | IOException | ParserConfigurationException ex) {
-            throw new CancellationException(ex.getLocalizedMessage());
+    }
+    
+    /**
+     * Returns added instructions rewritten by optimizer. The whole query 
+     * is known at this point, so the result can be executed repeatedly.
+     */
+    public List<Instruction> compile() {
+        return new PlanOptimizer().optimize(instructions);
+    }
+    
+    /**
+     * Executes compiled instructions <code>program</code> instead of added ones.
+     */
+    public void run(List<Instruction> program) throws SQLException, TXmlException, IOException, ParserConfigurationException, FileNotFoundException, XMLStreamException {
+        instructions.clear();
+        instructions.addAll(program);
+        ip = 0;
+        evalAll();
+    }
+    
+    /**
+     * Executes compiled XPath query <code>program</code> and returns cursor 
+     * of its result. If the last step is a descendant step or child steps 
+     * by element names, the step is not executed and its nodes are read by 
+     * the cursor with <code>fetchSize</code>. Otherwise the whole result is 
+     * read first. Nodes are not sorted.
+     */
+    public TNodeCursor runCursor(List<Instruction> program, int fetchSize) throws SQLException, TXmlException, IOException, ParserConfigurationException, FileNotFoundException, XMLStreamException {
+        int last = program.size() - 1;
+        if (last < 0 || !program.get(last).getName().equals("RETURN_LIST")) {
+            throw new TXmlException("Query doesn't return nodes.");
         }
+        
+        String variable = program.get(last).getOperand2();
+        Instruction step = last > 0 ? program.get(last - 1) : null;
+        if (step != null && variable.equals(step.getResult()) && variable.equals(step.getOperand3()) && step.getOperand1() == null) {
+            run(program.subList(0, last - 1));
+            TNodeList tNodeList = (TNodeList) symbolTable.getTable().get(variable).getAttribute();
+            TNodeCursor cursor = null;
+            if (step.getName().equals("GET_UNDIRECT_STEP")) {
+                cursor = tNodeList.getUndirectStepCursor(step.getOperand2(), fetchSize);
+            } else if (step.getName().equals("GET_DIRECT_PATH") || (step.getName().equals("GET_DIRECT_STEP") && PlanOptimizer.isElementStep(step))) {
+                cursor = tNodeList.getDirectPathCursor(step.getOperand2(), fetchSize);
+            }
+            
+            if (cursor != null) {
+                return cursor;
+            }
+            run(program.subList(last - 1, last));
+        } else {
+            run(program.subList(0, last));
+        }
+        
+        TNodeList tNodeList = (TNodeList) symbolTable.getTable().get(variable).getAttribute();
+        return new TNodeCursor(tNodeList.getSettings(), tNodeList.getItems());
     }
     
     private void evalAll() throws SQLException, TXmlException, IOException, ParserConfigurationException, FileNotFoundException, XMLStreamException {
@@ -198,6 +259,27 @@ public class InstructionsInterpreter {
         return sort;
     }
 
+    public ParallelExecution getParallelExecution() {
+        return parallelExecution;
+    }
+
+    public void setParallelExecution(ParallelExecution parallelExecution) {
+        this.parallelExecution = parallelExecution;
+    }
+    
+    /**
+     * Returns true if <code>program</code> only reads documents by 
+     * connection of the query, so its steps can be evaluated in parallel.
+     */
+    public static boolean isReadOnly(List<Instruction> program) {
+        for (Instruction instruction : program) {
+            if (MODIFYING_INSTRUCTIONS.contains(instruction.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void setSort(boolean sort) {
         this.sort = sort;
     }
@@ -213,6 +295,7 @@ public class InstructionsInterpreter {
         comMap.put("SET_EMPTY_TNODE_LIST", new CommandNewList());
         comMap.put("RETURN_LIST", new CommandReturnList());
         comMap.put("GET_DIRECT_STEP", new CommandGetDirectStep());
+        comMap.put("GET_DIRECT_PATH", new CommandGetDirectPath());
         comMap.put("GET_UNDIRECT_STEP", new CommandGetUndirectStep());
         comMap.put("SAVE_START_PATHS", new CommandSaveStartPaths());
         comMap.put("GO_BACK_TO_START_PATHS", new CommandGoBackToStartPaths());
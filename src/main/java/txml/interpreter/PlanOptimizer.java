@@ -0,0 +1,256 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.interpreter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import txml.interpreter.model.Instruction;
+
+/**
+ * Rewrites instructions of whole query before they are executed. Rules
+ * only change how nodes are read, nodes of the result are the same as
+ * without the rewrite.
+ */
+class PlanOptimizer {
+
+    private static class PredicateBlock {
+        private final List<Instruction> instructions;
+        private final int selectivity;
+        private final boolean positional;
+
+        PredicateBlock(List<Instruction> instructions) {
+            this.instructions = instructions;
+            this.selectivity = getSelectivity(instructions);
+            this.positional = isPositional(instructions);
+        }
+    }
+
+    List<Instruction> optimize(List<Instruction> instructions) {
+        List<Instruction> result = reorderPredicates(instructions);
+        result = fuseDirectSteps(result);
+        result = removeRedundantInstructions(result);
+        return result;
+    }
+
+    /**
+     * Orders adjacent predicates of one step from the most selective one.
+     * Positional predicates depend on preceding predicates, so predicates
+     * are not moved over them.
+     */
+    private List<Instruction> reorderPredicates(List<Instruction> instructions) {
+        List<Instruction> result = new ArrayList<>();
+        int i = 0;
+        while (i < instructions.size()) {
+            if (!instructions.get(i).getName().equals("SAVE_START_PATHS")) {
+                result.add(instructions.get(i));
+                i++;
+                continue;
+            }
+
+            List<PredicateBlock> blocks = new ArrayList<>();
+            String variable = instructions.get(i).getResult();
+            while (i < instructions.size() && instructions.get(i).getName().equals("SAVE_START_PATHS") && variable.equals(instructions.get(i).getResult())) {
+                int end = getPredicateEnd(instructions, i);
+                if (end < 0) {
+                    break;
+                }
+
+                blocks.add(new PredicateBlock(reorderPredicates(instructions.subList(i + 1, end))));
+                i = end + 1;
+            }
+
+            if (blocks.isEmpty()) {
+                result.add(instructions.get(i));
+                i++;
+                continue;
+            }
+
+            int start = 0;
+            for (int j = 0; j <= blocks.size(); j++) {
+                if (j == blocks.size() || blocks.get(j).positional) {
+                    sortBySelectivity(blocks.subList(start, j));
+                    start = j + 1;
+                }
+            }
+
+            for (PredicateBlock block : blocks) {
+                result.add(new Instruction("SAVE_START_PATHS", null, null, null, variable));
+                result.addAll(block.instructions);
+                result.add(new Instruction("GO_BACK_TO_START_PATHS", null, null, null, variable));
+            }
+        }
+
+        return result;
+    }
+
+    private int getPredicateEnd(List<Instruction> instructions, int start) {
+        int depth = 0;
+        for (int i = start; i < instructions.size(); i++) {
+            if (instructions.get(i).getName().equals("SAVE_START_PATHS")) {
+                depth++;
+            } else if (instructions.get(i).getName().equals("GO_BACK_TO_START_PATHS")) {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void sortBySelectivity(List<PredicateBlock> blocks) {
+        Collections.sort(blocks, new Comparator<PredicateBlock>() {
+            @Override
+            public int compare(PredicateBlock o1, PredicateBlock o2) {
+                return Integer.compare(o1.selectivity, o2.selectivity);
+            }
+        });
+    }
+
+    /**
+     * Estimates how many nodes predicate keeps, lower numbers keep fewer
+     * nodes. Comparison of ids keeps at most one node of each version,
+     * equality keeps less than ranges and inequality keeps almost all nodes.
+     */
+    private static int getSelectivity(List<Instruction> instructions) {
+        Instruction filter = instructions.get(instructions.size() - 1);
+        switch (filter.getName()) {
+            case "FILTER_EQ":
+                for (Instruction instruction : instructions) {
+                    if (instruction.getName().equals("GET_DIRECT_STEP") && instruction.getOperand2().equals("txml:id")) {
+                        return 0;
+                    }
+                }
+                return 1;
+            case "FILTER_NEQ":
+                return 3;
+            default:
+                return 2;
+        }
+    }
+
+    private static boolean isPositional(List<Instruction> instructions) {
+        for (Instruction instruction : instructions) {
+            if (instruction.getName().equals("FILTER_POSITION")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces consecutive child steps by element names with one
+     * GET_DIRECT_PATH, which reads the last step for a set of context nodes
+     * by one query instead of one query per step.
+     */
+    private List<Instruction> fuseDirectSteps(List<Instruction> instructions) {
+        List<Instruction> result = new ArrayList<>();
+        int i = 0;
+        while (i < instructions.size()) {
+            Instruction instruction = instructions.get(i);
+            if (!isElementStep(instruction)) {
+                result.add(instruction);
+                i++;
+                continue;
+            }
+
+            StringBuilder path = new StringBuilder(instruction.getOperand2());
+            int j = i + 1;
+            while (j < instructions.size() && isElementStep(instructions.get(j)) && instructions.get(j).getOperand3().equals(instruction.getResult())) {
+                path.append('/').append(instructions.get(j).getOperand2());
+                j++;
+            }
+
+            if (j - i > 1) {
+                result.add(new Instruction("GET_DIRECT_PATH", null, path.toString(), instruction.getOperand3(), instructions.get(j - 1).getResult()));
+            } else {
+                result.add(instruction);
+            }
+            i = j;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true for child step by element name or any element name.
+     */
+    static boolean isElementStep(Instruction instruction) {
+        if (!instruction.getName().equals("GET_DIRECT_STEP") || instruction.getOperand1() != null || !instruction.getOperand3().equals(instruction.getResult())) {
+            return false;
+        }
+
+        String label = instruction.getOperand2();
+        return label.equals("*") || !(label.startsWith(".") || label.contains("txml:") || label.contains("@") || label.contains("::") || label.contains("("));
+    }
+
+    /**
+     * Removes duplicate removal of paths which consist of child steps only,
+     * optionally after one descendant step from the document, such paths 
+     * cannot select one node twice. Sorting of iterated list
+     * is removed if the list is the document root only.
+     */
+    private List<Instruction> removeRedundantInstructions(List<Instruction> instructions) {
+        List<Instruction> result = new ArrayList<>();
+        int pathStart = -1;
+        int pathSteps = 0;
+        boolean childSteps = true;
+        boolean rootOnly = false;
+        for (Instruction instruction : instructions) {
+            switch (instruction.getName()) {
+                case "SET_EMPTY_TNODE_LIST":
+                    pathStart = result.size();
+                    pathSteps = 0;
+                    childSteps = true;
+                    break;
+                case "GET_DIRECT_STEP":
+                case "GET_DIRECT_PATH":
+                    pathSteps += instruction.getOperand2().split("/").length;
+                    childSteps = childSteps && !instruction.getOperand2().equals("..");
+                    break;
+                case "GET_UNDIRECT_STEP":
+                    //descendants of the document root are distinct
+                    childSteps = childSteps && pathSteps == 0 && !instruction.getOperand2().equals("..") && !instruction.getOperand2().contains("txml:");
+                    pathSteps++;
+                    break;
+                case "REMOVE_DUPLICATES_IN_LIST":
+                    rootOnly = pathStart >= 0 && childSteps && pathSteps == 1 && isElementStep(result.get(pathStart + 1));
+                    if (pathStart >= 0 && childSteps) {
+                        pathStart = -1;
+                        continue;
+                    }
+                    pathStart = -1;
+                    break;
+                case "ERASE_TXML_NODES":
+                    break;
+                case "CHECK_SORT":
+                    if (rootOnly) {
+                        continue;
+                    }
+                    break;
+                default:
+                    childSteps = false;
+                    rootOnly = false;
+                    break;
+            }
+            result.add(instruction);
+        }
+
+        return result;
+    }
+}
@@ -41,9 +41,9 @@ public class CommandFilterOverlaps implements Command  {
         
         TNodeList tNodeListOld = (TNodeList) tableItem.getAttribute();
         List<TNode> newItems = new ArrayList<>();
+        Interval interval = Interval.getInstance(operand3, interpreter.getSqlStatements());
+        if (interval == null) throw new TXmlException("Interval " + operand3 + " isn't valid.");
         for (int i = 0; i < tNodeListOld.getLength(); i++) {
-            Interval interval = Interval.getInstance(operand3, interpreter.getSqlStatements());
-            if (interval == null) throw new TXmlException("Interval " + operand3 + " isn't valid.");
             if (!((tNodeListOld.item(i).getToAsLong() < interval.getFrom()) || (interval.getTo() < tNodeListOld.item(i).getFromAsLong()))) {
                 newItems.add(tNodeListOld.item(i));
             }
@@ -41,19 +41,17 @@ public class CommandFilterPosition implements Command {
             throw new TXmlException("Variable " + operand3 + " has bad type.");
         }
         
-        TNodeList tNodeListOld = ((TNodeList) tableItem.getAttribute()).sort();
+        TNodeList tNodeListOld = (TNodeList) tableItem.getAttribute();
         List<TNode> newItems = new ArrayList<>();
         
+        TNode tNode;
         if (operand2.equals("last()")) {
-            if (tNodeListOld.getLength() != 0) {
-                newItems.add(tNodeListOld.item(tNodeListOld.getLength() - 1));
-            }
+            tNode = tNodeListOld.getInDocumentOrder(1, true);
         } else {
-            int pos = (Integer.parseInt(operand2) - 1);
-            if (pos < tNodeListOld.getLength() && pos >= 0) {
-                newItems.add(tNodeListOld.item(pos));
-            }
-            
+            tNode = tNodeListOld.getInDocumentOrder(Integer.parseInt(operand2), false);
+        }
+        if (tNode != null) {
+            newItems.add(tNode);
         }
         
         TNodeList tNodeListNew = new TNodeList(interpreter.getLastSettings(), newItems);
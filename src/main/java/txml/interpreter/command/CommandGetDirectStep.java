@@ -24,6 +24,8 @@ import txml.interpreter.model.SymbolTableItem;
 import txml.interpreter.model.SymbolTableType;
 import txml.TXmlException;
 import txml.interpreter.InstructionsInterpreter;
+import txml.interpreter.command.model.Interval;
+import txml.database.model.VersionRange;
 import txml.xpath.model.TNodeList;
 
 public class CommandGetDirectStep implements Command {
@@ -41,8 +43,27 @@ public class CommandGetDirectStep implements Command {
         
         TNodeList tNodeListOld = (TNodeList) tableItem.getAttribute();
 
-        TNodeList tNodeListNew = tNodeListOld.getDirectStep(operand2);
+        TNodeList tNodeListNew = tNodeListOld.getDirectStep(operand2, getVersionRange(interpreter, operand1));
         interpreter.getSymbolTable().getTable().put(result, new SymbolTableItem(SymbolTableType.TNODE_LIST, tNodeListNew));
     }
     
+    /**
+     * Returns versions accepted by interval filter which follows the step, 
+     * <code>versionFilter</code> is filter name and interval separated by space.
+     * The filter still checks the step result, so invalid intervals are left 
+     * to it.
+     */
+    private VersionRange getVersionRange(InstructionsInterpreter interpreter, String versionFilter) {
+        if (versionFilter == null) {
+            return null;
+        }
+        
+        int separator = versionFilter.indexOf(' ');
+        Interval interval = Interval.getInstance(versionFilter.substring(separator + 1), interpreter.getSqlStatements());
+        if (interval == null) {
+            return null;
+        }
+        return interval.getVersionRange(versionFilter.substring(0, separator), interpreter.getSqlStatements().getTimePrecision());
+    }
+    
 }
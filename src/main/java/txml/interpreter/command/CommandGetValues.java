@@ -39,8 +39,38 @@ public class CommandGetValues implements Command {
         }
         
         TNodeList tNodeListOld = (TNodeList) tableItem.getAttribute();
-        TNodeList tNodeListNew = tNodeListOld.getValues();
+        TNodeList tNodeListNew = tNodeListOld.getValues(getValueOperator(operand1, operand3), operand3);
         interpreter.getSymbolTable().getTable().put(result, new SymbolTableItem(SymbolTableType.TNODE_LIST, tNodeListNew));
     }
     
+    /**
+     * Returns SQL operator of value filter which follows this command, or null
+     * if the filter cannot be evaluated by database. The filter is still 
+     * applied to the values, so the operator only has to keep all values 
+     * which the filter accepts.
+     */
+    private String getValueOperator(String filter, String literal) {
+        if (filter == null) {
+            return null;
+        }
+        
+        boolean numeric = literal.matches("-?\\d+(\\.\\d+)?");
+        switch (filter) {
+            case "FILTER_EQ":
+                return "=";
+            case "FILTER_NEQ":
+                return "<>";
+            case "FILTER_LESS":
+                return numeric ? "<" : null;
+            case "FILTER_MORE":
+                return numeric ? ">" : null;
+            case "FILTER_LE":
+                return numeric ? "<=" : null;
+            case "FILTER_GE":
+                return numeric ? ">=" : null;
+            default:
+                return null;
+        }
+    }
+    
 }
@@ -25,6 +25,7 @@ import txml.interpreter.InstructionsInterpreter;
 import txml.xpath.model.NodeGlobalSettings;
 import txml.xpath.model.TNode;
 import txml.xpath.model.TNodeList;
+import txml.xpath.model.TNodeStack;
 
 public class CommandGoBackToStartPaths implements Command {
     
@@ -43,8 +44,11 @@ public class CommandGoBackToStartPaths implements Command {
         TNodeList tNodeList = (TNodeList) tableItem.getAttribute();
         List<TNode> startTNodes = new ArrayList<>();
         for (int i = 0; i < tNodeList.getLength(); i++) {
-            startTNodes.add(tNodeList.item(i).getLocalSettings().getSavedNodes().pop());
-            startTNodes.get(i).getLocalSettings().setSavedNodes(tNodeList.item(i).getLocalSettings().getSavedNodes());
+            TNodeStack savedNodes = tNodeList.item(i).getLocalSettings().getSavedNodes();
+            TNode startTNode = savedNodes.peek();
+            tNodeList.item(i).getLocalSettings().setSavedNodes(savedNodes.pop());
+            startTNode.getLocalSettings().setSavedNodes(savedNodes.pop());
+            startTNodes.add(startTNode);
         }
         
         TNodeList tNodeListNew = new TNodeList(settings, startTNodes);
@@ -30,6 +30,7 @@ public class CommandNewList implements Command {
             throw new TXmlException("No database connection");
         }
         NodeGlobalSettings settings = new NodeGlobalSettings(interpreter.getConnection(), operand2, operand3, interpreter.getSqlStatements(), interpreter.isSort());
+        settings.setParallelExecution(interpreter.getParallelExecution());
         TNodeList tNodeList = new TNodeList(settings);
         interpreter.getSymbolTable().getTable().put(result, new SymbolTableItem(SymbolTableType.TNODE_LIST, tNodeList));
         interpreter.setLastSettings(settings);
@@ -20,6 +20,7 @@ import txml.interpreter.model.SymbolTableItem;
 import txml.interpreter.model.SymbolTableType;
 import txml.TXmlException;
 import txml.interpreter.InstructionsInterpreter;
+import txml.xpath.model.NodeLocalSettings;
 import txml.xpath.model.TNodeList;
 
 public class CommandSaveStartPaths implements Command {
@@ -37,7 +38,8 @@ public class CommandSaveStartPaths implements Command {
         
         TNodeList tNodeList = (TNodeList) tableItem.getAttribute();
         for (int i = 0; i < tNodeList.getLength(); i++) {
-            tNodeList.item(i).getLocalSettings().getSavedNodes().push(tNodeList.item(i));
+            NodeLocalSettings localSettings = tNodeList.item(i).getLocalSettings();
+            localSettings.setSavedNodes(localSettings.getSavedNodes().push(tNodeList.item(i)));
         }
 
     }
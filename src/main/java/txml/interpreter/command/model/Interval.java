@@ -16,6 +16,7 @@
 package txml.interpreter.command.model;
 
 import txml.database.DbApi;
+import txml.database.model.VersionRange;
 
 public class Interval {
     private final long from;
@@ -34,6 +35,35 @@ public class Interval {
         return to;
     }
 
+    /**
+     * Returns bounds of versions which are accepted by interval 
+     * <code>filter</code> with this interval, or null if the filter is not 
+     * an interval filter.
+     */
+    public VersionRange getVersionRange(String filter, long timePrecision) {
+        switch (filter) {
+            case "FILTER_OVERLAPS":
+                return new VersionRange(Long.MIN_VALUE, to, from, Long.MAX_VALUE);
+            case "FILTER_PRECEDES":
+                return new VersionRange(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, from);
+            case "FILTER_FOLLOWS":
+                return to == Long.MAX_VALUE ? new VersionRange(1, 0, 1, 0) : new VersionRange(to + 1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE);
+            case "FILTER_CONTAINS":
+                return new VersionRange(Long.MIN_VALUE, from, to, Long.MAX_VALUE);
+            case "FILTER_IN":
+                return new VersionRange(from, Long.MAX_VALUE, Long.MIN_VALUE, to);
+            case "FILTER_LMEETS":
+                return new VersionRange(Long.MIN_VALUE, Long.MAX_VALUE, (from / timePrecision - 1) * timePrecision, from / timePrecision * timePrecision - 1);
+            case "FILTER_RMEETS":
+                if (to / timePrecision + 2 > Long.MAX_VALUE / timePrecision) {
+                    return new VersionRange(1, 0, 1, 0);
+                }
+                return new VersionRange((to / timePrecision + 1) * timePrecision, (to / timePrecision + 2) * timePrecision - 1, Long.MIN_VALUE, Long.MAX_VALUE);
+            default:
+                return null;
+        }
+    }
+    
     static public Interval getInstance(String interval, DbApi dbApi) {
         if (interval.length() < 2 || !interval.contains(";")) return null;
         
@@ -21,6 +21,7 @@ public class Instruction {
     private String operand2 = null;
     private String operand3 = null;
     private String result = null;
+    private String parameter = null;
     
     public Instruction(String name, String operand1, String operand2, String operand3, String result) {
         this.name = name;
@@ -66,6 +67,32 @@ public class Instruction {
         this.result = result;
     }
     
+    public String getParameter() {
+        return parameter;
+    }
+
+    /**
+     * Sets name of query parameter, e.g. <code>$price</code>, which is 
+     * used in operands instead of a literal value.
+     */
+    public void setParameter(String parameter) {
+        this.parameter = parameter;
+    }
+    
+    /**
+     * Returns copy of this instruction with <code>value</code> instead 
+     * of the parameter. Value is the third operand, step with interval 
+     * filter has it at the end of the first operand too.
+     */
+    public Instruction bind(String value) {
+        String boundOperand1 = operand1;
+        if (name.equals("GET_DIRECT_STEP") && operand1 != null && operand1.endsWith(" " + parameter)) {
+            boundOperand1 = operand1.substring(0, operand1.length() - parameter.length()) + value;
+        }
+        String boundOperand3 = parameter.equals(operand3) ? value : operand3;
+        return new Instruction(name, boundOperand1, operand2, boundOperand3, result);
+    }
+    
     @Override 
     public String toString() {
         return "(" + name + ", " + this.operand1 + ", " + this.operand2 + ", " + this.operand3 + ", " + result + ")";
@@ -23,7 +23,9 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import javax.xml.namespace.QName;
@@ -38,6 +40,8 @@ import javax.xml.stream.events.XMLEvent;
 import txml.TXmlException;
 
 public class XmlDocumentReader {
+    private static final int HEADER_LIMIT = 64 * 1024;
+    private static final QName VALUE_NAME = new QName("value");
     
     public XmlDataModel loadDocumentToDb(String filename) throws FileNotFoundException, IOException, XMLStreamException {
         XmlDataModel result = null;
@@ -49,17 +53,60 @@ public class XmlDocumentReader {
     } 
         
     public XmlDataModel loadDocumentToDb(InputStream in) throws IOException, XMLStreamException {
+        final XmlDataModel dataModel = new XmlDataModel();
+        
+        try {
+            readDocument(in, new XmlNodeListener() {
+                private XmlNode aNode = null;
+
+                @Override
+                public void startDocument(String header) {
+                    dataModel.setHeader(header);
+                }
+
+                @Override
+                public void startNode(QName name, XmlNodeTypeEnum type, List<Namespace> namespaces, String value) {
+                    XmlNode node = new XmlNode(name, type, aNode, namespaces);
+                    node.setValue(value);
+                    if (aNode == null) {
+                        dataModel.setRoot(node);
+                    } else {
+                        aNode.getChildren().add(node);
+                    }
+                    aNode = node;
+                }
+
+                @Override
+                public void endNode() {
+                    aNode = aNode.getParent();
+                }
+
+                @Override
+                public void endDocument() {
+                }
+            });
+        } catch (SQLException ex) {
+            throw new TXmlException(ex.getLocalizedMessage());
+        }
+
+        return dataModel;
+    }
+    
+    /**
+     * Reads document from stream and passes its nodes to listener. Only 
+     * the current path of the document is held in memory.
+     */
+    public void readDocument(InputStream in, XmlNodeListener listener) throws IOException, XMLStreamException, SQLException {
         InputStream inb = new BufferedInputStream(in);
-        inb.mark(Integer.MAX_VALUE);
-        XmlDataModel dataModel = new XmlDataModel();
-        dataModel.setHeader(getHeader(inb));
+        inb.mark(HEADER_LIMIT);
+        listener.startDocument(getHeader(inb));
         inb.reset();
 
         final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
         final XMLEventReader eventReader = inputFactory.createXMLEventReader(inb);
         
-        XmlNode root = null;
-        XmlNode aNode = null;
+        boolean root = true;
+        List<Namespace> noNamespaces = Collections.emptyList();
         
         while (eventReader.hasNext()) {
             final XMLEvent event = eventReader.nextEvent();
@@ -73,44 +120,34 @@ public class XmlDocumentReader {
                     namespaces.add(namespace);
                 }
                 
-                if (root != null) {
-                    if (!namespaces.isEmpty()) {
-                        throw new TXmlException("Attribute \"xmlns\" is supported only for root element.");
-                    }
-                    
-                    XmlNode node = new XmlNode(startElement.getName(), XmlNodeTypeEnum.ELEMENT, aNode, namespaces);
-                    aNode.getChildren().add(node);
-                    aNode = node;
-                } else {
-                    root = new XmlNode(startElement.getName(), XmlNodeTypeEnum.ELEMENT, null, namespaces);  
-                    aNode = root;
+                if (!root && !namespaces.isEmpty()) {
+                    throw new TXmlException("Attribute \"xmlns\" is supported only for root element.");
                 }
+                root = false;
+                
+                listener.startNode(startElement.getName(), XmlNodeTypeEnum.ELEMENT, namespaces, null);
                 Iterator<Attribute> attributeIterator = startElement.getAttributes();
                 while (attributeIterator.hasNext()) {
                     Attribute attr = attributeIterator.next();
-                    XmlNode attributeNode = new XmlNode(attr.getName(), XmlNodeTypeEnum.ATTRIBUTE, aNode, new ArrayList<Namespace>());
-                    aNode.getChildren().add(attributeNode);
-                    XmlNode valueNode = new XmlNode(new QName("value"), XmlNodeTypeEnum.TEXT, attributeNode, new ArrayList<Namespace>());
-                    valueNode.setValue(attr.getValue());
-                    attributeNode.getChildren().add(valueNode);
+                    listener.startNode(attr.getName(), XmlNodeTypeEnum.ATTRIBUTE, noNamespaces, null);
+                    listener.startNode(VALUE_NAME, XmlNodeTypeEnum.TEXT, noNamespaces, attr.getValue());
+                    listener.endNode();
+                    listener.endNode();
                 }
             } else if (event.isEndElement()) {
-                aNode = aNode.getParent();
+                listener.endNode();
             } else if (event.isCharacters()) {
                 Characters characters = event.asCharacters();
                 String value = characters.getData().trim();
                 if (value.isEmpty()) {
                     continue;
                 }
-                XmlNode valueNode = new XmlNode(new QName("value"), XmlNodeTypeEnum.TEXT, aNode, new ArrayList<Namespace>());
-                valueNode.setValue(value);
-                aNode.getChildren().add(valueNode);
+                listener.startNode(VALUE_NAME, XmlNodeTypeEnum.TEXT, noNamespaces, value);
+                listener.endNode();
             }
         }
         
-        dataModel.setRoot(root);
-
-        return dataModel;
+        listener.endDocument();
     }
     
     private String getHeader(InputStream inb) throws IOException {
@@ -124,9 +161,13 @@ public class XmlDocumentReader {
             
             if ((prevChar == '<') && (aChar != '!') && (aChar != '?')) {
                 return header.substring(0, header.length() - 1);
-            } else {
+            } else if (aChar != -1) {
                 header.append(Character.toChars(aChar));
             }
+            
+            if (header.length() >= HEADER_LIMIT) {
+                throw new TXmlException("Document header is longer than " + HEADER_LIMIT + " characters.");
+            }
         } while (aChar != -1);
 
         return "";
@@ -0,0 +1,34 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.load;
+
+import java.sql.SQLException;
+import java.util.List;
+import javax.xml.namespace.QName;
+import javax.xml.stream.events.Namespace;
+import txml.load.model.XmlNodeTypeEnum;
+
+/**
+ * Receives nodes of read document in document order. Every 
+ * <code>startNode</code> is paired with <code>endNode</code> after 
+ * all descendants of the node.
+ */
+public interface XmlNodeListener {
+    void startDocument(String header) throws SQLException;
+    void startNode(QName name, XmlNodeTypeEnum type, List<Namespace> namespaces, String value) throws SQLException;
+    void endNode() throws SQLException;
+    void endDocument() throws SQLException;
+}
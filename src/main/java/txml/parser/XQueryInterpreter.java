@@ -62,6 +62,25 @@ public class XQueryInterpreter extends XQueryBaseListener {
         return literal.substring(1, literal.length() - 1);
     }
     
+    /**
+     * Returns text of string literal or name of parameter which is bound 
+     * when the query is executed.
+     */
+    private String getValue(XQueryParser.ValueContext ctx) {
+        if (ctx.parameter() != null) {
+            return ctx.parameter().getText();
+        }
+        return literalToString(ctx.getText());
+    }
+    
+    private Instruction newInstruction(String name, String operand1, String operand2, String operand3, String result, XQueryParser.ValueContext value) {
+        Instruction instruction = new Instruction(name, operand1, operand2, operand3, result);
+        if (value != null && value.parameter() != null) {
+            instruction.setParameter(value.parameter().getText());
+        }
+        return instruction;
+    }
+    
     @Override 
     public void enterPredicate(XQueryParser.PredicateContext ctx) { 
         this.instructionsInterpreter.add(new Instruction("SAVE_START_PATHS", null, null, null, getLastGenVariable()));  
@@ -84,7 +103,15 @@ public class XQueryInterpreter extends XQueryBaseListener {
     
     @Override
     public void enterXPathInExpr(XQueryParser.XPathInExprContext ctx) { 
-        this.instructionsInterpreter.add(new Instruction("GET_DIRECT_STEP", null, ctx.nodeGenerator().getText(), getLastGenVariable(), getLastGenVariable()));
+        XQueryParser.ValueContext value = ctx.getParent().getRuleContext(XQueryParser.ValueContext.class,0);
+        String versionFilter = null;
+        String filter = getFilter(ctx);
+        //interval filter of a single step is evaluated by the step query too
+        if (!isValueFilter(filter) && ctx.predicate().isEmpty() && ctx.steps() == null) {
+            versionFilter = filter + " " + getValue(value);
+        }
+        
+        this.instructionsInterpreter.add(newInstruction("GET_DIRECT_STEP", versionFilter, ctx.nodeGenerator().getText(), getLastGenVariable(), getLastGenVariable(), value));
     }
     
     @Override 
@@ -94,12 +121,23 @@ public class XQueryInterpreter extends XQueryBaseListener {
     
     @Override 
     public void exitXPathInExpr(XQueryParser.XPathInExprContext ctx) { 
+        XQueryParser.ValueContext valueContext = ctx.getParent().getRuleContext(XQueryParser.ValueContext.class,0);
+        String value = getValue(valueContext);
+        String filter = getFilter(ctx);
+        
+        if (isValueFilter(filter)) {
+            //the filter is passed to values, so text values are compared in database
+            this.instructionsInterpreter.add(newInstruction("GET_VALUES", filter, getLastGenVariable(), value, getLastGenVariable(), valueContext));
+        }
+        
+        this.instructionsInterpreter.add(newInstruction(filter, null, getLastGenVariable(), value, getLastGenVariable(), valueContext)); 
+    }
+    
+    private String getFilter(XQueryParser.XPathInExprContext ctx) {
         String valueLiteral = ctx.getParent().getRuleContext(XQueryParser.ValueContext.class,0).getText();
         String operator = ctx.getParent().getRuleContext(XQueryParser.OperatorContext.class,0).getText();
-        String value = valueLiteral.substring(1, valueLiteral.length()-1);
         String filter;
         String invertFilter;
-        boolean valueFilter = true;
         
         switch (operator) {
             case "=":
@@ -127,42 +165,34 @@ public class XQueryInterpreter extends XQueryBaseListener {
                 invertFilter = "FILTER_LE";
                 break;
             case "PRECEDES":
-                valueFilter = false;
                 filter = "FILTER_PRECEDES";
                 invertFilter = "FILTER_FOLLOWS";
                 break;
             case "FOLLOWS":
-                valueFilter = false;
                 filter = "FILTER_FOLLOWS";
                 invertFilter = "FILTER_PRECEDES";
                 break;
             case "MEETS":
-                valueFilter = false;
                 filter = "FILTER_LMEETS";
                 invertFilter = "FILTER_RMEETS";
                 break;
             case "LMEETS":
-                valueFilter = false;
                 filter = "FILTER_LMEETS";
                 invertFilter = "FILTER_RMEETS";
                 break;
             case "RMEETS":
-                valueFilter = false;
                 filter = "FILTER_RMEETS";
                 invertFilter = "FILTER_LMEETS";
                 break;
             case "OVERLAPS":
-                valueFilter = false;
                 filter = "FILTER_OVERLAPS";
                 invertFilter = "FILTER_OVERLAPS";
                 break;    
             case "CONTAINS":
-                valueFilter = false;
                 filter = "FILTER_CONTAINS";
                 invertFilter = "FILTER_IN";
                 break; 
             case "IN":
-                valueFilter = false;
                 filter = "FILTER_IN";
                 invertFilter = "FILTER_CONTAINS";
                 break; 
@@ -172,16 +202,24 @@ public class XQueryInterpreter extends XQueryBaseListener {
                 break;   
         }
         
-        if (valueFilter) {
-            this.instructionsInterpreter.add(new Instruction("GET_VALUES", null, getLastGenVariable(), null, getLastGenVariable()));
-        }
-        
         if (ctx.getParent().getChild(0).getText().equals(valueLiteral)) {
-            this.instructionsInterpreter.add(new Instruction(invertFilter, null, getLastGenVariable(), value, getLastGenVariable()));
-        } else {
-            this.instructionsInterpreter.add(new Instruction(filter, null, getLastGenVariable(), value, getLastGenVariable())); 
+            return invertFilter;
+        }
+        return filter;
+    }
+    
+    private boolean isValueFilter(String filter) {
+        switch (filter) {
+            case "FILTER_EQ":
+            case "FILTER_NEQ":
+            case "FILTER_LESS":
+            case "FILTER_MORE":
+            case "FILTER_LE":
+            case "FILTER_GE":
+                return true;
+            default:
+                return false;
         }
-                
     }
     
     @Override 
@@ -243,10 +281,10 @@ public class XQueryInterpreter extends XQueryBaseListener {
     
     @Override 
     public void exitInsertExpr(XQueryParser.InsertExprContext ctx) { 
-        String value = ctx.value() != null ? literalToString(ctx.value().getText()) : null;
+        String value = ctx.value() != null ? getValue(ctx.value()) : null;
         String position = ctx.insert_pos() != null ? literalToString(ctx.insert_pos().getText()) : null;
 
-        this.instructionsInterpreter.add(new Instruction("INSERT_INTO_DOCUMENT", position, ctx.insertXPathExpression().variable().getText(), value, ctx.insertXPathExpression().simpleXPathExpression().getText()));
+        this.instructionsInterpreter.add(newInstruction("INSERT_INTO_DOCUMENT", position, ctx.insertXPathExpression().variable().getText(), value, ctx.insertXPathExpression().simpleXPathExpression().getText(), ctx.value()));
 
     }
         
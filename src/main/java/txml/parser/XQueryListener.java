@@ -561,6 +561,16 @@ public interface XQueryListener extends ParseTreeListener {
 	 * @param ctx the parse tree
 	 */
 	void exitValue(XQueryParser.ValueContext ctx);
+	/**
+	 * Enter a parse tree produced by {@link XQueryParser#parameter}.
+	 * @param ctx the parse tree
+	 */
+	void enterParameter(XQueryParser.ParameterContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link XQueryParser#parameter}.
+	 * @param ctx the parse tree
+	 */
+	void exitParameter(XQueryParser.ParameterContext ctx);
 	/**
 	 * Enter a parse tree produced by {@link XQueryParser#insert_pos}.
 	 * @param ctx the parse tree
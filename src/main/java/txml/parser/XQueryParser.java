@@ -25,7 +25,7 @@ import java.util.ArrayList;
 
 @SuppressWarnings({"all", "warnings", "unchecked", "unused", "cast"})
 public class XQueryParser extends Parser {
-	static { RuntimeMetaData.checkVersion("4.5.1", RuntimeMetaData.VERSION); }
+	static { RuntimeMetaData.checkVersion("4.5.3", RuntimeMetaData.VERSION); }
 
 	protected static final DFA[] _decisionToDFA;
 	protected static final PredictionContextCache _sharedContextCache =
@@ -58,7 +58,8 @@ public class XQueryParser extends Parser {
 		RULE_integerNumber = 42, RULE_operator = 43, RULE_variable = 44, RULE_nodeGenerator = 45, 
 		RULE_currentNodes = 46, RULE_parentNodes = 47, RULE_childsElements = 48, 
 		RULE_nodesByType = 49, RULE_textNodes = 50, RULE_elementName = 51, RULE_attributeName = 52, 
-		RULE_value = 53, RULE_insert_pos = 54, RULE_time = 55, RULE_format = 56;
+		RULE_value = 53, RULE_parameter = 54, RULE_insert_pos = 55, RULE_time = 56, 
+		RULE_format = 57;
 	public static final String[] ruleNames = {
 		"main", "prolog", "declareOption", "declareOptionConnection", "declareOptionTimeFormat", 
 		"declareOptionSort", "documentName", "schemaName", "timeFormat", "sort", 
@@ -70,7 +71,8 @@ public class XQueryParser extends Parser {
 		"absPathExpr", "steps", "undirectStep", "directStep", "predicate", "xPathInExpr", 
 		"expr", "position", "last", "integerNumber", "operator", "variable", "nodeGenerator", 
 		"currentNodes", "parentNodes", "childsElements", "nodesByType", "textNodes", 
-		"elementName", "attributeName", "value", "insert_pos", "time", "format"
+		"elementName", "attributeName", "value", "parameter", "insert_pos", "time", 
+		"format"
 	};
 
 	private static final String[] _LITERAL_NAMES = {
@@ -171,11 +173,11 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(114);
+			setState(116);
 			prolog();
-			setState(115);
+			setState(117);
 			body();
-			setState(116);
+			setState(118);
 			match(EOF);
 			}
 		}
@@ -218,17 +220,17 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(121);
+			setState(123);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==DECLARE) {
 				{
 				{
-				setState(118);
+				setState(120);
 				declareOption();
 				}
 				}
-				setState(123);
+				setState(125);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -273,26 +275,27 @@ public class XQueryParser extends Parser {
 		DeclareOptionContext _localctx = new DeclareOptionContext(_ctx, getState());
 		enterRule(_localctx, 4, RULE_declareOption);
 		try {
-			setState(127);
+			setState(129);
+			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,1,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(124);
+				setState(126);
 				declareOptionConnection();
 				}
 				break;
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(125);
+				setState(127);
 				declareOptionTimeFormat();
 				}
 				break;
 			case 3:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(126);
+				setState(128);
 				declareOptionSort();
 				}
 				break;
@@ -337,15 +340,15 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(129);
+			setState(131);
 			match(DECLARE);
-			setState(130);
+			setState(132);
 			match(OPTION);
-			setState(131);
+			setState(133);
 			match(TXML_COLON_CONNECTION);
-			setState(132);
+			setState(134);
 			connectionUrl();
-			setState(133);
+			setState(135);
 			match(SEMICOLON);
 			}
 		}
@@ -388,15 +391,15 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(135);
+			setState(137);
 			match(DECLARE);
-			setState(136);
+			setState(138);
 			match(OPTION);
-			setState(137);
+			setState(139);
 			match(TXML_COLON_TIME_FORMAT);
-			setState(138);
+			setState(140);
 			timeFormat();
-			setState(139);
+			setState(141);
 			match(SEMICOLON);
 			}
 		}
@@ -439,15 +442,15 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(141);
+			setState(143);
 			match(DECLARE);
-			setState(142);
+			setState(144);
 			match(OPTION);
-			setState(143);
+			setState(145);
 			match(TXML_COLON_SORT);
-			setState(144);
+			setState(146);
 			sort();
-			setState(145);
+			setState(147);
 			match(SEMICOLON);
 			}
 		}
@@ -484,7 +487,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(147);
+			setState(149);
 			match(StringLiteral);
 			}
 		}
@@ -521,7 +524,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(149);
+			setState(151);
 			match(StringLiteral);
 			}
 		}
@@ -558,7 +561,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(151);
+			setState(153);
 			match(StringLiteral);
 			}
 		}
@@ -595,7 +598,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(153);
+			setState(155);
 			match(StringLiteral);
 			}
 		}
@@ -632,7 +635,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(155);
+			setState(157);
 			match(StringLiteral);
 			}
 		}
@@ -669,7 +672,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(157);
+			setState(159);
 			match(StringLiteral);
 			}
 		}
@@ -712,17 +715,17 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(160); 
+			setState(162); 
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			do {
 				{
 				{
-				setState(159);
+				setState(161);
 				statement();
 				}
 				}
-				setState(162); 
+				setState(164); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			} while ( (((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << TXML_COLON_DOCSNAPSHOT) | (1L << FOR) | (1L << TXML_COLON_INITSCHEMA) | (1L << TXML_COLON_DEINITSCHEMA) | (1L << TXML_COLON_STORE) | (1L << TXML_COLON_DOC))) != 0) );
@@ -776,47 +779,47 @@ public class XQueryParser extends Parser {
 		StatementContext _localctx = new StatementContext(_ctx, getState());
 		enterRule(_localctx, 26, RULE_statement);
 		try {
-			setState(170);
+			setState(172);
 			switch (_input.LA(1)) {
 			case FOR:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(164);
+				setState(166);
 				update();
 				}
 				break;
 			case TXML_COLON_DOC:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(165);
+				setState(167);
 				xPathQuery();
 				}
 				break;
 			case TXML_COLON_DOCSNAPSHOT:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(166);
+				setState(168);
 				snapshotQuery();
 				}
 				break;
 			case TXML_COLON_INITSCHEMA:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(167);
+				setState(169);
 				initSchema();
 				}
 				break;
 			case TXML_COLON_DEINITSCHEMA:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(168);
+				setState(170);
 				deinitSchema();
 				}
 				break;
 			case TXML_COLON_STORE:
 				enterOuterAlt(_localctx, 6);
 				{
-				setState(169);
+				setState(171);
 				storeDocument();
 				}
 				break;
@@ -862,13 +865,13 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(172);
+			setState(174);
 			match(TXML_COLON_INITSCHEMA);
-			setState(173);
+			setState(175);
 			match(LPAR);
-			setState(174);
+			setState(176);
 			schemaName();
-			setState(175);
+			setState(177);
 			match(RPAR);
 			}
 		}
@@ -910,13 +913,13 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(177);
+			setState(179);
 			match(TXML_COLON_DEINITSCHEMA);
-			setState(178);
+			setState(180);
 			match(LPAR);
-			setState(179);
+			setState(181);
 			schemaName();
-			setState(180);
+			setState(182);
 			match(RPAR);
 			}
 		}
@@ -956,19 +959,20 @@ public class XQueryParser extends Parser {
 		StoreDocumentContext _localctx = new StoreDocumentContext(_ctx, getState());
 		enterRule(_localctx, 32, RULE_storeDocument);
 		try {
-			setState(184);
+			setState(186);
+			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,4,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(182);
+				setState(184);
 				storeDocumentWithName();
 				}
 				break;
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(183);
+				setState(185);
 				storeDocumentWithoutName();
 				}
 				break;
@@ -1022,21 +1026,21 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(186);
-			match(TXML_COLON_STORE);
-			setState(187);
-			match(LPAR);
 			setState(188);
-			schemaName();
+			match(TXML_COLON_STORE);
 			setState(189);
-			match(COMMA);
+			match(LPAR);
 			setState(190);
-			fileFullName();
+			schemaName();
 			setState(191);
 			match(COMMA);
 			setState(192);
-			documentName();
+			fileFullName();
 			setState(193);
+			match(COMMA);
+			setState(194);
+			documentName();
+			setState(195);
 			match(RPAR);
 			}
 		}
@@ -1082,17 +1086,17 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(195);
+			setState(197);
 			match(TXML_COLON_STORE);
-			setState(196);
+			setState(198);
 			match(LPAR);
-			setState(197);
+			setState(199);
 			schemaName();
-			setState(198);
+			setState(200);
 			match(COMMA);
-			setState(199);
+			setState(201);
 			fileFullName();
-			setState(200);
+			setState(202);
 			match(RPAR);
 			}
 		}
@@ -1138,17 +1142,17 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(202);
+			setState(204);
 			match(TXML_COLON_DOC);
-			setState(203);
+			setState(205);
 			match(LPAR);
-			setState(204);
+			setState(206);
 			schemaName();
-			setState(205);
+			setState(207);
 			match(COMMA);
-			setState(206);
+			setState(208);
 			documentName();
-			setState(207);
+			setState(209);
 			match(RPAR);
 			}
 		}
@@ -1200,21 +1204,21 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(209);
-			match(TXML_COLON_DOCSNAPSHOT);
-			setState(210);
-			match(LPAR);
 			setState(211);
-			schemaName();
+			match(TXML_COLON_DOCSNAPSHOT);
 			setState(212);
-			match(COMMA);
+			match(LPAR);
 			setState(213);
-			documentName();
+			schemaName();
 			setState(214);
 			match(COMMA);
 			setState(215);
-			time();
+			documentName();
 			setState(216);
+			match(COMMA);
+			setState(217);
+			time();
+			setState(218);
 			match(RPAR);
 			}
 		}
@@ -1256,9 +1260,9 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(218);
+			setState(220);
 			doc();
-			setState(219);
+			setState(221);
 			absPathExpr();
 			}
 		}
@@ -1297,7 +1301,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(221);
+			setState(223);
 			absPathExprWithDoc();
 			}
 		}
@@ -1343,39 +1347,40 @@ public class XQueryParser extends Parser {
 		enterRule(_localctx, 46, RULE_update);
 		int _la;
 		try {
-			setState(235);
+			setState(237);
+			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,6,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(223);
+				setState(225);
 				forClause();
-				setState(224);
+				setState(226);
 				updateExpr();
 				}
 				break;
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(226);
+				setState(228);
 				forClause();
-				setState(227);
+				setState(229);
 				match(LCURBRAC);
-				setState(229); 
+				setState(231); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 				do {
 					{
 					{
-					setState(228);
+					setState(230);
 					updateExpr();
 					}
 					}
-					setState(231); 
+					setState(233); 
 					_errHandler.sync(this);
 					_la = _input.LA(1);
 				} while ( (((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << INSERT) | (1L << DELETE) | (1L << SET))) != 0) );
-				setState(233);
+				setState(235);
 				match(RCURBRAC);
 				}
 				break;
@@ -1421,13 +1426,13 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(237);
+			setState(239);
 			match(FOR);
-			setState(238);
+			setState(240);
 			variable();
-			setState(239);
+			setState(241);
 			match(IN);
-			setState(240);
+			setState(242);
 			absPathExprWithDoc();
 			}
 		}
@@ -1470,26 +1475,26 @@ public class XQueryParser extends Parser {
 		UpdateExprContext _localctx = new UpdateExprContext(_ctx, getState());
 		enterRule(_localctx, 50, RULE_updateExpr);
 		try {
-			setState(245);
+			setState(247);
 			switch (_input.LA(1)) {
 			case INSERT:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(242);
+				setState(244);
 				insertExpr();
 				}
 				break;
 			case DELETE:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(243);
+				setState(245);
 				deleteExpr();
 				}
 				break;
 			case SET:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(244);
+				setState(246);
 				parentExpr();
 				}
 				break;
@@ -1542,28 +1547,28 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(247);
+			setState(249);
 			match(INSERT);
-			setState(248);
+			setState(250);
 			insertXPathExpression();
-			setState(251);
+			setState(253);
 			_la = _input.LA(1);
 			if (_la==VALUE) {
 				{
-				setState(249);
+				setState(251);
 				match(VALUE);
-				setState(250);
+				setState(252);
 				value();
 				}
 			}
 
-			setState(255);
+			setState(257);
 			_la = _input.LA(1);
 			if (_la==POSITION) {
 				{
-				setState(253);
+				setState(255);
 				match(POSITION);
-				setState(254);
+				setState(256);
 				insert_pos();
 				}
 			}
@@ -1607,11 +1612,11 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(257);
+			setState(259);
 			match(DELETE);
-			setState(258);
+			setState(260);
 			match(NODE);
-			setState(259);
+			setState(261);
 			childXPathExpression();
 			}
 		}
@@ -1657,19 +1662,19 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(261);
+			setState(263);
 			match(SET);
-			setState(262);
+			setState(264);
 			match(PARENT);
-			setState(263);
+			setState(265);
 			parentXPathExpression();
-			setState(266);
+			setState(268);
 			_la = _input.LA(1);
 			if (_la==POSITION) {
 				{
-				setState(264);
+				setState(266);
 				match(POSITION);
-				setState(265);
+				setState(267);
 				insert_pos();
 				}
 			}
@@ -1715,11 +1720,11 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(268);
+			setState(270);
 			variable();
-			setState(269);
+			setState(271);
 			match(AS);
-			setState(270);
+			setState(272);
 			steps();
 			}
 		}
@@ -1761,9 +1766,9 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(272);
+			setState(274);
 			variable();
-			setState(273);
+			setState(275);
 			steps();
 			}
 		}
@@ -1810,31 +1815,31 @@ public class XQueryParser extends Parser {
 			int _alt;
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(279);
+			setState(281);
 			_errHandler.sync(this);
 			_alt = getInterpreter().adaptivePredict(_input,11,_ctx);
 			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
 				if ( _alt==1 ) {
 					{
 					{
-					setState(275);
+					setState(277);
 					match(PATHSEP);
-					setState(276);
+					setState(278);
 					elementName();
 					}
 					} 
 				}
-				setState(281);
+				setState(283);
 				_errHandler.sync(this);
 				_alt = getInterpreter().adaptivePredict(_input,11,_ctx);
 			}
-			setState(284);
+			setState(286);
 			_la = _input.LA(1);
 			if (_la==PATHSEP) {
 				{
-				setState(282);
+				setState(284);
 				match(PATHSEP);
-				setState(283);
+				setState(285);
 				attributeName();
 				}
 			}
@@ -1879,9 +1884,9 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(286);
+			setState(288);
 			variable();
-			setState(287);
+			setState(289);
 			simpleXPathExpression();
 			}
 		}
@@ -1920,7 +1925,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(289);
+			setState(291);
 			steps();
 			}
 		}
@@ -1969,36 +1974,36 @@ public class XQueryParser extends Parser {
 			int _alt;
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(293);
+			setState(295);
 			switch (_input.LA(1)) {
 			case PATHSEP:
 				{
-				setState(291);
+				setState(293);
 				directStep();
 				}
 				break;
 			case ABRPATH:
 				{
-				setState(292);
+				setState(294);
 				undirectStep();
 				}
 				break;
 			default:
 				throw new NoViableAltException(this);
 			}
-			setState(298);
+			setState(300);
 			_errHandler.sync(this);
 			_alt = getInterpreter().adaptivePredict(_input,14,_ctx);
 			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
 				if ( _alt==1 ) {
 					{
 					{
-					setState(295);
+					setState(297);
 					steps();
 					}
 					} 
 				}
-				setState(300);
+				setState(302);
 				_errHandler.sync(this);
 				_alt = getInterpreter().adaptivePredict(_input,14,_ctx);
 			}
@@ -2046,21 +2051,21 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(301);
+			setState(303);
 			match(ABRPATH);
-			setState(302);
+			setState(304);
 			nodeGenerator();
-			setState(306);
+			setState(308);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==LBRAC) {
 				{
 				{
-				setState(303);
+				setState(305);
 				predicate();
 				}
 				}
-				setState(308);
+				setState(310);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -2108,21 +2113,21 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(309);
+			setState(311);
 			match(PATHSEP);
-			setState(310);
+			setState(312);
 			nodeGenerator();
-			setState(314);
+			setState(316);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==LBRAC) {
 				{
 				{
-				setState(311);
+				setState(313);
 				predicate();
 				}
 				}
-				setState(316);
+				setState(318);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
@@ -2163,11 +2168,11 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(317);
+			setState(319);
 			match(LBRAC);
-			setState(318);
+			setState(320);
 			expr();
-			setState(319);
+			setState(321);
 			match(RBRAC);
 			}
 		}
@@ -2216,27 +2221,27 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(321);
+			setState(323);
 			nodeGenerator();
-			setState(325);
+			setState(327);
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			while (_la==LBRAC) {
 				{
 				{
-				setState(322);
+				setState(324);
 				predicate();
 				}
 				}
-				setState(327);
+				setState(329);
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			}
-			setState(329);
+			setState(331);
 			_la = _input.LA(1);
 			if (_la==PATHSEP || _la==ABRPATH) {
 				{
-				setState(328);
+				setState(330);
 				steps();
 				}
 			}
@@ -2285,7 +2290,7 @@ public class XQueryParser extends Parser {
 		ExprContext _localctx = new ExprContext(_ctx, getState());
 		enterRule(_localctx, 78, RULE_expr);
 		try {
-			setState(340);
+			setState(342);
 			switch (_input.LA(1)) {
 			case AT:
 			case TEXT:
@@ -2296,22 +2301,23 @@ public class XQueryParser extends Parser {
 			case Name:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(331);
+				setState(333);
 				xPathInExpr();
-				setState(332);
+				setState(334);
 				operator();
-				setState(333);
+				setState(335);
 				value();
 				}
 				break;
 			case StringLiteral:
+			case VariableStart:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(335);
+				setState(337);
 				value();
-				setState(336);
+				setState(338);
 				operator();
-				setState(337);
+				setState(339);
 				xPathInExpr();
 				}
 				break;
@@ -2319,7 +2325,7 @@ public class XQueryParser extends Parser {
 			case LAST:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(339);
+				setState(341);
 				position();
 				}
 				break;
@@ -2363,19 +2369,19 @@ public class XQueryParser extends Parser {
 		PositionContext _localctx = new PositionContext(_ctx, getState());
 		enterRule(_localctx, 80, RULE_position);
 		try {
-			setState(344);
+			setState(346);
 			switch (_input.LA(1)) {
 			case DIGIT:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(342);
+				setState(344);
 				integerNumber();
 				}
 				break;
 			case LAST:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(343);
+				setState(345);
 				last();
 				}
 				break;
@@ -2416,7 +2422,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(346);
+			setState(348);
 			match(LAST);
 			}
 		}
@@ -2457,17 +2463,17 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(349); 
+			setState(351); 
 			_errHandler.sync(this);
 			_la = _input.LA(1);
 			do {
 				{
 				{
-				setState(348);
+				setState(350);
 				match(DIGIT);
 				}
 				}
-				setState(351); 
+				setState(353); 
 				_errHandler.sync(this);
 				_la = _input.LA(1);
 			} while ( _la==DIGIT );
@@ -2519,7 +2525,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(353);
+			setState(355);
 			_la = _input.LA(1);
 			if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << OpEq) | (1L << OpNEq) | (1L << OpLess) | (1L << OpMore) | (1L << OpLe) | (1L << OpGe) | (1L << OpPrecedes) | (1L << OpFollows) | (1L << OpLMeets) | (1L << OpRMeets) | (1L << OpOverlaps) | (1L << OpContains) | (1L << OpIn))) != 0)) ) {
 			_errHandler.recoverInline(this);
@@ -2561,9 +2567,9 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(355);
+			setState(357);
 			match(VariableStart);
-			setState(356);
+			setState(358);
 			match(Name);
 			}
 		}
@@ -2615,12 +2621,12 @@ public class XQueryParser extends Parser {
 		NodeGeneratorContext _localctx = new NodeGeneratorContext(_ctx, getState());
 		enterRule(_localctx, 90, RULE_nodeGenerator);
 		try {
-			setState(364);
+			setState(366);
 			switch (_input.LA(1)) {
 			case Name:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(358);
+				setState(360);
 				elementName();
 				}
 				break;
@@ -2628,35 +2634,35 @@ public class XQueryParser extends Parser {
 			case ATTRIBUTE:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(359);
+				setState(361);
 				attributeName();
 				}
 				break;
 			case TEXT:
 				enterOuterAlt(_localctx, 3);
 				{
-				setState(360);
+				setState(362);
 				nodesByType();
 				}
 				break;
 			case DOT:
 				enterOuterAlt(_localctx, 4);
 				{
-				setState(361);
+				setState(363);
 				currentNodes();
 				}
 				break;
 			case TWO_DOTS:
 				enterOuterAlt(_localctx, 5);
 				{
-				setState(362);
+				setState(364);
 				parentNodes();
 				}
 				break;
 			case STAR:
 				enterOuterAlt(_localctx, 6);
 				{
-				setState(363);
+				setState(365);
 				childsElements();
 				}
 				break;
@@ -2697,7 +2703,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(366);
+			setState(368);
 			match(DOT);
 			}
 		}
@@ -2734,7 +2740,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(368);
+			setState(370);
 			match(TWO_DOTS);
 			}
 		}
@@ -2771,7 +2777,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(370);
+			setState(372);
 			match(STAR);
 			}
 		}
@@ -2810,7 +2816,7 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(372);
+			setState(374);
 			textNodes();
 			}
 		}
@@ -2849,11 +2855,11 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(374);
+			setState(376);
 			match(TEXT);
-			setState(375);
+			setState(377);
 			match(LPAR);
-			setState(376);
+			setState(378);
 			match(RPAR);
 			}
 		}
@@ -2894,18 +2900,19 @@ public class XQueryParser extends Parser {
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(380);
+			setState(382);
+			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,23,_ctx) ) {
 			case 1:
 				{
-				setState(378);
+				setState(380);
 				match(Name);
-				setState(379);
+				setState(381);
 				match(COLON);
 				}
 				break;
 			}
-			setState(382);
+			setState(384);
 			match(Name);
 			}
 		}
@@ -2946,61 +2953,62 @@ public class XQueryParser extends Parser {
 		AttributeNameContext _localctx = new AttributeNameContext(_ctx, getState());
 		enterRule(_localctx, 104, RULE_attributeName);
 		try {
-			setState(398);
+			setState(400);
+			_errHandler.sync(this);
 			switch ( getInterpreter().adaptivePredict(_input,26,_ctx) ) {
 			case 1:
 				enterOuterAlt(_localctx, 1);
 				{
-				setState(387);
+				setState(389);
 				switch (_input.LA(1)) {
 				case AT:
 					{
-					setState(384);
+					setState(386);
 					match(AT);
 					}
 					break;
 				case ATTRIBUTE:
 					{
-					setState(385);
+					setState(387);
 					match(ATTRIBUTE);
-					setState(386);
+					setState(388);
 					match(TWO_COLON);
 					}
 					break;
 				default:
 					throw new NoViableAltException(this);
 				}
-				setState(389);
+				setState(391);
 				match(Name);
 				}
 				break;
 			case 2:
 				enterOuterAlt(_localctx, 2);
 				{
-				setState(393);
+				setState(395);
 				switch (_input.LA(1)) {
 				case AT:
 					{
-					setState(390);
+					setState(392);
 					match(AT);
 					}
 					break;
 				case ATTRIBUTE:
 					{
-					setState(391);
+					setState(393);
 					match(ATTRIBUTE);
-					setState(392);
+					setState(394);
 					match(TWO_COLON);
 					}
 					break;
 				default:
 					throw new NoViableAltException(this);
 				}
-				setState(395);
+				setState(397);
 				match(Name);
-				setState(396);
+				setState(398);
 				match(COLON);
-				setState(397);
+				setState(399);
 				match(Name);
 				}
 				break;
@@ -3019,6 +3027,9 @@ public class XQueryParser extends Parser {
 
 	public static class ValueContext extends ParserRuleContext {
 		public TerminalNode StringLiteral() { return getToken(XQueryParser.StringLiteral, 0); }
+		public ParameterContext parameter() {
+			return getRuleContext(ParameterContext.class,0);
+		}
 		public ValueContext(ParserRuleContext parent, int invokingState) {
 			super(parent, invokingState);
 		}
@@ -3036,11 +3047,64 @@ public class XQueryParser extends Parser {
 	public final ValueContext value() throws RecognitionException {
 		ValueContext _localctx = new ValueContext(_ctx, getState());
 		enterRule(_localctx, 106, RULE_value);
+		try {
+			setState(404);
+			switch (_input.LA(1)) {
+			case StringLiteral:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(402);
+				match(StringLiteral);
+				}
+				break;
+			case VariableStart:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(403);
+				parameter();
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class ParameterContext extends ParserRuleContext {
+		public TerminalNode Name() { return getToken(XQueryParser.Name, 0); }
+		public ParameterContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_parameter; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof XQueryListener ) ((XQueryListener)listener).enterParameter(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof XQueryListener ) ((XQueryListener)listener).exitParameter(this);
+		}
+	}
+
+	public final ParameterContext parameter() throws RecognitionException {
+		ParameterContext _localctx = new ParameterContext(_ctx, getState());
+		enterRule(_localctx, 108, RULE_parameter);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(400);
-			match(StringLiteral);
+			setState(406);
+			match(VariableStart);
+			setState(407);
+			match(Name);
 			}
 		}
 		catch (RecognitionException re) {
@@ -3072,11 +3136,11 @@ public class XQueryParser extends Parser {
 
 	public final Insert_posContext insert_pos() throws RecognitionException {
 		Insert_posContext _localctx = new Insert_posContext(_ctx, getState());
-		enterRule(_localctx, 108, RULE_insert_pos);
+		enterRule(_localctx, 110, RULE_insert_pos);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(402);
+			setState(409);
 			match(StringLiteral);
 			}
 		}
@@ -3109,11 +3173,11 @@ public class XQueryParser extends Parser {
 
 	public final TimeContext time() throws RecognitionException {
 		TimeContext _localctx = new TimeContext(_ctx, getState());
-		enterRule(_localctx, 110, RULE_time);
+		enterRule(_localctx, 112, RULE_time);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(404);
+			setState(411);
 			match(StringLiteral);
 			}
 		}
@@ -3146,11 +3210,11 @@ public class XQueryParser extends Parser {
 
 	public final FormatContext format() throws RecognitionException {
 		FormatContext _localctx = new FormatContext(_ctx, getState());
-		enterRule(_localctx, 112, RULE_format);
+		enterRule(_localctx, 114, RULE_format);
 		try {
 			enterOuterAlt(_localctx, 1);
 			{
-			setState(406);
+			setState(413);
 			match(StringLiteral);
 			}
 		}
@@ -3166,140 +3230,143 @@ public class XQueryParser extends Parser {
 	}
 
 	public static final String _serializedATN =
-		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\3A\u019b\4\2\t\2\4"+
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\3A\u01a2\4\2\t\2\4"+
 		"\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4\13\t"+
 		"\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22\t\22"+
 		"\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31\t\31"+
 		"\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t \4!"+
 		"\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\4(\t(\4)\t)\4*\t*\4+\t+\4"+
 		",\t,\4-\t-\4.\t.\4/\t/\4\60\t\60\4\61\t\61\4\62\t\62\4\63\t\63\4\64\t"+
-		"\64\4\65\t\65\4\66\t\66\4\67\t\67\48\t8\49\t9\4:\t:\3\2\3\2\3\2\3\2\3"+
-		"\3\7\3z\n\3\f\3\16\3}\13\3\3\4\3\4\3\4\5\4\u0082\n\4\3\5\3\5\3\5\3\5\3"+
-		"\5\3\5\3\6\3\6\3\6\3\6\3\6\3\6\3\7\3\7\3\7\3\7\3\7\3\7\3\b\3\b\3\t\3\t"+
-		"\3\n\3\n\3\13\3\13\3\f\3\f\3\r\3\r\3\16\6\16\u00a3\n\16\r\16\16\16\u00a4"+
-		"\3\17\3\17\3\17\3\17\3\17\3\17\5\17\u00ad\n\17\3\20\3\20\3\20\3\20\3\20"+
-		"\3\21\3\21\3\21\3\21\3\21\3\22\3\22\5\22\u00bb\n\22\3\23\3\23\3\23\3\23"+
-		"\3\23\3\23\3\23\3\23\3\23\3\24\3\24\3\24\3\24\3\24\3\24\3\24\3\25\3\25"+
-		"\3\25\3\25\3\25\3\25\3\25\3\26\3\26\3\26\3\26\3\26\3\26\3\26\3\26\3\26"+
-		"\3\27\3\27\3\27\3\30\3\30\3\31\3\31\3\31\3\31\3\31\3\31\6\31\u00e8\n\31"+
-		"\r\31\16\31\u00e9\3\31\3\31\5\31\u00ee\n\31\3\32\3\32\3\32\3\32\3\32\3"+
-		"\33\3\33\3\33\5\33\u00f8\n\33\3\34\3\34\3\34\3\34\5\34\u00fe\n\34\3\34"+
-		"\3\34\5\34\u0102\n\34\3\35\3\35\3\35\3\35\3\36\3\36\3\36\3\36\3\36\5\36"+
-		"\u010d\n\36\3\37\3\37\3\37\3\37\3 \3 \3 \3!\3!\7!\u0118\n!\f!\16!\u011b"+
-		"\13!\3!\3!\5!\u011f\n!\3\"\3\"\3\"\3#\3#\3$\3$\5$\u0128\n$\3$\7$\u012b"+
-		"\n$\f$\16$\u012e\13$\3%\3%\3%\7%\u0133\n%\f%\16%\u0136\13%\3&\3&\3&\7"+
-		"&\u013b\n&\f&\16&\u013e\13&\3\'\3\'\3\'\3\'\3(\3(\7(\u0146\n(\f(\16(\u0149"+
-		"\13(\3(\5(\u014c\n(\3)\3)\3)\3)\3)\3)\3)\3)\3)\5)\u0157\n)\3*\3*\5*\u015b"+
-		"\n*\3+\3+\3,\6,\u0160\n,\r,\16,\u0161\3-\3-\3.\3.\3.\3/\3/\3/\3/\3/\3"+
-		"/\5/\u016f\n/\3\60\3\60\3\61\3\61\3\62\3\62\3\63\3\63\3\64\3\64\3\64\3"+
-		"\64\3\65\3\65\5\65\u017f\n\65\3\65\3\65\3\66\3\66\3\66\5\66\u0186\n\66"+
-		"\3\66\3\66\3\66\3\66\5\66\u018c\n\66\3\66\3\66\3\66\5\66\u0191\n\66\3"+
-		"\67\3\67\38\38\39\39\3:\3:\3:\2\2;\2\4\6\b\n\f\16\20\22\24\26\30\32\34"+
-		"\36 \"$&(*,.\60\62\64\668:<>@BDFHJLNPRTVXZ\\^`bdfhjlnpr\2\3\3\2\3\17\u0187"+
-		"\2t\3\2\2\2\4{\3\2\2\2\6\u0081\3\2\2\2\b\u0083\3\2\2\2\n\u0089\3\2\2\2"+
-		"\f\u008f\3\2\2\2\16\u0095\3\2\2\2\20\u0097\3\2\2\2\22\u0099\3\2\2\2\24"+
-		"\u009b\3\2\2\2\26\u009d\3\2\2\2\30\u009f\3\2\2\2\32\u00a2\3\2\2\2\34\u00ac"+
-		"\3\2\2\2\36\u00ae\3\2\2\2 \u00b3\3\2\2\2\"\u00ba\3\2\2\2$\u00bc\3\2\2"+
-		"\2&\u00c5\3\2\2\2(\u00cc\3\2\2\2*\u00d3\3\2\2\2,\u00dc\3\2\2\2.\u00df"+
-		"\3\2\2\2\60\u00ed\3\2\2\2\62\u00ef\3\2\2\2\64\u00f7\3\2\2\2\66\u00f9\3"+
-		"\2\2\28\u0103\3\2\2\2:\u0107\3\2\2\2<\u010e\3\2\2\2>\u0112\3\2\2\2@\u0119"+
-		"\3\2\2\2B\u0120\3\2\2\2D\u0123\3\2\2\2F\u0127\3\2\2\2H\u012f\3\2\2\2J"+
-		"\u0137\3\2\2\2L\u013f\3\2\2\2N\u0143\3\2\2\2P\u0156\3\2\2\2R\u015a\3\2"+
-		"\2\2T\u015c\3\2\2\2V\u015f\3\2\2\2X\u0163\3\2\2\2Z\u0165\3\2\2\2\\\u016e"+
-		"\3\2\2\2^\u0170\3\2\2\2`\u0172\3\2\2\2b\u0174\3\2\2\2d\u0176\3\2\2\2f"+
-		"\u0178\3\2\2\2h\u017e\3\2\2\2j\u0190\3\2\2\2l\u0192\3\2\2\2n\u0194\3\2"+
-		"\2\2p\u0196\3\2\2\2r\u0198\3\2\2\2tu\5\4\3\2uv\5\32\16\2vw\7\2\2\3w\3"+
-		"\3\2\2\2xz\5\6\4\2yx\3\2\2\2z}\3\2\2\2{y\3\2\2\2{|\3\2\2\2|\5\3\2\2\2"+
-		"}{\3\2\2\2~\u0082\5\b\5\2\177\u0082\5\n\6\2\u0080\u0082\5\f\7\2\u0081"+
-		"~\3\2\2\2\u0081\177\3\2\2\2\u0081\u0080\3\2\2\2\u0082\7\3\2\2\2\u0083"+
-		"\u0084\7*\2\2\u0084\u0085\7+\2\2\u0085\u0086\7.\2\2\u0086\u0087\5\26\f"+
-		"\2\u0087\u0088\7\35\2\2\u0088\t\3\2\2\2\u0089\u008a\7*\2\2\u008a\u008b"+
-		"\7+\2\2\u008b\u008c\7/\2\2\u008c\u008d\5\22\n\2\u008d\u008e\7\35\2\2\u008e"+
-		"\13\3\2\2\2\u008f\u0090\7*\2\2\u0090\u0091\7+\2\2\u0091\u0092\7\60\2\2"+
-		"\u0092\u0093\5\24\13\2\u0093\u0094\7\35\2\2\u0094\r\3\2\2\2\u0095\u0096"+
-		"\7\20\2\2\u0096\17\3\2\2\2\u0097\u0098\7\20\2\2\u0098\21\3\2\2\2\u0099"+
-		"\u009a\7\20\2\2\u009a\23\3\2\2\2\u009b\u009c\7\20\2\2\u009c\25\3\2\2\2"+
-		"\u009d\u009e\7\20\2\2\u009e\27\3\2\2\2\u009f\u00a0\7\20\2\2\u00a0\31\3"+
-		"\2\2\2\u00a1\u00a3\5\34\17\2\u00a2\u00a1\3\2\2\2\u00a3\u00a4\3\2\2\2\u00a4"+
-		"\u00a2\3\2\2\2\u00a4\u00a5\3\2\2\2\u00a5\33\3\2\2\2\u00a6\u00ad\5\60\31"+
-		"\2\u00a7\u00ad\5.\30\2\u00a8\u00ad\5*\26\2\u00a9\u00ad\5\36\20\2\u00aa"+
-		"\u00ad\5 \21\2\u00ab\u00ad\5\"\22\2\u00ac\u00a6\3\2\2\2\u00ac\u00a7\3"+
-		"\2\2\2\u00ac\u00a8\3\2\2\2\u00ac\u00a9\3\2\2\2\u00ac\u00aa\3\2\2\2\u00ac"+
-		"\u00ab\3\2\2\2\u00ad\35\3\2\2\2\u00ae\u00af\7\61\2\2\u00af\u00b0\7\31"+
-		"\2\2\u00b0\u00b1\5\20\t\2\u00b1\u00b2\7\32\2\2\u00b2\37\3\2\2\2\u00b3"+
-		"\u00b4\7\62\2\2\u00b4\u00b5\7\31\2\2\u00b5\u00b6\5\20\t\2\u00b6\u00b7"+
-		"\7\32\2\2\u00b7!\3\2\2\2\u00b8\u00bb\5$\23\2\u00b9\u00bb\5&\24\2\u00ba"+
-		"\u00b8\3\2\2\2\u00ba\u00b9\3\2\2\2\u00bb#\3\2\2\2\u00bc\u00bd\7\63\2\2"+
-		"\u00bd\u00be\7\31\2\2\u00be\u00bf\5\20\t\2\u00bf\u00c0\7\36\2\2\u00c0"+
-		"\u00c1\5\30\r\2\u00c1\u00c2\7\36\2\2\u00c2\u00c3\5\16\b\2\u00c3\u00c4"+
-		"\7\32\2\2\u00c4%\3\2\2\2\u00c5\u00c6\7\63\2\2\u00c6\u00c7\7\31\2\2\u00c7"+
-		"\u00c8\5\20\t\2\u00c8\u00c9\7\36\2\2\u00c9\u00ca\5\30\r\2\u00ca\u00cb"+
-		"\7\32\2\2\u00cb\'\3\2\2\2\u00cc\u00cd\7\64\2\2\u00cd\u00ce\7\31\2\2\u00ce"+
-		"\u00cf\5\20\t\2\u00cf\u00d0\7\36\2\2\u00d0\u00d1\5\16\b\2\u00d1\u00d2"+
-		"\7\32\2\2\u00d2)\3\2\2\2\u00d3\u00d4\7\37\2\2\u00d4\u00d5\7\31\2\2\u00d5"+
-		"\u00d6\5\20\t\2\u00d6\u00d7\7\36\2\2\u00d7\u00d8\5\16\b\2\u00d8\u00d9"+
-		"\7\36\2\2\u00d9\u00da\5p9\2\u00da\u00db\7\32\2\2\u00db+\3\2\2\2\u00dc"+
-		"\u00dd\5(\25\2\u00dd\u00de\5D#\2\u00de-\3\2\2\2\u00df\u00e0\5,\27\2\u00e0"+
-		"/\3\2\2\2\u00e1\u00e2\5\62\32\2\u00e2\u00e3\5\64\33\2\u00e3\u00ee\3\2"+
-		"\2\2\u00e4\u00e5\5\62\32\2\u00e5\u00e7\7\33\2\2\u00e6\u00e8\5\64\33\2"+
-		"\u00e7\u00e6\3\2\2\2\u00e8\u00e9\3\2\2\2\u00e9\u00e7\3\2\2\2\u00e9\u00ea"+
-		"\3\2\2\2\u00ea\u00eb\3\2\2\2\u00eb\u00ec\7\34\2\2\u00ec\u00ee\3\2\2\2"+
-		"\u00ed\u00e1\3\2\2\2\u00ed\u00e4\3\2\2\2\u00ee\61\3\2\2\2\u00ef\u00f0"+
-		"\7 \2\2\u00f0\u00f1\5Z.\2\u00f1\u00f2\7!\2\2\u00f2\u00f3\5,\27\2\u00f3"+
-		"\63\3\2\2\2\u00f4\u00f8\5\66\34\2\u00f5\u00f8\58\35\2\u00f6\u00f8\5:\36"+
-		"\2\u00f7\u00f4\3\2\2\2\u00f7\u00f5\3\2\2\2\u00f7\u00f6\3\2\2\2\u00f8\65"+
-		"\3\2\2\2\u00f9\u00fa\7\"\2\2\u00fa\u00fd\5B\"\2\u00fb\u00fc\7#\2\2\u00fc"+
-		"\u00fe\5l\67\2\u00fd\u00fb\3\2\2\2\u00fd\u00fe\3\2\2\2\u00fe\u0101\3\2"+
-		"\2\2\u00ff\u0100\7$\2\2\u0100\u0102\5n8\2\u0101\u00ff\3\2\2\2\u0101\u0102"+
-		"\3\2\2\2\u0102\67\3\2\2\2\u0103\u0104\7%\2\2\u0104\u0105\7&\2\2\u0105"+
-		"\u0106\5> \2\u01069\3\2\2\2\u0107\u0108\7\'\2\2\u0108\u0109\7(\2\2\u0109"+
-		"\u010c\5<\37\2\u010a\u010b\7$\2\2\u010b\u010d\5n8\2\u010c\u010a\3\2\2"+
-		"\2\u010c\u010d\3\2\2\2\u010d;\3\2\2\2\u010e\u010f\5Z.\2\u010f\u0110\7"+
-		")\2\2\u0110\u0111\5F$\2\u0111=\3\2\2\2\u0112\u0113\5Z.\2\u0113\u0114\5"+
-		"F$\2\u0114?\3\2\2\2\u0115\u0116\7\24\2\2\u0116\u0118\5h\65\2\u0117\u0115"+
-		"\3\2\2\2\u0118\u011b\3\2\2\2\u0119\u0117\3\2\2\2\u0119\u011a\3\2\2\2\u011a"+
-		"\u011e\3\2\2\2\u011b\u0119\3\2\2\2\u011c\u011d\7\24\2\2\u011d\u011f\5"+
-		"j\66\2\u011e\u011c\3\2\2\2\u011e\u011f\3\2\2\2\u011fA\3\2\2\2\u0120\u0121"+
-		"\5Z.\2\u0121\u0122\5@!\2\u0122C\3\2\2\2\u0123\u0124\5F$\2\u0124E\3\2\2"+
-		"\2\u0125\u0128\5J&\2\u0126\u0128\5H%\2\u0127\u0125\3\2\2\2\u0127\u0126"+
-		"\3\2\2\2\u0128\u012c\3\2\2\2\u0129\u012b\5F$\2\u012a\u0129\3\2\2\2\u012b"+
-		"\u012e\3\2\2\2\u012c\u012a\3\2\2\2\u012c\u012d\3\2\2\2\u012dG\3\2\2\2"+
-		"\u012e\u012c\3\2\2\2\u012f\u0130\7\25\2\2\u0130\u0134\5\\/\2\u0131\u0133"+
-		"\5L\'\2\u0132\u0131\3\2\2\2\u0133\u0136\3\2\2\2\u0134\u0132\3\2\2\2\u0134"+
-		"\u0135\3\2\2\2\u0135I\3\2\2\2\u0136\u0134\3\2\2\2\u0137\u0138\7\24\2\2"+
-		"\u0138\u013c\5\\/\2\u0139\u013b\5L\'\2\u013a\u0139\3\2\2\2\u013b\u013e"+
-		"\3\2\2\2\u013c\u013a\3\2\2\2\u013c\u013d\3\2\2\2\u013dK\3\2\2\2\u013e"+
-		"\u013c\3\2\2\2\u013f\u0140\7\27\2\2\u0140\u0141\5P)\2\u0141\u0142\7\30"+
-		"\2\2\u0142M\3\2\2\2\u0143\u0147\5\\/\2\u0144\u0146\5L\'\2\u0145\u0144"+
-		"\3\2\2\2\u0146\u0149\3\2\2\2\u0147\u0145\3\2\2\2\u0147\u0148\3\2\2\2\u0148"+
-		"\u014b\3\2\2\2\u0149\u0147\3\2\2\2\u014a\u014c\5F$\2\u014b\u014a\3\2\2"+
-		"\2\u014b\u014c\3\2\2\2\u014cO\3\2\2\2\u014d\u014e\5N(\2\u014e\u014f\5"+
-		"X-\2\u014f\u0150\5l\67\2\u0150\u0157\3\2\2\2\u0151\u0152\5l\67\2\u0152"+
-		"\u0153\5X-\2\u0153\u0154\5N(\2\u0154\u0157\3\2\2\2\u0155\u0157\5R*\2\u0156"+
-		"\u014d\3\2\2\2\u0156\u0151\3\2\2\2\u0156\u0155\3\2\2\2\u0157Q\3\2\2\2"+
-		"\u0158\u015b\5V,\2\u0159\u015b\5T+\2\u015a\u0158\3\2\2\2\u015a\u0159\3"+
-		"\2\2\2\u015bS\3\2\2\2\u015c\u015d\7:\2\2\u015dU\3\2\2\2\u015e\u0160\7"+
-		"9\2\2\u015f\u015e\3\2\2\2\u0160\u0161\3\2\2\2\u0161\u015f\3\2\2\2\u0161"+
-		"\u0162\3\2\2\2\u0162W\3\2\2\2\u0163\u0164\t\2\2\2\u0164Y\3\2\2\2\u0165"+
-		"\u0166\7>\2\2\u0166\u0167\7?\2\2\u0167[\3\2\2\2\u0168\u016f\5h\65\2\u0169"+
-		"\u016f\5j\66\2\u016a\u016f\5d\63\2\u016b\u016f\5^\60\2\u016c\u016f\5`"+
-		"\61\2\u016d\u016f\5b\62\2\u016e\u0168\3\2\2\2\u016e\u0169\3\2\2\2\u016e"+
-		"\u016a\3\2\2\2\u016e\u016b\3\2\2\2\u016e\u016c\3\2\2\2\u016e\u016d\3\2"+
-		"\2\2\u016f]\3\2\2\2\u0170\u0171\7\66\2\2\u0171_\3\2\2\2\u0172\u0173\7"+
-		"8\2\2\u0173a\3\2\2\2\u0174\u0175\7\67\2\2\u0175c\3\2\2\2\u0176\u0177\5"+
-		"f\64\2\u0177e\3\2\2\2\u0178\u0179\7\65\2\2\u0179\u017a\7\31\2\2\u017a"+
-		"\u017b\7\32\2\2\u017bg\3\2\2\2\u017c\u017d\7?\2\2\u017d\u017f\7\22\2\2"+
-		"\u017e\u017c\3\2\2\2\u017e\u017f\3\2\2\2\u017f\u0180\3\2\2\2\u0180\u0181"+
-		"\7?\2\2\u0181i\3\2\2\2\u0182\u0186\7\23\2\2\u0183\u0184\7<\2\2\u0184\u0186"+
-		"\7;\2\2\u0185\u0182\3\2\2\2\u0185\u0183\3\2\2\2\u0186\u0187\3\2\2\2\u0187"+
-		"\u0191\7?\2\2\u0188\u018c\7\23\2\2\u0189\u018a\7<\2\2\u018a\u018c\7;\2"+
-		"\2\u018b\u0188\3\2\2\2\u018b\u0189\3\2\2\2\u018c\u018d\3\2\2\2\u018d\u018e"+
-		"\7?\2\2\u018e\u018f\7\22\2\2\u018f\u0191\7?\2\2\u0190\u0185\3\2\2\2\u0190"+
-		"\u018b\3\2\2\2\u0191k\3\2\2\2\u0192\u0193\7\20\2\2\u0193m\3\2\2\2\u0194"+
-		"\u0195\7\20\2\2\u0195o\3\2\2\2\u0196\u0197\7\20\2\2\u0197q\3\2\2\2\u0198"+
-		"\u0199\7\20\2\2\u0199s\3\2\2\2\35{\u0081\u00a4\u00ac\u00ba\u00e9\u00ed"+
-		"\u00f7\u00fd\u0101\u010c\u0119\u011e\u0127\u012c\u0134\u013c\u0147\u014b"+
-		"\u0156\u015a\u0161\u016e\u017e\u0185\u018b\u0190";
+		"\64\4\65\t\65\4\66\t\66\4\67\t\67\48\t8\49\t9\4:\t:\4;\t;\3\2\3\2\3\2"+
+		"\3\2\3\3\7\3|\n\3\f\3\16\3\177\13\3\3\4\3\4\3\4\5\4\u0084\n\4\3\5\3\5"+
+		"\3\5\3\5\3\5\3\5\3\6\3\6\3\6\3\6\3\6\3\6\3\7\3\7\3\7\3\7\3\7\3\7\3\b\3"+
+		"\b\3\t\3\t\3\n\3\n\3\13\3\13\3\f\3\f\3\r\3\r\3\16\6\16\u00a5\n\16\r\16"+
+		"\16\16\u00a6\3\17\3\17\3\17\3\17\3\17\3\17\5\17\u00af\n\17\3\20\3\20\3"+
+		"\20\3\20\3\20\3\21\3\21\3\21\3\21\3\21\3\22\3\22\5\22\u00bd\n\22\3\23"+
+		"\3\23\3\23\3\23\3\23\3\23\3\23\3\23\3\23\3\24\3\24\3\24\3\24\3\24\3\24"+
+		"\3\24\3\25\3\25\3\25\3\25\3\25\3\25\3\25\3\26\3\26\3\26\3\26\3\26\3\26"+
+		"\3\26\3\26\3\26\3\27\3\27\3\27\3\30\3\30\3\31\3\31\3\31\3\31\3\31\3\31"+
+		"\6\31\u00ea\n\31\r\31\16\31\u00eb\3\31\3\31\5\31\u00f0\n\31\3\32\3\32"+
+		"\3\32\3\32\3\32\3\33\3\33\3\33\5\33\u00fa\n\33\3\34\3\34\3\34\3\34\5\34"+
+		"\u0100\n\34\3\34\3\34\5\34\u0104\n\34\3\35\3\35\3\35\3\35\3\36\3\36\3"+
+		"\36\3\36\3\36\5\36\u010f\n\36\3\37\3\37\3\37\3\37\3 \3 \3 \3!\3!\7!\u011a"+
+		"\n!\f!\16!\u011d\13!\3!\3!\5!\u0121\n!\3\"\3\"\3\"\3#\3#\3$\3$\5$\u012a"+
+		"\n$\3$\7$\u012d\n$\f$\16$\u0130\13$\3%\3%\3%\7%\u0135\n%\f%\16%\u0138"+
+		"\13%\3&\3&\3&\7&\u013d\n&\f&\16&\u0140\13&\3\'\3\'\3\'\3\'\3(\3(\7(\u0148"+
+		"\n(\f(\16(\u014b\13(\3(\5(\u014e\n(\3)\3)\3)\3)\3)\3)\3)\3)\3)\5)\u0159"+
+		"\n)\3*\3*\5*\u015d\n*\3+\3+\3,\6,\u0162\n,\r,\16,\u0163\3-\3-\3.\3.\3"+
+		".\3/\3/\3/\3/\3/\3/\5/\u0171\n/\3\60\3\60\3\61\3\61\3\62\3\62\3\63\3\63"+
+		"\3\64\3\64\3\64\3\64\3\65\3\65\5\65\u0181\n\65\3\65\3\65\3\66\3\66\3\66"+
+		"\5\66\u0188\n\66\3\66\3\66\3\66\3\66\5\66\u018e\n\66\3\66\3\66\3\66\5"+
+		"\66\u0193\n\66\3\67\3\67\5\67\u0197\n\67\38\38\38\39\39\3:\3:\3;\3;\3"+
+		";\2\2<\2\4\6\b\n\f\16\20\22\24\26\30\32\34\36 \"$&(*,.\60\62\64\668:<"+
+		">@BDFHJLNPRTVXZ\\^`bdfhjlnprt\2\3\3\2\3\17\u018e\2v\3\2\2\2\4}\3\2\2\2"+
+		"\6\u0083\3\2\2\2\b\u0085\3\2\2\2\n\u008b\3\2\2\2\f\u0091\3\2\2\2\16\u0097"+
+		"\3\2\2\2\20\u0099\3\2\2\2\22\u009b\3\2\2\2\24\u009d\3\2\2\2\26\u009f\3"+
+		"\2\2\2\30\u00a1\3\2\2\2\32\u00a4\3\2\2\2\34\u00ae\3\2\2\2\36\u00b0\3\2"+
+		"\2\2 \u00b5\3\2\2\2\"\u00bc\3\2\2\2$\u00be\3\2\2\2&\u00c7\3\2\2\2(\u00ce"+
+		"\3\2\2\2*\u00d5\3\2\2\2,\u00de\3\2\2\2.\u00e1\3\2\2\2\60\u00ef\3\2\2\2"+
+		"\62\u00f1\3\2\2\2\64\u00f9\3\2\2\2\66\u00fb\3\2\2\28\u0105\3\2\2\2:\u0109"+
+		"\3\2\2\2<\u0110\3\2\2\2>\u0114\3\2\2\2@\u011b\3\2\2\2B\u0122\3\2\2\2D"+
+		"\u0125\3\2\2\2F\u0129\3\2\2\2H\u0131\3\2\2\2J\u0139\3\2\2\2L\u0141\3\2"+
+		"\2\2N\u0145\3\2\2\2P\u0158\3\2\2\2R\u015c\3\2\2\2T\u015e\3\2\2\2V\u0161"+
+		"\3\2\2\2X\u0165\3\2\2\2Z\u0167\3\2\2\2\\\u0170\3\2\2\2^\u0172\3\2\2\2"+
+		"`\u0174\3\2\2\2b\u0176\3\2\2\2d\u0178\3\2\2\2f\u017a\3\2\2\2h\u0180\3"+
+		"\2\2\2j\u0192\3\2\2\2l\u0196\3\2\2\2n\u0198\3\2\2\2p\u019b\3\2\2\2r\u019d"+
+		"\3\2\2\2t\u019f\3\2\2\2vw\5\4\3\2wx\5\32\16\2xy\7\2\2\3y\3\3\2\2\2z|\5"+
+		"\6\4\2{z\3\2\2\2|\177\3\2\2\2}{\3\2\2\2}~\3\2\2\2~\5\3\2\2\2\177}\3\2"+
+		"\2\2\u0080\u0084\5\b\5\2\u0081\u0084\5\n\6\2\u0082\u0084\5\f\7\2\u0083"+
+		"\u0080\3\2\2\2\u0083\u0081\3\2\2\2\u0083\u0082\3\2\2\2\u0084\7\3\2\2\2"+
+		"\u0085\u0086\7*\2\2\u0086\u0087\7+\2\2\u0087\u0088\7.\2\2\u0088\u0089"+
+		"\5\26\f\2\u0089\u008a\7\35\2\2\u008a\t\3\2\2\2\u008b\u008c\7*\2\2\u008c"+
+		"\u008d\7+\2\2\u008d\u008e\7/\2\2\u008e\u008f\5\22\n\2\u008f\u0090\7\35"+
+		"\2\2\u0090\13\3\2\2\2\u0091\u0092\7*\2\2\u0092\u0093\7+\2\2\u0093\u0094"+
+		"\7\60\2\2\u0094\u0095\5\24\13\2\u0095\u0096\7\35\2\2\u0096\r\3\2\2\2\u0097"+
+		"\u0098\7\20\2\2\u0098\17\3\2\2\2\u0099\u009a\7\20\2\2\u009a\21\3\2\2\2"+
+		"\u009b\u009c\7\20\2\2\u009c\23\3\2\2\2\u009d\u009e\7\20\2\2\u009e\25\3"+
+		"\2\2\2\u009f\u00a0\7\20\2\2\u00a0\27\3\2\2\2\u00a1\u00a2\7\20\2\2\u00a2"+
+		"\31\3\2\2\2\u00a3\u00a5\5\34\17\2\u00a4\u00a3\3\2\2\2\u00a5\u00a6\3\2"+
+		"\2\2\u00a6\u00a4\3\2\2\2\u00a6\u00a7\3\2\2\2\u00a7\33\3\2\2\2\u00a8\u00af"+
+		"\5\60\31\2\u00a9\u00af\5.\30\2\u00aa\u00af\5*\26\2\u00ab\u00af\5\36\20"+
+		"\2\u00ac\u00af\5 \21\2\u00ad\u00af\5\"\22\2\u00ae\u00a8\3\2\2\2\u00ae"+
+		"\u00a9\3\2\2\2\u00ae\u00aa\3\2\2\2\u00ae\u00ab\3\2\2\2\u00ae\u00ac\3\2"+
+		"\2\2\u00ae\u00ad\3\2\2\2\u00af\35\3\2\2\2\u00b0\u00b1\7\61\2\2\u00b1\u00b2"+
+		"\7\31\2\2\u00b2\u00b3\5\20\t\2\u00b3\u00b4\7\32\2\2\u00b4\37\3\2\2\2\u00b5"+
+		"\u00b6\7\62\2\2\u00b6\u00b7\7\31\2\2\u00b7\u00b8\5\20\t\2\u00b8\u00b9"+
+		"\7\32\2\2\u00b9!\3\2\2\2\u00ba\u00bd\5$\23\2\u00bb\u00bd\5&\24\2\u00bc"+
+		"\u00ba\3\2\2\2\u00bc\u00bb\3\2\2\2\u00bd#\3\2\2\2\u00be\u00bf\7\63\2\2"+
+		"\u00bf\u00c0\7\31\2\2\u00c0\u00c1\5\20\t\2\u00c1\u00c2\7\36\2\2\u00c2"+
+		"\u00c3\5\30\r\2\u00c3\u00c4\7\36\2\2\u00c4\u00c5\5\16\b\2\u00c5\u00c6"+
+		"\7\32\2\2\u00c6%\3\2\2\2\u00c7\u00c8\7\63\2\2\u00c8\u00c9\7\31\2\2\u00c9"+
+		"\u00ca\5\20\t\2\u00ca\u00cb\7\36\2\2\u00cb\u00cc\5\30\r\2\u00cc\u00cd"+
+		"\7\32\2\2\u00cd\'\3\2\2\2\u00ce\u00cf\7\64\2\2\u00cf\u00d0\7\31\2\2\u00d0"+
+		"\u00d1\5\20\t\2\u00d1\u00d2\7\36\2\2\u00d2\u00d3\5\16\b\2\u00d3\u00d4"+
+		"\7\32\2\2\u00d4)\3\2\2\2\u00d5\u00d6\7\37\2\2\u00d6\u00d7\7\31\2\2\u00d7"+
+		"\u00d8\5\20\t\2\u00d8\u00d9\7\36\2\2\u00d9\u00da\5\16\b\2\u00da\u00db"+
+		"\7\36\2\2\u00db\u00dc\5r:\2\u00dc\u00dd\7\32\2\2\u00dd+\3\2\2\2\u00de"+
+		"\u00df\5(\25\2\u00df\u00e0\5D#\2\u00e0-\3\2\2\2\u00e1\u00e2\5,\27\2\u00e2"+
+		"/\3\2\2\2\u00e3\u00e4\5\62\32\2\u00e4\u00e5\5\64\33\2\u00e5\u00f0\3\2"+
+		"\2\2\u00e6\u00e7\5\62\32\2\u00e7\u00e9\7\33\2\2\u00e8\u00ea\5\64\33\2"+
+		"\u00e9\u00e8\3\2\2\2\u00ea\u00eb\3\2\2\2\u00eb\u00e9\3\2\2\2\u00eb\u00ec"+
+		"\3\2\2\2\u00ec\u00ed\3\2\2\2\u00ed\u00ee\7\34\2\2\u00ee\u00f0\3\2\2\2"+
+		"\u00ef\u00e3\3\2\2\2\u00ef\u00e6\3\2\2\2\u00f0\61\3\2\2\2\u00f1\u00f2"+
+		"\7 \2\2\u00f2\u00f3\5Z.\2\u00f3\u00f4\7!\2\2\u00f4\u00f5\5,\27\2\u00f5"+
+		"\63\3\2\2\2\u00f6\u00fa\5\66\34\2\u00f7\u00fa\58\35\2\u00f8\u00fa\5:\36"+
+		"\2\u00f9\u00f6\3\2\2\2\u00f9\u00f7\3\2\2\2\u00f9\u00f8\3\2\2\2\u00fa\65"+
+		"\3\2\2\2\u00fb\u00fc\7\"\2\2\u00fc\u00ff\5B\"\2\u00fd\u00fe\7#\2\2\u00fe"+
+		"\u0100\5l\67\2\u00ff\u00fd\3\2\2\2\u00ff\u0100\3\2\2\2\u0100\u0103\3\2"+
+		"\2\2\u0101\u0102\7$\2\2\u0102\u0104\5p9\2\u0103\u0101\3\2\2\2\u0103\u0104"+
+		"\3\2\2\2\u0104\67\3\2\2\2\u0105\u0106\7%\2\2\u0106\u0107\7&\2\2\u0107"+
+		"\u0108\5> \2\u01089\3\2\2\2\u0109\u010a\7\'\2\2\u010a\u010b\7(\2\2\u010b"+
+		"\u010e\5<\37\2\u010c\u010d\7$\2\2\u010d\u010f\5p9\2\u010e\u010c\3\2\2"+
+		"\2\u010e\u010f\3\2\2\2\u010f;\3\2\2\2\u0110\u0111\5Z.\2\u0111\u0112\7"+
+		")\2\2\u0112\u0113\5F$\2\u0113=\3\2\2\2\u0114\u0115\5Z.\2\u0115\u0116\5"+
+		"F$\2\u0116?\3\2\2\2\u0117\u0118\7\24\2\2\u0118\u011a\5h\65\2\u0119\u0117"+
+		"\3\2\2\2\u011a\u011d\3\2\2\2\u011b\u0119\3\2\2\2\u011b\u011c\3\2\2\2\u011c"+
+		"\u0120\3\2\2\2\u011d\u011b\3\2\2\2\u011e\u011f\7\24\2\2\u011f\u0121\5"+
+		"j\66\2\u0120\u011e\3\2\2\2\u0120\u0121\3\2\2\2\u0121A\3\2\2\2\u0122\u0123"+
+		"\5Z.\2\u0123\u0124\5@!\2\u0124C\3\2\2\2\u0125\u0126\5F$\2\u0126E\3\2\2"+
+		"\2\u0127\u012a\5J&\2\u0128\u012a\5H%\2\u0129\u0127\3\2\2\2\u0129\u0128"+
+		"\3\2\2\2\u012a\u012e\3\2\2\2\u012b\u012d\5F$\2\u012c\u012b\3\2\2\2\u012d"+
+		"\u0130\3\2\2\2\u012e\u012c\3\2\2\2\u012e\u012f\3\2\2\2\u012fG\3\2\2\2"+
+		"\u0130\u012e\3\2\2\2\u0131\u0132\7\25\2\2\u0132\u0136\5\\/\2\u0133\u0135"+
+		"\5L\'\2\u0134\u0133\3\2\2\2\u0135\u0138\3\2\2\2\u0136\u0134\3\2\2\2\u0136"+
+		"\u0137\3\2\2\2\u0137I\3\2\2\2\u0138\u0136\3\2\2\2\u0139\u013a\7\24\2\2"+
+		"\u013a\u013e\5\\/\2\u013b\u013d\5L\'\2\u013c\u013b\3\2\2\2\u013d\u0140"+
+		"\3\2\2\2\u013e\u013c\3\2\2\2\u013e\u013f\3\2\2\2\u013fK\3\2\2\2\u0140"+
+		"\u013e\3\2\2\2\u0141\u0142\7\27\2\2\u0142\u0143\5P)\2\u0143\u0144\7\30"+
+		"\2\2\u0144M\3\2\2\2\u0145\u0149\5\\/\2\u0146\u0148\5L\'\2\u0147\u0146"+
+		"\3\2\2\2\u0148\u014b\3\2\2\2\u0149\u0147\3\2\2\2\u0149\u014a\3\2\2\2\u014a"+
+		"\u014d\3\2\2\2\u014b\u0149\3\2\2\2\u014c\u014e\5F$\2\u014d\u014c\3\2\2"+
+		"\2\u014d\u014e\3\2\2\2\u014eO\3\2\2\2\u014f\u0150\5N(\2\u0150\u0151\5"+
+		"X-\2\u0151\u0152\5l\67\2\u0152\u0159\3\2\2\2\u0153\u0154\5l\67\2\u0154"+
+		"\u0155\5X-\2\u0155\u0156\5N(\2\u0156\u0159\3\2\2\2\u0157\u0159\5R*\2\u0158"+
+		"\u014f\3\2\2\2\u0158\u0153\3\2\2\2\u0158\u0157\3\2\2\2\u0159Q\3\2\2\2"+
+		"\u015a\u015d\5V,\2\u015b\u015d\5T+\2\u015c\u015a\3\2\2\2\u015c\u015b\3"+
+		"\2\2\2\u015dS\3\2\2\2\u015e\u015f\7:\2\2\u015fU\3\2\2\2\u0160\u0162\7"+
+		"9\2\2\u0161\u0160\3\2\2\2\u0162\u0163\3\2\2\2\u0163\u0161\3\2\2\2\u0163"+
+		"\u0164\3\2\2\2\u0164W\3\2\2\2\u0165\u0166\t\2\2\2\u0166Y\3\2\2\2\u0167"+
+		"\u0168\7>\2\2\u0168\u0169\7?\2\2\u0169[\3\2\2\2\u016a\u0171\5h\65\2\u016b"+
+		"\u0171\5j\66\2\u016c\u0171\5d\63\2\u016d\u0171\5^\60\2\u016e\u0171\5`"+
+		"\61\2\u016f\u0171\5b\62\2\u0170\u016a\3\2\2\2\u0170\u016b\3\2\2\2\u0170"+
+		"\u016c\3\2\2\2\u0170\u016d\3\2\2\2\u0170\u016e\3\2\2\2\u0170\u016f\3\2"+
+		"\2\2\u0171]\3\2\2\2\u0172\u0173\7\66\2\2\u0173_\3\2\2\2\u0174\u0175\7"+
+		"8\2\2\u0175a\3\2\2\2\u0176\u0177\7\67\2\2\u0177c\3\2\2\2\u0178\u0179\5"+
+		"f\64\2\u0179e\3\2\2\2\u017a\u017b\7\65\2\2\u017b\u017c\7\31\2\2\u017c"+
+		"\u017d\7\32\2\2\u017dg\3\2\2\2\u017e\u017f\7?\2\2\u017f\u0181\7\22\2\2"+
+		"\u0180\u017e\3\2\2\2\u0180\u0181\3\2\2\2\u0181\u0182\3\2\2\2\u0182\u0183"+
+		"\7?\2\2\u0183i\3\2\2\2\u0184\u0188\7\23\2\2\u0185\u0186\7<\2\2\u0186\u0188"+
+		"\7;\2\2\u0187\u0184\3\2\2\2\u0187\u0185\3\2\2\2\u0188\u0189\3\2\2\2\u0189"+
+		"\u0193\7?\2\2\u018a\u018e\7\23\2\2\u018b\u018c\7<\2\2\u018c\u018e\7;\2"+
+		"\2\u018d\u018a\3\2\2\2\u018d\u018b\3\2\2\2\u018e\u018f\3\2\2\2\u018f\u0190"+
+		"\7?\2\2\u0190\u0191\7\22\2\2\u0191\u0193\7?\2\2\u0192\u0187\3\2\2\2\u0192"+
+		"\u018d\3\2\2\2\u0193k\3\2\2\2\u0194\u0197\7\20\2\2\u0195\u0197\5n8\2\u0196"+
+		"\u0194\3\2\2\2\u0196\u0195\3\2\2\2\u0197m\3\2\2\2\u0198\u0199\7>\2\2\u0199"+
+		"\u019a\7?\2\2\u019ao\3\2\2\2\u019b\u019c\7\20\2\2\u019cq\3\2\2\2\u019d"+
+		"\u019e\7\20\2\2\u019es\3\2\2\2\u019f\u01a0\7\20\2\2\u01a0u\3\2\2\2\36"+
+		"}\u0083\u00a6\u00ae\u00bc\u00eb\u00ef\u00f9\u00ff\u0103\u010e\u011b\u0120"+
+		"\u0129\u012e\u0136\u013e\u0149\u014d\u0158\u015c\u0163\u0170\u0180\u0187"+
+		"\u018d\u0192\u0196";
 	public static final ATN _ATN =
 		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
 	static {
@@ -385,6 +385,7 @@ public class TXMLEventReader extends TXmlResult implements XMLEventReader {
     @Override
     public void closeDbConnection() throws SQLException {
         free();
+        dbApi.closeStatements(connection);
         connection.close();
         
     }
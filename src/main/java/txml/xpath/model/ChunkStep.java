@@ -13,22 +13,13 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package txml.xpath.sort.model;
+package txml.xpath.model;
 
-public class LevelValue {
-    private final long to;
-    private final Integer order;
+import java.sql.SQLException;
 
-    public LevelValue(long to, Integer order) {
-        this.to = to;
-        this.order = order;
-    }
-
-    public long getTo() {
-        return to;
-    }
-
-    public Integer getOrder() {
-        return order;
-    }
+/**
+ * Step evaluated for one chunk of context nodes by parallel execution.
+ */
+interface ChunkStep {
+    TNodeList evaluate(TNodeList chunk) throws SQLException;
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.model;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Creates statement of nodes for a chunk of context node ids. Statement 
+ * returns columns of nodes and columns context_id and context_from 
+ * of their context nodes.
+ */
+interface ContextsStatement {
+    PreparedStatement prepare(List<Long> contextIds) throws SQLException;
+}
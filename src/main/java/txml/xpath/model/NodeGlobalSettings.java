@@ -29,6 +29,9 @@ public class NodeGlobalSettings {
     private final String documentName;
     private final DbApi dbApi;
     private final Boolean sort;
+    private final ThreadLocal<Connection> chunkConnection = new ThreadLocal<>();
+    private ParallelExecution parallelExecution;
+    private volatile Long documentId;
     
     public NodeGlobalSettings(Connection connection, String schemaName, String documentName, DbApi dbApi, Boolean sort) {
         this.connection = connection;
@@ -38,8 +41,33 @@ public class NodeGlobalSettings {
         this.sort = sort;
     }
 
+    /**
+     * Returns connection of chunk evaluated by current thread during 
+     * parallel execution, otherwise connection of the query.
+     */
     public Connection getConnection() {
-        return connection;
+        Connection result = chunkConnection.get();
+        return result != null ? result : connection;
+    }
+    
+    void bindChunkConnection(Connection connection) {
+        if (connection == null) {
+            chunkConnection.remove();
+        } else {
+            chunkConnection.set(connection);
+        }
+    }
+    
+    boolean isInChunk() {
+        return chunkConnection.get() != null;
+    }
+
+    public ParallelExecution getParallelExecution() {
+        return parallelExecution;
+    }
+
+    public void setParallelExecution(ParallelExecution parallelExecution) {
+        this.parallelExecution = parallelExecution;
     }
 
     public String getSchemaName() {
@@ -58,14 +86,18 @@ public class NodeGlobalSettings {
         return sort;
     }
     
+    /**
+     * Returns id of the document, it is read by the first call on connection 
+     * of the current thread and reused by next steps and chunks.
+     */
     public Long getDocumentId() throws SQLException {
-        Long documentId;
-        try (PreparedStatement preparedStatement = this.dbApi.getSelectDocumentStatement(connection, schemaName, documentName); ResultSet resultSet = preparedStatement.executeQuery()) {
-            if (!resultSet.next()) {
-                resultSet.close();
-                preparedStatement.close();
-                throw new TXmlException("Unknown document name: " + documentName);
-            }   documentId = resultSet.getLong("id");
+        if (documentId == null) {
+            try (PreparedStatement preparedStatement = this.dbApi.getSelectDocumentStatement(getConnection(), schemaName, documentName); ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new TXmlException("Unknown document name: " + documentName);
+                }
+                documentId = resultSet.getLong("id");
+            }
         }
         
         return documentId;
@@ -15,16 +15,14 @@
  */
 package txml.xpath.model;
 
-import java.util.LinkedList;
-
 public class NodeLocalSettings {
-    private LinkedList<TNode> savedNodes = new LinkedList<>();
+    private TNodeStack savedNodes = TNodeStack.EMPTY;
     
-    public LinkedList<TNode> getSavedNodes() {
+    public TNodeStack getSavedNodes() {
         return savedNodes;
     }
     
-    public void setSavedNodes(LinkedList<TNode> savedNodes) {
-        this.savedNodes = new LinkedList<>(savedNodes);
+    public void setSavedNodes(TNodeStack savedNodes) {
+        this.savedNodes = savedNodes;
     }
 }
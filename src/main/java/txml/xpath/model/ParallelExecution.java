@@ -0,0 +1,125 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.model;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+import txml.TXmlException;
+
+/**
+ * Evaluates steps of large lists of context nodes in chunks by a pool of
+ * threads. Every chunk uses its own connection from <code>dataSource</code>,
+ * which is bound to settings of nodes for the thread of the chunk, and 
+ * results of chunks are joined in order of the context nodes.
+ */
+public class ParallelExecution {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    
+    private final DataSource dataSource;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * @param dataSource source of connections of target database
+     * @param parallelism number of threads
+     * @param chunkSize minimal number of context nodes of one chunk
+     */
+    public ParallelExecution(DataSource dataSource, int parallelism, int chunkSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        
+        this.dataSource = dataSource;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * Returns true if a list of <code>contextsCount</code> nodes is split
+     * into more chunks.
+     */
+    public boolean isParallel(int contextsCount) {
+        return pool.getParallelism() > 1 && contextsCount > chunkSize;
+    }
+    
+    List<TNode> evaluate(final NodeGlobalSettings settings, List<TNode> contexts, final ChunkStep step) throws SQLException {
+        //chunks only reuse the id, they don't read it concurrently
+        settings.getDocumentId();
+        int size = Math.max(chunkSize, (contexts.size() + pool.getParallelism() - 1) / pool.getParallelism());
+        List<Future<List<TNode>>> chunks = new ArrayList<>();
+        for (int start = 0; start < contexts.size(); start += size) {
+            final List<TNode> chunk = contexts.subList(start, Math.min(start + size, contexts.size()));
+            chunks.add(pool.submit(new Callable<List<TNode>>() {
+                @Override
+                public List<TNode> call() throws SQLException {
+                    try (Connection connection = dataSource.getConnection()) {
+                        settings.bindChunkConnection(connection);
+                        try {
+                            return step.evaluate(new TNodeList(settings, new ArrayList<>(chunk))).getItems();
+                        } finally {
+                            settings.bindChunkConnection(null);
+                            settings.getDbApi().closeStatements(connection);
+                        }
+                    }
+                }
+            }));
+        }
+        
+        List<TNode> result = new ArrayList<>();
+        try {
+            for (Future<List<TNode>> chunk : chunks) {
+                result.addAll(chunk.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TXmlException(ex.getLocalizedMessage());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            } else if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new TXmlException(ex.getCause().getLocalizedMessage());
+        } finally {
+            for (Future<List<TNode>> chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Stops threads of the pool, running chunks are finished.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -24,21 +24,30 @@ public class TNamedNodeMap implements NamedNodeMap {
     
     private final List<TNode> items;
     private final NodeGlobalSettings settings;
+    private final boolean sorted;
 
     TNamedNodeMap(NodeGlobalSettings settings, List<TNode> items) {
+        this(settings, items, false);
+    }
+    
+    TNamedNodeMap(NodeGlobalSettings settings, List<TNode> items, boolean sorted) {
         this.settings = settings;
         this.items = items;
+        this.sorted = sorted;
     }
         
     @Override
     public TNamedNodeMap sort() throws SQLException {
+        if (sorted) {
+            return this;
+        }
         TNodeList tNodeList = new TNodeList(settings, items);
         tNodeList = tNodeList.sort();
         List<TNode> result = new ArrayList<>(); 
         for (int i = 0; i < tNodeList.getLength(); i++) {
             result.add(tNodeList.item(i));
         }
-        return new TNamedNodeMap(settings, result);
+        return new TNamedNodeMap(settings, result, true);
     }        
     
     @Override
@@ -17,6 +17,8 @@ package txml.xpath.model;
 
 import txml.Node;
 import txml.NamedNodeMap;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -25,59 +27,83 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 import txml.database.model.NamespaceInfo;
 import txml.TXmlException;
+import txml.load.model.XmlNode;
 import txml.load.model.XmlNodeTypeEnum;
 import txml.NodeList;
 
 public class TNode implements Node {
     private NodeGlobalSettings settings;
     private NodeLocalSettings privateSettings;
-    private Long from;
-    private Long to;
-    private Long id;
-    private Short type;
+    private long from;
+    private long to;
+    private long id;
+    private short type;
     private String value;
-    private Integer depth;
-    private Long lcp_class;
+    private int depth;
+    private long lcp_class;
     private TNode parentNode;
     private TNodeList childNodes;
     private String localPart;
     private String prefix;
     private String namespaceURI;
-    private Long namespaceId;
-    private Long parentId;
-    private Long parentFrom;
-    private Long parentTo;
+    private long namespaceId;
+    private long parentId;
+    private long parentFrom;
+    private long parentTo;
     private TNamedNodeMap attributes;
 
-    private static final int SPACE_SIZE = 2;
+    //missing values of primitive fields, nodes of XPath results always have them
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final short NULL_SHORT = Short.MIN_VALUE;
     
     public TNode(Long from, Long to, Long id, String value, Integer depth, Long lcp_class, 
             Short type, String localPart, String namespaceUri, String prefix, Long namespaceId, Long parentId, Long parentFrom, Long parentTo, NodeGlobalSettings settings) {
-        this.from = from;
-        this.to = to;
-        this.id = id;
+        this.from = unbox(from);
+        this.to = unbox(to);
+        this.id = unbox(id);
         this.value = value;
-        this.depth = depth;
-        this.lcp_class = lcp_class;
-        this.type = type;
-        this.localPart = localPart;
-        this.namespaceURI = namespaceUri;
-        this.prefix = prefix;
+        this.depth = depth == null ? NULL_INT : depth;
+        this.lcp_class = unbox(lcp_class);
+        this.type = type == null ? NULL_SHORT : type;
+        //names repeat in every node of the same class
+        this.localPart = intern(localPart);
+        this.namespaceURI = intern(namespaceUri);
+        this.prefix = intern(prefix);
         childNodes = null;
         parentNode = null;
-        this.parentId = parentId;
-        this.parentFrom = parentFrom;
-        this.parentTo = parentTo;
+        this.parentId = unbox(parentId);
+        this.parentFrom = unbox(parentFrom);
+        this.parentTo = unbox(parentTo);
         this.settings = settings;
         this.attributes = null;
-        this.privateSettings = new NodeLocalSettings();
-        this.namespaceId = namespaceId;
+        this.privateSettings = null;
+        this.namespaceId = unbox(namespaceId);
+    }
+    
+    private static long unbox(Long value) {
+        return value == null ? NULL_LONG : value;
+    }
+    
+    private static Long box(long value) {
+        return value == NULL_LONG ? null : value;
+    }
+    
+    private static String intern(String name) {
+        return name == null ? null : name.intern();
     }
 
     public TNode(Long from, Long to, Long id, String value, Integer depth, Long lcp_class, 
@@ -97,17 +123,16 @@ public class TNode implements Node {
         this(from, to, id, value, depth, lcp_class, type, localPart, namespaceUri, prefix, namespaceId, parentId, parentFrom, parentTo, settings);
         this.childNodes = childNodes;
         this.parentNode = parentNode;
-        this.parentId = parentId;
     }
 
     @Override
     public Long getParentId() {
-        return parentId;
+        return box(parentId);
     }
     
     @Override
     public void refresh() {
-        if (!this.to.equals(this.settings.getDbApi().getNOW())) {
+        if (this.to != this.settings.getDbApi().getNOW()) {
             return;
         } else {
             this.parentNode = null;
@@ -215,7 +240,7 @@ public class TNode implements Node {
 
     @Override
     public Integer getDepth() {
-        return depth;
+        return depth == NULL_INT ? null : depth;
     }
     
     @Override
@@ -230,22 +255,22 @@ public class TNode implements Node {
     
     @Override
     public Long getFromAsLong() {
-        return from;
+        return box(from);
     }
     
     @Override
     public Long getToAsLong() {
-        return to;
+        return box(to);
     }
 
     @Override
     public Long getParentFromAsLong() {
-        return parentFrom;
+        return box(parentFrom);
     }
 
     @Override
     public Long getParentToAsLong() {
-        return parentTo;
+        return box(parentTo);
     }
     
     @Override
@@ -280,20 +305,20 @@ public class TNode implements Node {
 
     @Override
     public Long getId() {
-        return id;
+        return box(id);
     }
     
+    /**
+     * Tests ancestry by ancestor path of <code>descendant</code>, which 
+     * contains id of this node, and by intervals of both versions.
+     */
     public boolean hasDescendant(TNode descendant) throws SQLException {
-        List<TNode> thisNodeInList = new ArrayList<>();
-        thisNodeInList.add(this);
-        TNodeList tNodeList = new TNodeList(descendant.getSettings(), thisNodeInList);
-        TNodeList resultList = tNodeList.getDescendantsByTypeAndLabel(descendant.getNodeName(), descendant.type);
-        for (int i = 0; i < resultList.getLength(); i++) {
-            if (resultList.item(i).equals(descendant)) {
-                return true;
-            } 
+        if (descendant.getId().equals(this.getId()) || descendant.getFromAsLong() < this.getFromAsLong() || descendant.getToAsLong() > this.getToAsLong()) {
+            return false;
         }
-        return false;
+        
+        String path = settings.getDbApi().getNodePath(settings.getConnection(), settings.getSchemaName(), descendant.getId(), descendant.getFromAsLong(), descendant.getToAsLong());
+        return path != null && path.contains("/" + this.getId() + "/");
     }
     
     @Override
@@ -421,7 +446,7 @@ public class TNode implements Node {
         Collections.sort(subtree, new Comparator<Pair<TNode, TNode>>(){
             @Override
             public int compare(Pair<TNode, TNode> o1, Pair<TNode, TNode> o2) {
-                return o1.getSecond().depth.compareTo(o2.getSecond().depth);
+                return Integer.compare(o1.getSecond().depth, o2.getSecond().depth);
             }
         });
         
@@ -642,15 +667,8 @@ public class TNode implements Node {
     }
     
     private void insertIntoDocument(List<String> path, TNode parent, String value, int pos, Long documentId, Integer position) throws SQLException {
-        PreparedStatement preparedStatement;
-        ResultSet resultSet;
         String newLabel = path.get(pos);
-        int newDepth = parent.depth + 1;
-        Long parentLcpClass = parent.lcp_class;
         short newType;
-        Long newLcpClass = null;
-        Long newCpClass = null;
-        Long newParentCpClass = null;
         
         //type attribute vs element
         if (newLabel.contains("@")) {
@@ -664,78 +682,7 @@ public class TNode implements Node {
         }
         
         NamespaceInfo namespaceInfo = this.settings.getDbApi().getNamespaceInfoFromPrefix(this.settings.getConnection(), this.settings.getSchemaName(), newLabel, documentId, newType);
- 
-        //get LCP CLASS
-        preparedStatement = settings.getDbApi().getLCPClassWithoutId(settings.getConnection(), settings.getSchemaName(), namespaceInfo.getLocalPart(), namespaceInfo.getId(), newDepth, parentLcpClass, newType);
-        resultSet = preparedStatement.executeQuery();
-        if (!resultSet.next()) {
-            preparedStatement.close();
-            resultSet.close();
-
-            newLcpClass = settings.getDbApi().getNextValLCPClassIdSequence(settings.getConnection(), settings.getSchemaName());
-            settings.getDbApi().insertLCPClassTableStatement(settings.getConnection(), settings.getSchemaName(), newLcpClass, newType, namespaceInfo.getLocalPart(), namespaceInfo.getId(), newDepth, parentLcpClass , documentId);
-        } else {
-            newLcpClass = resultSet.getLong("id");
-            resultSet.close();
-            preparedStatement.close();
-        }
-        
-        //get CP CLASS
-        preparedStatement = settings.getDbApi().getCPClassWithoutId(settings.getConnection(), settings.getSchemaName(), newDepth, documentId);
-        resultSet = preparedStatement.executeQuery();
-        
-        if (!resultSet.next()) {
-            preparedStatement.close();
-            resultSet.close();
-            preparedStatement = settings.getDbApi().getCPClassWithoutId(settings.getConnection(), settings.getSchemaName(), newDepth - 1, documentId);
-            resultSet = preparedStatement.executeQuery();
-            
-            if (resultSet.next()) {
-                newParentCpClass = resultSet.getLong("id");
-                resultSet.close();
-                preparedStatement.close();
-                newCpClass = settings.getDbApi().getNextValCPClassIdSequence(settings.getConnection(), settings.getSchemaName());
-                settings.getDbApi().insertCPClassTableStatement(settings.getConnection(), settings.getSchemaName(), newCpClass, newDepth, newParentCpClass, documentId);
-            } else {
-                resultSet.close();
-                preparedStatement.close();
-                throw new TXmlException("missing parent cp class record");
-            }
-
-        } else {
-            newCpClass = resultSet.getLong("id");
-            resultSet.close();
-            preparedStatement.close();
-        }
-        
-        //get CP
-        Object[] newValidObjectArray; //valid without new node
-        preparedStatement = settings.getDbApi().getCPWithoutId(settings.getConnection(), settings.getSchemaName(), settings.getDbApi().getNOW(), newCpClass);
-        resultSet = preparedStatement.executeQuery();
-        if (resultSet.next()) {
-            Long cpFrom = resultSet.getLong("from");
-            newValidObjectArray = (Object[])resultSet.getArray("valid").getArray();           
-            if (!cpFrom.equals(settings.getDbApi().getCurrTimeAsLong())) {//bad from
-                settings.getDbApi().splitCpInterval(settings.getConnection(), settings.getSchemaName(), cpFrom, settings.getDbApi().getNOW(), newCpClass, settings.getDbApi().getCurrTimeAsLong(), newValidObjectArray);
-            }
-            
-        } else {
-            resultSet.close();
-            preparedStatement.close();
-            newValidObjectArray = new Object[0];
-            settings.getDbApi().getInsertCPTableStatement(settings.getConnection(), settings.getSchemaName(), settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), newCpClass, newValidObjectArray);
-        }
-        
-        //insert node into CP table
-        Long newNodeId = settings.getDbApi().getNextValNodeIdSequence(settings.getConnection(), settings.getSchemaName());        
-        settings.getDbApi().insertNodeInValidInPos(settings.getConnection(), settings.getSchemaName(), settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), newCpClass, newValidObjectArray, newNodeId, parent.getId(), parent.getFromAsLong(), parent.getToAsLong(), position, newType, settings.getDbApi().getNOW(), documentId, newDepth);
-
-        //insert node into LCP table
-        settings.getDbApi().insertLCPTable(settings.getConnection(), settings.getSchemaName(), newNodeId, settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), parent.getId(), parent.getFromAsLong(), parent.getToAsLong(), null,  newLcpClass);
-        
-        
-        TNode thisNode = new TNode(settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), newNodeId, null, newDepth, newLcpClass, 
-            newType, namespaceInfo.getLocalPart(), namespaceInfo.getUri(), namespaceInfo.getPrefix(), namespaceInfo.getId(), parent.getId(), parent.from, parent.to, parent, settings);
+        TNode thisNode = insertNodeIntoDocument(parent, newType, namespaceInfo, null, documentId, position);
         
         if (path.size() > (pos + 1)) {
             insertIntoDocument(path, thisNode, value, pos + 1, documentId, -1);
@@ -746,7 +693,29 @@ public class TNode implements Node {
         }
     }
 
+    boolean isChildrenLoaded() {
+        return childNodes != null && attributes != null;
+    }
+    
+    void setChildren(TNodeList childNodes, TNamedNodeMap attributes) {
+        this.childNodes = childNodes;
+        this.attributes = attributes;
+    }
+    
+    /**
+     * Drops loaded child nodes and attributes, they are read again when
+     * they are needed.
+     */
+    void releaseChildren() {
+        this.childNodes = null;
+        this.attributes = null;
+    }
+
     public NodeLocalSettings getLocalSettings() {
+        if (privateSettings == null) {
+            //most nodes never save start nodes of predicates
+            privateSettings = new NodeLocalSettings();
+        }
         return privateSettings;
     }
 
@@ -754,19 +723,31 @@ public class TNode implements Node {
         this.privateSettings = localSettings;
     }
     
+    /**
+     * Shares saved start nodes of <code>context</code> with this node.
+     */
+    public void setSavedNodesOf(TNode context) {
+        if (context.privateSettings != null && !context.privateSettings.getSavedNodes().isEmpty()) {
+            getLocalSettings().setSavedNodes(context.privateSettings.getSavedNodes());
+        } else if (privateSettings != null) {
+            privateSettings.setSavedNodes(TNodeStack.EMPTY);
+        }
+    }
+    
     private void insertIntoDocumentValue(TNode parent, String value, Long documentId, Integer position) throws SQLException {
+        NamespaceInfo namespaceInfo = this.settings.getDbApi().getNamespaceInfoFromPrefix(this.settings.getConnection(), this.settings.getSchemaName(), "value", this.settings.getDocumentId(), XmlNodeTypeEnum.TEXT.getShortValue());
+        insertNodeIntoDocument(parent, XmlNodeTypeEnum.TEXT.getShortValue(), namespaceInfo, value, documentId, position);
+    }
+    
+    private TNode insertNodeIntoDocument(TNode parent, short newType, NamespaceInfo namespaceInfo, String value, Long documentId, Integer position) throws SQLException {
         PreparedStatement preparedStatement;
         ResultSet resultSet;
         int newDepth = parent.depth + 1;
         Long parentLcpClass = parent.lcp_class;
-        short newType;
         Long newLcpClass = null;
         Long newCpClass = null;
         Long newParentCpClass = null;
         
-        newType = XmlNodeTypeEnum.TEXT.getShortValue();
-        NamespaceInfo namespaceInfo = this.settings.getDbApi().getNamespaceInfoFromPrefix(this.settings.getConnection(), this.settings.getSchemaName(), "value", this.settings.getDocumentId(), newType);
-
         //get LCP CLASS
         preparedStatement = settings.getDbApi().getLCPClassWithoutId(settings.getConnection(), settings.getSchemaName(), namespaceInfo.getLocalPart(), namespaceInfo.getId(), newDepth, parentLcpClass, newType);
         resultSet = preparedStatement.executeQuery();
@@ -829,13 +810,268 @@ public class TNode implements Node {
         }
         
         //insert node into CP table
-        Long newNodeId = settings.getDbApi().getNextValNodeIdSequence(settings.getConnection(), settings.getSchemaName());
+        Long newNodeId = settings.getDbApi().getNextValNodeIdSequence(settings.getConnection(), settings.getSchemaName());        
         settings.getDbApi().insertNodeInValidInPos(settings.getConnection(), settings.getSchemaName(), settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), newCpClass, newValidObjectArray, newNodeId, parent.getId(), parent.getFromAsLong(), parent.getToAsLong(), position, newType, settings.getDbApi().getNOW(), documentId, newDepth);
-        
+
+        //insert node into LCP table
         settings.getDbApi().insertLCPTable(settings.getConnection(), settings.getSchemaName(), newNodeId, settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), parent.getId(), parent.getFromAsLong(), parent.getToAsLong(), value,  newLcpClass);
         
+        
+        return new TNode(settings.getDbApi().getCurrTimeAsLong(), settings.getDbApi().getNOW(), newNodeId, value, newDepth, newLcpClass, 
+            newType, namespaceInfo.getLocalPart(), namespaceInfo.getUri(), namespaceInfo.getPrefix(), namespaceInfo.getId(), parent.getId(), parent.from, parent.to, parent, settings);
     }
-    
+
+    /**
+     * Inserts the whole subtree of <code>node</code> under <code>parent</code>.
+     */
+    private void insertIntoDocument(TNode parent, XmlNode node, Long documentId, Integer position) throws SQLException {
+        QName name = node.getName();
+        NamespaceInfo namespaceInfo = settings.getDbApi().getNamespaceInfo(settings.getConnection(), settings.getSchemaName(), name.getNamespaceURI(), name.getPrefix(), name.getLocalPart(), documentId);
+        TNode thisNode = insertNodeIntoDocument(parent, node.getType().getShortValue(), namespaceInfo, node.getValue(), documentId, position);
+        for (XmlNode child : node.getChildren()) {
+            insertIntoDocument(thisNode, child, documentId, -1);
+        }
+    }
+
+    /**
+     * Changes the subtree of this node to the subtree of <code>node</code>.
+     * Only nodes which differ are closed or inserted, unchanged nodes keep
+     * their history. Equal subtrees are matched first, remaining nodes are 
+     * matched by type and name, text nodes also by value.
+     */
+    public void updateInDocument(boolean refreshCurrTime, XmlNode node) throws SQLException {
+        if (refreshCurrTime) {
+            settings.getDbApi().refreshCurrentTime();
+        }
+
+        if (this.to < settings.getDbApi().getCurrTimeAsLong())
+            return;
+
+        if (!getNodeKey(this).equals(getNodeKey(node))) {
+            throw new TXmlException("Node '" + getNodeName() + "' can't be changed to node '" + node.getName().getLocalPart() + "'");
+        }
+
+        TNodeList.loadSubtrees(settings, Collections.<TNode>singletonList(this), false);
+        updateChildrenInDocument(node, settings.getDocumentId(), new IdentityHashMap<Object, Long>());
+    }
+
+    private void updateChildrenInDocument(XmlNode node, Long documentId, Map<Object, Long> subtreeHashes) throws SQLException {
+        List<XmlNode> newAttributes = new ArrayList<>();
+        List<XmlNode> newContent = new ArrayList<>();
+        splitChildren(node, newAttributes, newContent);
+
+        updateChildrenInDocument(getValidAttributes(), newAttributes, false, documentId, subtreeHashes);
+        updateChildrenInDocument(getValidChildNodes(), newContent, true, documentId, subtreeHashes);
+    }
+
+    private void updateChildrenInDocument(List<TNode> oldNodes, List<XmlNode> newNodes, boolean ordered, Long documentId, Map<Object, Long> subtreeHashes) throws SQLException {
+        int[] matches = new int[newNodes.size()];
+        Arrays.fill(matches, -1);
+        boolean[] matched = new boolean[oldNodes.size()];
+
+        //equal subtrees
+        Map<Long, LinkedList<Integer>> oldByHash = new HashMap<>();
+        for (int i = 0; i < oldNodes.size(); i++) {
+            Long hash = getSubtreeHash(oldNodes.get(i), subtreeHashes);
+            if (!oldByHash.containsKey(hash)) {
+                oldByHash.put(hash, new LinkedList<Integer>());
+            }
+            oldByHash.get(hash).add(i);
+        }
+
+        boolean[] equal = new boolean[newNodes.size()];
+        int lastMatched = -1;
+        for (int i = 0; i < newNodes.size(); i++) {
+            LinkedList<Integer> candidates = oldByHash.get(getSubtreeHash(newNodes.get(i), subtreeHashes));
+            while (ordered && candidates != null && !candidates.isEmpty() && candidates.getFirst() < lastMatched) {
+                candidates.removeFirst();
+            }
+
+            //equal hashes only select candidates, subtrees are compared
+            for (Iterator<Integer> it = candidates == null ? null : candidates.iterator(); it != null && it.hasNext(); ) {
+                int candidate = it.next();
+                if (isEqualSubtree(oldNodes.get(candidate), newNodes.get(i), subtreeHashes)) {
+                    it.remove();
+                    lastMatched = candidate;
+                    matches[i] = candidate;
+                    matched[candidate] = true;
+                    equal[i] = true;
+                    break;
+                }
+            }
+        }
+
+        //same nodes with changed subtree, between equal subtrees when order matters
+        lastMatched = -1;
+        for (int i = 0; i < newNodes.size(); i++) {
+            if (matches[i] >= 0) {
+                lastMatched = matches[i];
+                continue;
+            }
+
+            int nextMatched = oldNodes.size();
+            for (int j = i + 1; ordered && j < newNodes.size(); j++) {
+                if (matches[j] >= 0) {
+                    nextMatched = matches[j];
+                    break;
+                }
+            }
+
+            List<Object> key = getNodeKey(newNodes.get(i));
+            for (int j = ordered ? lastMatched + 1 : 0; j < nextMatched; j++) {
+                if (!matched[j] && getNodeKey(oldNodes.get(j)).equals(key)) {
+                    matches[i] = j;
+                    matched[j] = true;
+                    lastMatched = ordered ? j : lastMatched;
+                    break;
+                }
+            }
+        }
+
+        for (int i = 0; i < oldNodes.size(); i++) {
+            if (!matched[i]) {
+                oldNodes.get(i).deleteInDocument(false);
+            }
+        }
+
+        for (int i = 0; i < newNodes.size(); i++) {
+            if (matches[i] >= 0) {
+                TNode oldNode = oldNodes.get(matches[i]);
+                if (!equal[i] && !isEqualSubtree(oldNode, newNodes.get(i), subtreeHashes)) {
+                    oldNode.updateChildrenInDocument(newNodes.get(i), documentId, subtreeHashes);
+                }
+            } else {
+                insertIntoDocument(this, newNodes.get(i), documentId, ordered ? i + 1 : -1);
+            }
+        }
+    }
+
+    /**
+     * Returns true if stored subtree of <code>oldNode</code> has the same 
+     * labels, values, attributes and child nodes as <code>newNode</code>, 
+     * hashes of subtrees only reject different subtrees early.
+     */
+    private boolean isEqualSubtree(TNode oldNode, XmlNode newNode, Map<Object, Long> subtreeHashes) throws SQLException {
+        if (!getSubtreeHash(oldNode, subtreeHashes).equals(getSubtreeHash(newNode, subtreeHashes)) || !getNodeKey(oldNode).equals(getNodeKey(newNode))) {
+            return false;
+        }
+
+        List<XmlNode> newAttributes = new ArrayList<>();
+        List<XmlNode> newContent = new ArrayList<>();
+        splitChildren(newNode, newAttributes, newContent);
+        List<TNode> oldAttributes = new LinkedList<>(oldNode.getValidAttributes());
+        List<TNode> oldContent = oldNode.getValidChildNodes();
+        if (oldAttributes.size() != newAttributes.size() || oldContent.size() != newContent.size()) {
+            return false;
+        }
+
+        for (XmlNode attribute : newAttributes) {
+            boolean found = false;
+            for (Iterator<TNode> it = oldAttributes.iterator(); it.hasNext() && !found; ) {
+                if (isEqualSubtree(it.next(), attribute, subtreeHashes)) {
+                    it.remove();
+                    found = true;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < newContent.size(); i++) {
+            if (!isEqualSubtree(oldContent.get(i), newContent.get(i), subtreeHashes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Long getSubtreeHash(TNode node, Map<Object, Long> subtreeHashes) throws SQLException {
+        Long hash = subtreeHashes.get(node);
+        if (hash == null) {
+            hash = (long) getNodeKey(node).hashCode();
+            long attributesHash = 0;
+            for (TNode attribute : node.getValidAttributes()) {
+                attributesHash += getSubtreeHash(attribute, subtreeHashes);
+            }
+            hash = hash * 31 + attributesHash;
+            for (TNode child : node.getValidChildNodes()) {
+                hash = hash * 1000003 + getSubtreeHash(child, subtreeHashes);
+            }
+            subtreeHashes.put(node, hash);
+        }
+
+        return hash;
+    }
+
+    private static Long getSubtreeHash(XmlNode node, Map<Object, Long> subtreeHashes) {
+        Long hash = subtreeHashes.get(node);
+        if (hash == null) {
+            List<XmlNode> attributes = new ArrayList<>();
+            List<XmlNode> content = new ArrayList<>();
+            splitChildren(node, attributes, content);
+
+            hash = (long) getNodeKey(node).hashCode();
+            long attributesHash = 0;
+            for (XmlNode attribute : attributes) {
+                attributesHash += getSubtreeHash(attribute, subtreeHashes);
+            }
+            hash = hash * 31 + attributesHash;
+            for (XmlNode child : content) {
+                hash = hash * 1000003 + getSubtreeHash(child, subtreeHashes);
+            }
+            subtreeHashes.put(node, hash);
+        }
+
+        return hash;
+    }
+
+    private static void splitChildren(XmlNode node, List<XmlNode> attributes, List<XmlNode> content) {
+        for (XmlNode child : node.getChildren()) {
+            if (child.getType() == XmlNodeTypeEnum.ATTRIBUTE) {
+                attributes.add(child);
+            } else {
+                content.add(child);
+            }
+        }
+    }
+
+    private List<TNode> getValidAttributes() {
+        List<TNode> result = new ArrayList<>();
+        TNamedNodeMap tNamedNodeMap = this.getAttributes();
+        for (int i = 0; i < tNamedNodeMap.getLength(); i++) {
+            result.add(tNamedNodeMap.item(i));
+        }
+
+        return getValidNodes(result);
+    }
+
+    private List<TNode> getValidChildNodes() throws SQLException {
+        return getValidNodes(this.getChildNodes().sort().getItems());
+    }
+
+    private List<TNode> getValidNodes(List<TNode> nodes) {
+        List<TNode> result = new ArrayList<>();
+        for (TNode node : nodes) {
+            if (node.to >= settings.getDbApi().getCurrTimeAsLong()) {
+                result.add(node);
+            }
+        }
+
+        return result;
+    }
+
+    private static List<Object> getNodeKey(TNode node) {
+        return Arrays.<Object>asList(node.type, Objects.toString(node.namespaceURI, ""), Objects.toString(node.prefix, ""), node.localPart,
+                node.type == XmlNodeTypeEnum.TEXT.getShortValue() ? node.value : null);
+    }
+
+    private static List<Object> getNodeKey(XmlNode node) {
+        short nodeType = node.getType().getShortValue();
+        return Arrays.<Object>asList(nodeType, node.getName().getNamespaceURI(), node.getName().getPrefix(), node.getName().getLocalPart(),
+                nodeType == XmlNodeTypeEnum.TEXT.getShortValue() ? node.getValue() : null);
+    }
+
     @Override 
     public boolean equals(Object aThat) { 
         if ( this == aThat ) return true;
@@ -843,20 +1079,21 @@ public class TNode implements Node {
         if ( !(aThat instanceof TNode) ) return false;
 
         TNode that = (TNode)aThat;
-        return that.id.equals(this.id) &&
-                that.from.equals(this.from) &&
-                that.to.equals(this.to);
+        return that.id == this.id &&
+                that.from == this.from &&
+                that.to == this.to;
     }
 
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 13 * hash + Objects.hashCode(this.id);
+        hash = 13 * hash + (int) (this.id ^ (this.id >>> 32));
         return hash;
     }
     
     @Override
     public void closeDbConnection() throws SQLException {
+        this.settings.getDbApi().closeStatements(this.settings.getConnection());
         this.settings.getConnection().close();
     }
 
@@ -866,7 +1103,13 @@ public class TNode implements Node {
     
     @Override
     public String getTree(boolean sort) throws SQLException, TXmlException {
-        return getTree(this, null, sort);
+        StringWriter result = new StringWriter();
+        try {
+            new TreeWriter(result, sort).writeTree(this);
+        } catch (IOException | XMLStreamException ex) {
+            throw new TXmlException(ex.getLocalizedMessage());
+        }
+        return result.toString();
     }
     
     public static String getTree(Node node, Node parent, boolean sort) throws SQLException {
@@ -874,184 +1117,11 @@ public class TNode implements Node {
     }
     
     public static String getTree(Node node, Node parent, int spaceSize, boolean sort) throws SQLException {
-        StringBuilder spaces = new StringBuilder();
-        for (int i = 0; i < spaceSize; i++) {
-            spaces.append(" ");
-        }
-        
-        StringBuilder spacesDiff = new StringBuilder();
-        for (int i = 0; i < SPACE_SIZE; i++) {
-            spacesDiff.append(" ");
-        }
-        
-        StringBuilder result = new StringBuilder();
-        if (node.getNodeType() == Node.ELEMENT_NODE   
-           ) {
-            result.append(spaces)
-                    .append("<")
-                    .append(node.getNodeName());
-            
-            NamedNodeMap namedNodeMap = node.getAttributes();
-            
-            if (sort) {
-                namedNodeMap = namedNodeMap.sort();
-            }
-            
-            boolean attributeFullPrint = false;
-                
-            for (int i = 0; i < namedNodeMap.getLength(); i++) {
-                Node attributeNode = namedNodeMap.item(i);
-                if (!node.getFromAsLong().equals(attributeNode.getFromAsLong()) ||
-                    !node.getToAsLong().equals(attributeNode.getToAsLong()) ||
-                    attributeNode.getChildNodes().getLength() != 1 ||
-                    !node.getFromAsLong().equals(attributeNode.getChildNodes().item(0).getFromAsLong()) ||
-                    !node.getToAsLong().equals(attributeNode.getChildNodes().item(0).getToAsLong())
-                   ) 
-                {
-                    attributeFullPrint = true;
-                    break;
-                }
-            }
-            
-            if (namedNodeMap != null && !attributeFullPrint) {
-                for (int i = 0; i < namedNodeMap.getLength(); i++) {
-                    Node attributeNode = namedNodeMap.item(i);
-                    if (
-                            attributeNode.getChildNodes().getLength() == 1 && 
-                            attributeNode.getChildNodes().item(0).getNodeValue() != null
-                       ) {
-                    }
-                    result.append(" ")
-                          .append(attributeNode.getNodeName())
-                          .append("=\"")
-                          .append(attributeNode.getChildNodes().item(0).getNodeValue())
-                          .append("\"");
-                }
-            }
-                
-            if (parent == null || 
-                !parent.getFromAsLong().equals(node.getFromAsLong()) ||
-                !parent.getToAsLong().equals(node.getToAsLong())
-               ) 
-            {
-                result.append(" ")
-                      .append("txml:from=\"")
-                      .append(node.getFromAsString())
-                      .append("\" txml:to=\"")
-                      .append(node.getToAsString())
-                      .append("\"");
-                result.append(" txml:id=\"")
-                      .append(node.getId());
-                result.append("\"");
-            }
-            
-            result.append(">\n");
-            if (attributeFullPrint && namedNodeMap.getLength() != 0) {
-                for (int i = 0; i < namedNodeMap.getLength(); i++) {
-                    result.append(getTree(namedNodeMap.item(i), node, spaceSize + SPACE_SIZE, sort));
-                }
-            }
-            result.append(TNodeList.getTrees(node.getChildNodes(), node, spaceSize + SPACE_SIZE, sort));
-            result.append(spaces).append("</").append(node.getNodeName()).append(">\n");
-        } else if (node.getNodeType() == XmlNodeTypeEnum.TEXT.getShortValue()) {
-            if (node.getNodeValue() != null) {
-                String val = node.getNodeValue().trim();
-                if (!val.isEmpty()) {
-                    boolean valueFullPrint = false;
-
-                    if (parent == null || 
-                        !parent.getFromAsLong().equals(node.getFromAsLong()) ||
-                        !parent.getToAsLong().equals(node.getToAsLong())
-                       ) 
-                    {
-                        result
-                            .append(spaces)
-                            .append("<txml:text");
-                            result.append(" ")
-                                  .append("txml:from=\"")
-                                  .append(node.getFromAsString())
-                                  .append("\" txml:to=\"")
-                                  .append(node.getToAsString())
-                                  .append("\" txml:id=\"")
-                                  .append(node.getId())
-                                  .append("\"");
-                        result        
-                            .append(">\n")    
-                            .append(spaces)
-                            .append(spacesDiff)
-                            .append(val)
-                            .append("\n")    
-                            .append(spaces)
-                            .append("</txml:text>\n"); 
-                        valueFullPrint = true;
-                    }
-
-                    
-                    if (!valueFullPrint) {
-                        result           
-                            .append(spaces)
-                            .append(val)
-                            .append("\n"); 
-                    }
-                }
-            }
-        } else if (node.getNodeType() == Node.ATTRIBUTE_NODE ||
-                   node.getNodeType() == Node.TXML_ATTRIBUTE_NODE
-                ) {
-            NodeList valueNodeList = node.getChildNodes();
-            if (valueNodeList.getLength() > 0) {
-                for (int i = 0; i < valueNodeList.getLength(); i++) {
-                    result
-                        .append(spaces).append("<txml:attribute name=\"").append(node.getNodeName()).append("\" value=\"")
-                        .append(valueNodeList.item(i).getNodeValue())
-                        .append("\"");
-
-                    if (parent == null || 
-                        !parent.getFromAsLong().equals(valueNodeList.item(i).getFromAsLong()) ||
-                        !parent.getToAsLong().equals(valueNodeList.item(i).getToAsLong())
-                       ) 
-                    {
-                        result.append(" ")
-                              .append("txml:from=\"")
-                              .append(valueNodeList.item(i).getFromAsString())
-                              .append("\" txml:to=\"")
-                              .append(valueNodeList.item(i).getToAsString())
-                              .append("\"");
-
-                        if (node.getNodeType() != XmlNodeTypeEnum.TXML_ATTRIBUTE.getShortValue()) { 
-                            result.append(" txml:id=\"")
-                                  .append(node.getId());
-                            result.append("\"");
-                        }
-
-                    }
-                    result.append("/>\n");
-                }
-            } else {
-                result
-                    .append(spaces).append("<txml:attribute name=\"").append(node.getNodeName()).append("\" value=\"")
-                    .append("\"");
-
-                if (parent == null || 
-                    !parent.getFromAsLong().equals(node.getFromAsLong()) ||
-                    !parent.getToAsLong().equals(node.getToAsLong())
-                   ) 
-                {
-                    result.append(" ")
-                          .append("txml:from=\"")
-                          .append(node.getFromAsString())
-                          .append("\" txml:to=\"")
-                          .append(node.getToAsString())
-                          .append("\"");
-
-                    if (node.getNodeType() != XmlNodeTypeEnum.TXML_ATTRIBUTE.getShortValue()) { 
-                        result.append(" txml:id=\"")
-                              .append(node.getId());
-                        result.append("\"");
-                    }
-                }
-                result.append("/>\n");
-            }
+        StringWriter result = new StringWriter();
+        try {
+            new TreeWriter(result, sort).writeNode(node, parent, spaceSize);
+        } catch (IOException | XMLStreamException ex) {
+            throw new TXmlException(ex.getLocalizedMessage());
         }
         return result.toString();
     }
@@ -1116,7 +1186,7 @@ public class TNode implements Node {
                     this.to,
                     settings
                     );  
-                    tNode.getLocalSettings().setSavedNodes(this.getLocalSettings().getSavedNodes());
+                    tNode.setSavedNodesOf(this);
                     childNodesList.add(tNode);
                 }
                 this.childNodes = new TNodeList(settings, childNodesList);
@@ -1198,7 +1268,7 @@ public class TNode implements Node {
                     this.to,
                     settings
                     );  
-                    tNode.getLocalSettings().setSavedNodes(this.getLocalSettings().getSavedNodes());
+                    tNode.setSavedNodesOf(this);
                     attributesList.add(tNode);
                 }
                 this.attributes = new TNamedNodeMap(settings, attributesList);
@@ -1226,7 +1296,7 @@ public class TNode implements Node {
     }
 
     public Long getNamespaceId() {
-        return namespaceId;
+        return box(namespaceId);
     }
 
     @Override
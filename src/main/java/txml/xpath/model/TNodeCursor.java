@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import txml.NodeCursor;
+import txml.TXmlException;
+import txml.database.DbApi;
+
+/**
+ * Cursor of nodes found below context nodes. Context ids are queried 
+ * in chunks and nodes are created from rows only when they are requested, 
+ * so at most one chunk of rows is open at a time.
+ */
+public class TNodeCursor implements NodeCursor {
+    private final NodeGlobalSettings settings;
+    private final Deque<TNode> pending;
+    private final Map<Long, List<TNode>> contextsById;
+    private final List<Long> contextIds;
+    private final ContextsStatement contextsStatement;
+    private final int fetchSize;
+    private int nextChunk = 0;
+    private PreparedStatement preparedStatement = null;
+    private ResultSet resultSet = null;
+
+    /**
+     * Creates cursor of materialized nodes.
+     */
+    public TNodeCursor(NodeGlobalSettings settings, List<TNode> items) {
+        this(settings, items, new ArrayList<TNode>(), null, 0);
+    }
+    
+    /**
+     * Creates cursor which returns <code>items</code> first and then nodes 
+     * of <code>contextsStatement</code>, rows are fetched by 
+     * <code>fetchSize</code> if it is positive.
+     */
+    TNodeCursor(NodeGlobalSettings settings, List<TNode> items, List<TNode> contexts, ContextsStatement contextsStatement, int fetchSize) {
+        this.settings = settings;
+        this.pending = new ArrayDeque<>(items);
+        this.contextsById = new LinkedHashMap<>();
+        for (TNode context : contexts) {
+            if (!contextsById.containsKey(context.getId())) {
+                contextsById.put(context.getId(), new ArrayList<TNode>());
+            }
+            contextsById.get(context.getId()).add(context);
+        }
+        this.contextIds = new ArrayList<>(contextsById.keySet());
+        this.contextsStatement = contextsStatement;
+        this.fetchSize = fetchSize;
+    }
+    
+    @Override
+    public boolean hasNext() throws SQLException {
+        while (pending.isEmpty()) {
+            if (resultSet == null && !openNextChunk()) {
+                return false;
+            }
+            
+            if (resultSet.next()) {
+                readRow();
+            } else {
+                closeChunk();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public TNode next() throws SQLException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pending.poll();
+    }
+    
+    /**
+     * Returns all remaining nodes and closes the cursor.
+     */
+    public List<TNode> readAll() throws SQLException {
+        List<TNode> result = new ArrayList<>();
+        try {
+            while (hasNext()) {
+                result.add(pending.poll());
+            }
+        } finally {
+            close();
+        }
+        return result;
+    }
+    
+    private boolean openNextChunk() throws SQLException {
+        if (contextsStatement == null || nextChunk >= contextIds.size()) {
+            return false;
+        }
+        
+        List<Long> chunk = contextIds.subList(nextChunk, Math.min(nextChunk + DbApi.PARENTS_CHUNK_SIZE, contextIds.size()));
+        nextChunk += chunk.size();
+        preparedStatement = contextsStatement.prepare(chunk);
+        if (fetchSize > 0) {
+            preparedStatement.setFetchSize(fetchSize);
+        }
+        resultSet = preparedStatement.executeQuery();
+        return true;
+    }
+    
+    private void readRow() throws SQLException {
+        Long contextFrom = resultSet.getLong("context_from");
+        for (TNode context : contextsById.get(resultSet.getLong("context_id"))) {
+            if (context.getFromAsLong().equals(contextFrom)) {
+                TNode tNode = new TNode(
+                    resultSet.getLong("from"), 
+                    resultSet.getLong("to"), 
+                    resultSet.getLong("id"), 
+                    resultSet.getString("value"), 
+                    resultSet.getInt("depth"), 
+                    resultSet.getLong("lcp_class"),
+                    resultSet.getShort("type"),
+                    resultSet.getString("local_part"),
+                    resultSet.getString("uri"),
+                    resultSet.getString("prefix"),
+                    resultSet.getLong("namespace_id"),
+                    resultSet.getLong("parentId"),
+                    resultSet.getLong("parentFrom"),
+                    resultSet.getLong("parentTo"),
+                    settings);  
+                tNode.setSavedNodesOf(context);
+                pending.add(tNode);
+            }
+        }
+    }
+    
+    private void closeChunk() throws SQLException {
+        try {
+            resultSet.close();
+        } finally {
+            resultSet = null;
+            if (fetchSize > 0) {
+                //statement may be reused by other queries
+                preparedStatement.setFetchSize(0);
+            }
+            preparedStatement.close();
+            preparedStatement = null;
+        }
+    }
+    
+    @Override
+    public void close() throws SQLException {
+        pending.clear();
+        nextChunk = contextIds.size();
+        if (resultSet != null) {
+            closeChunk();
+        }
+    }
+
+    @Override
+    public void closeDbConnection() throws SQLException {
+        close();
+        this.settings.getDbApi().closeStatements(this.settings.getConnection());
+        this.settings.getConnection().close();
+    }
+}
@@ -17,16 +17,24 @@ package txml.xpath.model;
 
 import txml.NodeList;
 import txml.Node;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import javax.xml.stream.XMLStreamException;
+import txml.database.DbApi;
 import txml.database.model.NamespaceInfo;
+import txml.database.model.VersionRange;
 import txml.TXmlException;
 import txml.TXmlResult;
 import txml.load.model.XmlNodeTypeEnum;
@@ -39,6 +47,8 @@ public class TNodeList extends TXmlResult implements NodeList {
     private NodeGlobalSettings settings;
     private boolean documentNode;
     private LinkedList<TNode> iterator;
+    //items are known to be in document order
+    private boolean sorted = false;
     
     public TNodeList(NodeGlobalSettings settings) {
         items = new ArrayList<>();
@@ -58,14 +68,49 @@ public class TNodeList extends TXmlResult implements NodeList {
     
     @Override
     public TNodeList sort() throws SQLException {
-        if (items.size() <= 1)
-            return new TNodeList(settings, new ArrayList<>(items));
-        XmlTreeComparator comparator = new XmlTreeComparator();
-        TNodeList result = new TNodeList(settings, comparator.sort(items, settings.getDbApi(), settings.getConnection(), settings.getSchemaName(), settings.getDocumentName()));
+        TNodeList result;
+        if (items.size() <= 1 || sorted) {
+            result = new TNodeList(settings, new ArrayList<>(items));
+        } else {
+            XmlTreeComparator comparator = new XmlTreeComparator();
+            result = new TNodeList(settings, comparator.sort(items, settings.getDbApi(), settings.getConnection(), settings.getSchemaName(), settings.getDocumentName()));
+        }
+        result.sorted = true;
         
         return result;
     }
     
+    /**
+     * Returns node at <code>position</code> of document order counted from 1
+     * from beginning or from end, or null if the list is shorter. Nodes are 
+     * selected without sorting of whole list, sorted list is indexed 
+     * without reading of document order.
+     */
+    public TNode getInDocumentOrder(int position, boolean fromEnd) throws SQLException {
+        if (position < 1 || position > items.size()) {
+            return null;
+        } else if (items.size() == 1) {
+            return items.get(0);
+        } else if (sorted) {
+            return items.get(fromEnd ? items.size() - position : position - 1);
+        }
+        XmlTreeComparator comparator = new XmlTreeComparator();
+        return comparator.select(items, position, fromEnd, settings.getDbApi(), settings.getConnection(), settings.getSchemaName(), settings.getDocumentName());
+    }
+    
+    /**
+     * Returns true if steps of this list are evaluated in chunks by parallel
+     * execution of settings. Chunks themselves are not split again.
+     */
+    private boolean isParallel() {
+        return !this.documentNode && this.settings != null && this.settings.getParallelExecution() != null 
+                && this.settings.getParallelExecution().isParallel(this.items.size()) && !this.settings.isInChunk();
+    }
+    
+    private TNodeList evaluateInChunks(ChunkStep step) throws SQLException {
+        return new TNodeList(this.settings, this.settings.getParallelExecution().evaluate(this.settings, this.items, step));
+    }
+    
     public void initIterator() {
         this.iterator = new LinkedList<>(this.items);
     }
@@ -78,13 +123,117 @@ public class TNodeList extends TXmlResult implements NodeList {
         return !this.iterator.isEmpty();
     }
     
+    /**
+     * Returns children of all <code>parents</code> by their parents. Parent 
+     * ids are sent to database in chunks, so one query serves many parents
+     * and its rows are assigned back to parents by (id, from, to).
+     */
+    static Map<TNode, List<TNode>> getChildrenOfParents(NodeGlobalSettings settings, List<TNode> parents) throws SQLException {
+        Map<TNode, List<TNode>> result = new IdentityHashMap<>();
+        Map<Long, List<TNode>> parentsById = new LinkedHashMap<>();
+        for (TNode parent : parents) {
+            result.put(parent, new ArrayList<TNode>());
+            if (!parentsById.containsKey(parent.getId())) {
+                parentsById.put(parent.getId(), new ArrayList<TNode>());
+            }
+            parentsById.get(parent.getId()).add(parent);
+        }
+        
+        List<Long> parentIds = new ArrayList<>(parentsById.keySet());
+        for (int start = 0; start < parentIds.size(); start += DbApi.PARENTS_CHUNK_SIZE) {
+            List<Long> chunk = parentIds.subList(start, Math.min(start + DbApi.PARENTS_CHUNK_SIZE, parentIds.size()));
+            try (PreparedStatement preparedStatement = settings.getDbApi().getChildrenOfParents(settings.getConnection(), settings.getSchemaName(), chunk);
+                 ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Long parentFrom = resultSet.getLong("parentFrom");
+                    Long parentTo = resultSet.getLong("parentTo");
+                    for (TNode parent : parentsById.get(resultSet.getLong("parentId"))) {
+                        if (parent.getFromAsLong().equals(parentFrom) && parent.getToAsLong().equals(parentTo)) {
+                            TNode tNode = new TNode(
+                                resultSet.getLong("from"), 
+                                resultSet.getLong("to"), 
+                                resultSet.getLong("id"), 
+                                resultSet.getString("value"), 
+                                resultSet.getInt("depth"), 
+                                resultSet.getLong("lcp_class"),
+                                resultSet.getShort("type"),
+                                resultSet.getString("local_part"),
+                                resultSet.getString("uri"),
+                                resultSet.getString("prefix"),
+                                resultSet.getLong("namespace_id"),
+                                parent.getId(),
+                                parentFrom,
+                                parentTo,
+                                settings);  
+                            tNode.setSavedNodesOf(parent);
+                            result.get(parent).add(tNode);
+                        }
+                    }
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Loads child nodes and attributes of whole subtrees of <code>nodes</code>
+     * level by level, so the subtrees are traversed without further queries.
+     * If <code>sort</code> is true, every level is sorted at once, which 
+     * sorts child nodes and attributes of all its parents.
+     */
+    static void loadSubtrees(NodeGlobalSettings settings, List<TNode> nodes, boolean sort) throws SQLException {
+        List<TNode> level = new ArrayList<>();
+        for (TNode node : nodes) {
+            if (!node.isChildrenLoaded() && node.getId() > 0) {
+                level.add(node);
+            }
+        }
+        
+        while (!level.isEmpty()) {
+            Map<TNode, List<TNode>> children = getChildrenOfParents(settings, level);
+            List<TNode> nextLevel = new ArrayList<>();
+            Map<TNode, TNode> parents = new IdentityHashMap<>();
+            for (TNode parent : level) {
+                for (TNode child : children.get(parent)) {
+                    nextLevel.add(child);
+                    parents.put(child, parent);
+                }
+            }
+            
+            if (sort && nextLevel.size() > 1) {
+                nextLevel = new XmlTreeComparator().sort(nextLevel, settings.getDbApi(), settings.getConnection(), settings.getSchemaName(), settings.getDocumentName());
+                for (TNode parent : level) {
+                    children.get(parent).clear();
+                }
+                for (TNode child : nextLevel) {
+                    children.get(parents.get(child)).add(child);
+                }
+            }
+            
+            for (TNode parent : level) {
+                List<TNode> childNodes = new ArrayList<>();
+                List<TNode> attributes = new ArrayList<>();
+                for (TNode child : children.get(parent)) {
+                    if (child.getNodeType() == XmlNodeTypeEnum.ATTRIBUTE.getShortValue()) {
+                        attributes.add(child);
+                    } else {
+                        childNodes.add(child);
+                    }
+                }
+                TNodeList childNodeList = new TNodeList(settings, childNodes);
+                childNodeList.sorted = sort;
+                parent.setChildren(childNodeList, new TNamedNodeMap(settings, attributes, sort));
+            }
+            level = nextLevel;
+        }
+    }
+    
     private TNodeList getTXmlDescendants(String label) throws SQLException {
         label = label.replaceAll("@", "").replaceAll("attribute::", "");
         List<TNode> temporalNodes = new ArrayList<>(); 
         List<TNode> firstNodes = new ArrayList<>();
         TNodeList result;
-        ResultSet resultSet = null;
-        PreparedStatement preparedStatement = null;
         List<TNode> newItems = new ArrayList<>();
         List<TNode> newTemporalNodes = new ArrayList<>();
         List<TNode> valueList = new ArrayList<>();
@@ -113,32 +262,10 @@ public class TNodeList extends TXmlResult implements NodeList {
                 break;
         }
         
-        preparedStatement = this.settings.getDbApi().getChildren(this.settings.getConnection(), this.settings.getSchemaName());
         while(!temporalNodes.isEmpty()) {            
+            Map<TNode, List<TNode>> children = getChildrenOfParents(this.settings, temporalNodes);
             for (TNode tempNode:temporalNodes) {
-                preparedStatement.setLong(1, tempNode.getId());
-                preparedStatement.setLong(2, tempNode.getFromAsLong());
-                preparedStatement.setLong(3, tempNode.getToAsLong());
-                resultSet = preparedStatement.executeQuery();
-                while (resultSet.next()) {
-                    TNode tNode1 = new TNode(
-                    resultSet.getLong("from"), 
-                    resultSet.getLong("to"), 
-                    resultSet.getLong("id"), 
-                    resultSet.getString("value"), 
-                    resultSet.getInt("depth"), 
-                    resultSet.getLong("lcp_class"),
-                    resultSet.getShort("type"),
-                    resultSet.getString("local_part"),
-                    resultSet.getString("uri"),
-                    resultSet.getString("prefix"),
-                    resultSet.getLong("namespace_id"),
-                    resultSet.getLong("parentId"),
-                    resultSet.getLong("parentFrom"),
-                    resultSet.getLong("parentTo"),
-                    settings);  
-                    tNode1.getLocalSettings().setSavedNodes(tempNode.getLocalSettings().getSavedNodes());
-
+                for (TNode tNode1:children.get(tempNode)) {
                     newTemporalNodes.add(tNode1);   
                     valueList = new ArrayList<>();
                     String local_part;
@@ -146,72 +273,68 @@ public class TNodeList extends TXmlResult implements NodeList {
                     String value;
                     switch (label) {
                         case "txml:id":
-                            value = resultSet.getString("id");
+                            value = tNode1.getId().toString();
                             local_part = "id";
                             break;
                         case "txml:from":
-                            value = settings.getDbApi().getTime(resultSet.getLong("from"));
+                            value = settings.getDbApi().getTime(tNode1.getFromAsLong());
                             local_part = "from";
                             break;
                         default:
-                            value = settings.getDbApi().getTime(resultSet.getLong("to"));
+                            value = settings.getDbApi().getTime(tNode1.getToAsLong());
                             local_part = "to";
                             break;
                     }
 
                     TNode tNode2 = new TNode(
-                        resultSet.getLong("from"), 
-                        resultSet.getLong("to"), 
-                        resultSet.getLong("id") * (-1), 
+                        tNode1.getFromAsLong(), 
+                        tNode1.getToAsLong(), 
+                        tNode1.getId() * (-1), 
                         null, 
-                        resultSet.getInt("depth") + 1, 
+                        tNode1.getDepth() + 1, 
                         0l,
                         XmlNodeTypeEnum.TXML_ATTRIBUTE.getShortValue(),
                         local_part,
                         "",
                         "txml",
                         -1l,    
-                        resultSet.getLong("id"),
-                        resultSet.getLong("from"),    
-                        resultSet.getLong("to"),
+                        tNode1.getId(),
+                        tNode1.getFromAsLong(),    
+                        tNode1.getToAsLong(),
                         tNode1, 
                         new TNodeList(settings, valueList),       
                         settings);  
                     newItems.add(tNode2);
-                    tNode2.getLocalSettings().setSavedNodes(tempNode.getLocalSettings().getSavedNodes());
+                    tNode2.setSavedNodesOf(tempNode);
 
 
                     TNode tValue = new TNode(
-                        resultSet.getLong("from"), 
-                        resultSet.getLong("to"), 
-                        Short.MIN_VALUE + resultSet.getLong("id"), 
+                        tNode1.getFromAsLong(), 
+                        tNode1.getToAsLong(), 
+                        Short.MIN_VALUE + tNode1.getId(), 
                         value, 
-                        resultSet.getInt("depth") + 2, 
+                        tNode1.getDepth() + 2, 
                         0l,
                         txmlType,
                         "value",
                         "",
                         "",
                         -2l, 
-                        resultSet.getLong("id") * (-1),
-                        resultSet.getLong("from"), 
-                        resultSet.getLong("to"),    
+                        tNode1.getId() * (-1),
+                        tNode1.getFromAsLong(), 
+                        tNode1.getToAsLong(),    
                         tNode2,
                         settings);  
-                    tValue.getLocalSettings().setSavedNodes(tempNode.getLocalSettings().getSavedNodes());
+                    tValue.setSavedNodesOf(tempNode);
 
                     valueList.add(tValue);
                 }
-                
-                resultSet.close();
             }
             
             temporalNodes = newTemporalNodes;
             newTemporalNodes = new ArrayList<>();
             
         }
-        
-        preparedStatement.close();
 
         //nodes in origin list
         for (TNode tNode1:firstNodes) {
@@ -254,7 +377,7 @@ public class TNodeList extends TXmlResult implements NodeList {
                 new TNodeList(settings, valueList),       
                 settings);  
             newItems.add(tNode2);
-            tNode2.getLocalSettings().setSavedNodes(tNode1.getLocalSettings().getSavedNodes());
+            tNode2.setSavedNodesOf(tNode1);
 
             TNode tValue = new TNode(
                 tNode1.getFromAsLong(), 
@@ -275,147 +398,78 @@ public class TNodeList extends TXmlResult implements NodeList {
                 settings);  
 
             valueList.add(tValue);
-            tValue.getLocalSettings().setSavedNodes(tNode1.getLocalSettings().getSavedNodes());
+            tValue.setSavedNodesOf(tNode1);
         }
 
         result = new TNodeList(this.settings, newItems);
         return result;
     }
     
+    /**
+     * Returns cursor of <code>items</code> and descendants of 
+     * <code>contexts</code> which have one of <code>types</code>, or 
+     * the label of <code>namespaceInfo</code> if it is given. Descendants 
+     * are found by ancestor paths, so one query serves a chunk of contexts 
+     * regardless of depth of the subtrees.
+     */
+    private TNodeCursor getDescendants(List<TNode> items, List<TNode> contexts, final List<Short> types, final NamespaceInfo namespaceInfo, int fetchSize) throws SQLException {
+        return new TNodeCursor(this.settings, items, contexts, new ContextsStatement() {
+            @Override
+            public PreparedStatement prepare(List<Long> contextIds) throws SQLException {
+                if (namespaceInfo == null) {
+                    return settings.getDbApi().getDescendantsByTypes(settings.getConnection(), settings.getSchemaName(), contextIds, settings.getDocumentId(), types);
+                } else {
+                    return settings.getDbApi().getDescendantsByTypeAndLabel(settings.getConnection(), settings.getSchemaName(), contextIds, settings.getDocumentId(), types.get(0), namespaceInfo.getLocalPart(), namespaceInfo.getId());
+                }
+            }
+        }, fetchSize);
+    }
+    
     public TNodeList getDescendantsByTypeAndLabel(String label, short type) throws SQLException {
-        TNodeList result;
+        return new TNodeList(this.settings, getDescendantsByTypeAndLabel(label, type, 0).readAll());
+    }
+    
+    private TNodeCursor getDescendantsByTypeAndLabel(String label, short type, int fetchSize) throws SQLException {
         List<TNode> newItems = new ArrayList<>();
-        ResultSet resultSet;
-        PreparedStatement preparedStatement;
-        List<TNode> temporalNodes = new ArrayList<>();
-        List<TNode> newTemporalNodes = new ArrayList<>();
+        List<TNode> contexts = new ArrayList<>();
         NamespaceInfo namespaceInfo = this.settings.getDbApi().getNamespaceInfoFromPrefix(this.settings.getConnection(), this.settings.getSchemaName(), label, this.settings.getDocumentId(), type);
-        preparedStatement = this.settings.getDbApi().getMaxDepth(this.settings.getConnection(), this.settings.getSchemaName(), namespaceInfo.getLocalPart(), namespaceInfo.getId());
-        resultSet = preparedStatement.executeQuery();
-        if (!resultSet.next()) {
-            result = new TNodeList(this.settings, newItems);
 
-            try {
-                preparedStatement.close();
-            } catch (SQLException ex) {
-                throw new TXmlException(ex.getLocalizedMessage());
-            } finally {
-                try {
-                    resultSet.close();
-                } catch (SQLException ex) {
-                    throw new TXmlException(ex.getLocalizedMessage());
-                }
+        if (this.documentNode) {
+            TNode tNode = getDocumentRoot();
+            contexts.add(tNode);
+            if (tNode.getNodeName().equals(label) && (tNode.getNodeType() == type)) {
+                newItems.add(tNode);
             }
-
         } else {
-            int maxDepth = resultSet.getInt("max_depth");              
-
-            if (this.documentNode) {
-                TNode tNode = getDocumentRoot();
-                temporalNodes.add(tNode);
-                if (tNode.getNodeName().equals(label) && (tNode.getNodeType() == type)) {
-                    newItems.add(tNode);
-                }
-                
-            } else {
-                for (int i = 0; i < this.getLength(); i++) {
-                    if (this.item(i).getDepth() <= maxDepth) {
-                        temporalNodes.add(this.item(i));
-                    }
-                }
-            }
-
-            while(!temporalNodes.isEmpty()) {
-                newTemporalNodes = getChildrenByDepth(maxDepth, temporalNodes);
-                for (TNode tNode:newTemporalNodes) {  
-                    if (tNode.getLocalName().equals(namespaceInfo.getLocalPart()) && tNode.getNamespaceId().equals(namespaceInfo.getId()) && (tNode.getNodeType() == type)) {
-                        newItems.add(tNode);
-                    }
-                }
-
-                temporalNodes = newTemporalNodes;
-            }
-
-            result = new TNodeList(this.settings, newItems);
+            contexts.addAll(this.items);
         }
-
-        return result; 
+        
+        return getDescendants(newItems, contexts, Collections.singletonList(type), namespaceInfo, fetchSize);
     }
     
     public TNodeList getDescendantsByTypes(List<Short> types) throws SQLException {
-        TNodeList result;
+        return new TNodeList(this.settings, getDescendantsByTypes(types, 0).readAll());
+    }
+    
+    private TNodeCursor getDescendantsByTypes(List<Short> types, int fetchSize) throws SQLException {
         List<TNode> newItems = new ArrayList<>();
-        ResultSet resultSet;
-        PreparedStatement preparedStatement;
-        List<TNode> temporalNodes = new ArrayList<>();
-        List<TNode> newTemporalNodes = new ArrayList<>();
+        List<TNode> contexts = new ArrayList<>();
 
         if (this.documentNode) {
             TNode tNode = getDocumentRoot();
-            temporalNodes.add(tNode);
-            for (Short type:types) {
-                if (tNode.getNodeType() == type) {
-                    newItems.add(tNode);
-                    break;
-                }
+            contexts.add(tNode);
+            if (types.contains(tNode.getNodeType())) {
+                newItems.add(tNode);
             }
         } else {
-            for (int i = 0; i < this.getLength(); i++) {
-                for (Short type:types) {
-                    if (this.item(i).getNodeType() == type) {
-                        temporalNodes.add(this.item(i));
-                        break;
-                    }
+            for (TNode tNode : this.items) {
+                if (types.contains(tNode.getNodeType())) {
+                    contexts.add(tNode);
                 }
             }
         }
 
-        preparedStatement = this.settings.getDbApi().getChildren(this.settings.getConnection(), this.settings.getSchemaName());
-        while(!temporalNodes.isEmpty()) {
-            for (TNode tempNode:temporalNodes) {
-                preparedStatement.setLong(1, tempNode.getId());
-                preparedStatement.setLong(2, tempNode.getFromAsLong());
-                preparedStatement.setLong(3, tempNode.getToAsLong());
-                resultSet = preparedStatement.executeQuery();
-                while (resultSet.next()) {
-                    TNode tNode = new TNode(
-                    resultSet.getLong("from"), 
-                    resultSet.getLong("to"), 
-                    resultSet.getLong("id"), 
-                    resultSet.getString("value"), 
-                    resultSet.getInt("depth"), 
-                    resultSet.getLong("lcp_class"),
-                    resultSet.getShort("type"),
-                    resultSet.getString("local_part"),
-                    resultSet.getString("uri"),
-                    resultSet.getString("prefix"),
-                    resultSet.getLong("namespace_id"),
-                    resultSet.getLong("parentId"),
-                    resultSet.getLong("parentFrom"),
-                    resultSet.getLong("parentTo"),
-                    settings);  
-                    tNode.getLocalSettings().setSavedNodes(tempNode.getLocalSettings().getSavedNodes());
-                    
-                    for (Short type:types) {
-                        if (tNode.getNodeType() == type) {
-                            newItems.add(tNode);
-                            newTemporalNodes.add(tNode);
-                            break;
-                        }
-                    }
-                }
-
-                resultSet.close();
-            }
-
-            temporalNodes = newTemporalNodes;
-            newTemporalNodes = new ArrayList<>();
-
-        }
-        preparedStatement.close();
-        result = new TNodeList(this.settings, newItems);
-
-        return result; 
+        return getDescendants(newItems, contexts, types, null, fetchSize);
     }
 
     private TNodeList getTXmlChildren(String label) throws SQLException {
@@ -484,7 +538,7 @@ public class TNodeList extends TXmlResult implements NodeList {
                 new TNodeList(settings, valueList),
                 settings
             );  
-                tNode2.getLocalSettings().setSavedNodes(tNode1.getLocalSettings().getSavedNodes());
+                tNode2.setSavedNodesOf(tNode1);
                 newItems.add(tNode2);
 
 
@@ -506,7 +560,7 @@ public class TNodeList extends TXmlResult implements NodeList {
                 tNode2,
                 settings
             );
-            tValue.getLocalSettings().setSavedNodes(tNode1.getLocalSettings().getSavedNodes());
+            tValue.setSavedNodesOf(tNode1);
 
 
             valueList.add(tValue);
@@ -569,7 +623,7 @@ public class TNodeList extends TXmlResult implements NodeList {
                     resultSet.getLong("parentTo"),
                     settings
                     );  
-                    tNode.getLocalSettings().setSavedNodes(this.item(i).getLocalSettings().getSavedNodes());
+                    tNode.setSavedNodesOf(this.item(i));
 
                     newItems.add(tNode);
                     
@@ -585,6 +639,10 @@ public class TNodeList extends TXmlResult implements NodeList {
     
     private List<TNode> getChildrenByDepth(int depth, List<TNode> parents) throws SQLException {
         List<TNode> result = new ArrayList<>();
+        if (parents.isEmpty()) {
+            return result;
+        }
+        
         List<TNode> copyParents = new ArrayList<>(parents);
         PreparedStatement preparedStatement = this.settings.getDbApi().getChildrenByDepth(this.settings.getConnection(), this.settings.getSchemaName());
         Collections.sort(copyParents, new Comparator<TNode>() {
@@ -599,6 +657,9 @@ public class TNodeList extends TXmlResult implements NodeList {
         });
         
         preparedStatement.setInt(1, depth);
+        preparedStatement.setLong(2, this.settings.getDocumentId());
+        preparedStatement.setLong(3, copyParents.get(0).getId());
+        preparedStatement.setLong(4, copyParents.get(copyParents.size() - 1).getId());
         ResultSet resultSet = preparedStatement.executeQuery(); 
         int i = 0;
         boolean finish = !resultSet.next() || copyParents.size() <= i;
@@ -631,7 +692,7 @@ public class TNodeList extends TXmlResult implements NodeList {
             }
             
             if (compare == 0) {
-                tNode.getLocalSettings().setSavedNodes(copyParents.get(i).getLocalSettings().getSavedNodes());
+                tNode.setSavedNodesOf(copyParents.get(i));
                 result.add(tNode);    
                 finish = !resultSet.next();
             } else if (compare < 0) {
@@ -647,9 +708,23 @@ public class TNodeList extends TXmlResult implements NodeList {
     }
     
     private List<TNode> getChildrenByType(short type, List<TNode> parents) throws SQLException {
+        return getChildrenByType(type, parents, null, null, null);
+    }
+    
+    /**
+     * Returns children of one type, only children whose value satisfies 
+     * comparison with <code>literal</code> are read if 
+     * <code>operator</code> is given and only versions in 
+     * <code>versionRange</code> if it is given.
+     */
+    private List<TNode> getChildrenByType(short type, List<TNode> parents, String operator, String literal, VersionRange versionRange) throws SQLException {
         List<TNode> result = new ArrayList<>();
+        if (parents.isEmpty()) {
+            return result;
+        }
+        
         List<TNode> copyParents = new ArrayList<>(parents);
-        PreparedStatement preparedStatement = this.settings.getDbApi().getChildrenByType(this.settings.getConnection(), this.settings.getSchemaName());
+        PreparedStatement preparedStatement = this.settings.getDbApi().getChildrenByType(this.settings.getConnection(), this.settings.getSchemaName(), operator, versionRange != null);
         Collections.sort(copyParents, new Comparator<TNode>() {
             @Override
             public int compare(TNode o1, TNode o2) {
@@ -662,6 +737,18 @@ public class TNodeList extends TXmlResult implements NodeList {
         });
         
         preparedStatement.setShort(1, type);
+        preparedStatement.setLong(2, this.settings.getDocumentId());
+        preparedStatement.setLong(3, copyParents.get(0).getId());
+        preparedStatement.setLong(4, copyParents.get(copyParents.size() - 1).getId());
+        int index = 5;
+        if (operator != null) {
+            if (operator.equals("=") || operator.equals("<>")) {
+                preparedStatement.setString(index++, literal);
+            } else {
+                preparedStatement.setDouble(index++, Double.parseDouble(literal));
+            }
+        }
+        setVersionRange(preparedStatement, index, versionRange);
         ResultSet resultSet = preparedStatement.executeQuery(); 
         int i = 0;
         boolean finish = !resultSet.next() || copyParents.size() <= i;
@@ -694,7 +781,7 @@ public class TNodeList extends TXmlResult implements NodeList {
             }
             
             if (compare == 0) {
-                tNode.getLocalSettings().setSavedNodes(copyParents.get(i).getLocalSettings().getSavedNodes());
+                tNode.setSavedNodesOf(copyParents.get(i));
                 result.add(tNode);    
                 finish = !resultSet.next();
             } else if (compare < 0) {
@@ -710,9 +797,17 @@ public class TNodeList extends TXmlResult implements NodeList {
     }
     
     private List<TNode> getChildrenByTypeAndLabel(short type, NamespaceInfo namespaceInfo, List<TNode> parents) throws SQLException {
+        return getChildrenByTypeAndLabel(type, namespaceInfo, parents, null);
+    }
+    
+    private List<TNode> getChildrenByTypeAndLabel(short type, NamespaceInfo namespaceInfo, List<TNode> parents, VersionRange versionRange) throws SQLException {
         List<TNode> result = new ArrayList<>();
+        if (parents.isEmpty()) {
+            return result;
+        }
+        
         List<TNode> copyParents = new ArrayList<>(parents);
-        PreparedStatement preparedStatement = this.settings.getDbApi().getChildrenByTypeAndLabel(this.settings.getConnection(), this.settings.getSchemaName());
+        PreparedStatement preparedStatement = this.settings.getDbApi().getChildrenByTypeAndLabel(this.settings.getConnection(), this.settings.getSchemaName(), versionRange != null);
         Collections.sort(copyParents, new Comparator<TNode>() {
             @Override
             public int compare(TNode o1, TNode o2) {
@@ -727,6 +822,10 @@ public class TNodeList extends TXmlResult implements NodeList {
         preparedStatement.setShort(1, type);
         preparedStatement.setString(2, namespaceInfo.getLocalPart());
         preparedStatement.setLong(3, namespaceInfo.getId());
+        preparedStatement.setLong(4, this.settings.getDocumentId());
+        preparedStatement.setLong(5, copyParents.get(0).getId());
+        preparedStatement.setLong(6, copyParents.get(copyParents.size() - 1).getId());
+        setVersionRange(preparedStatement, 7, versionRange);
         ResultSet resultSet = preparedStatement.executeQuery(); 
         int i = 0;
         boolean finish = !resultSet.next() || copyParents.size() <= i;
@@ -759,7 +858,7 @@ public class TNodeList extends TXmlResult implements NodeList {
             }
             
             if (compare == 0) {
-                tNode.getLocalSettings().setSavedNodes(copyParents.get(i).getLocalSettings().getSavedNodes());
+                tNode.setSavedNodesOf(copyParents.get(i));
                 result.add(tNode);    
                 finish = !resultSet.next();
             } else if (compare < 0) {
@@ -774,40 +873,72 @@ public class TNodeList extends TXmlResult implements NodeList {
         return result;
     }
     
-    private TNodeList getChildrenByTypeAndLabel(String label, short type) throws SQLException {
+    private TNodeList getChildrenByTypeAndLabel(String label, short type, VersionRange versionRange) throws SQLException {
         List<TNode> newItems = new ArrayList<>();
         TNodeList result;
         NamespaceInfo namespaceInfo = this.settings.getDbApi().getNamespaceInfoFromPrefix(this.settings.getConnection(), this.settings.getSchemaName(), label, this.settings.getDocumentId(), type);
         if (this.documentNode) {
             TNode tNode = getDocumentRoot();
-            if (tNode.getLocalName().equals(namespaceInfo.getLocalPart()) && tNode.getPrefix().equals(namespaceInfo.getPrefix()) && tNode.getNodeType() == type) {
+            if (tNode.getLocalName().equals(namespaceInfo.getLocalPart()) && tNode.getPrefix().equals(namespaceInfo.getPrefix()) && tNode.getNodeType() == type && isInVersionRange(tNode, versionRange)) {
                 newItems.add(tNode);
             }
         } else {
-            newItems = getChildrenByTypeAndLabel(type, namespaceInfo, this.items);
+            newItems = getChildrenByTypeAndLabel(type, namespaceInfo, this.items, versionRange);
         }
         
         result = new TNodeList(this.settings, newItems);
         return result;
     }
 
-    private TNodeList getChildrenByType(short type) throws SQLException {
+    private TNodeList getChildrenByType(short type, VersionRange versionRange) throws SQLException {
         List<TNode> newItems = new ArrayList<>();
         TNodeList result;
         if (this.documentNode) {
             TNode tNode = getDocumentRoot();
-            if (tNode.getNodeType() == type) {
+            if (tNode.getNodeType() == type && isInVersionRange(tNode, versionRange)) {
                 newItems.add(tNode);
             }
         } else {
-            newItems = getChildrenByType(type, this.items);
+            newItems = getChildrenByType(type, this.items, null, null, versionRange);
         }
         
         result = new TNodeList(this.settings, newItems);
         return result;
     }
     
+    private void setVersionRange(PreparedStatement preparedStatement, int index, VersionRange versionRange) throws SQLException {
+        if (versionRange != null) {
+            preparedStatement.setLong(index, versionRange.getFromMin());
+            preparedStatement.setLong(index + 1, versionRange.getFromMax());
+            preparedStatement.setLong(index + 2, versionRange.getToMin());
+            preparedStatement.setLong(index + 3, versionRange.getToMax());
+        }
+    }
+    
+    private boolean isInVersionRange(TNode tNode, VersionRange versionRange) {
+        return versionRange == null || versionRange.contains(tNode.getFromAsLong(), tNode.getToAsLong());
+    }
+    
     public TNodeList getDirectStep(String label) throws SQLException {
+        return getDirectStep(label, null);
+    }
+    
+    /**
+     * Returns nodes of direct step. Child nodes selected by name or type are 
+     * read only in versions of <code>versionRange</code> if it is given, 
+     * other steps ignore it.
+     */
+    public TNodeList getDirectStep(String label, final VersionRange versionRange) throws SQLException {
+        if (isParallel()) {
+            final String chunkLabel = label;
+            return evaluateInChunks(new ChunkStep() {
+                @Override
+                public TNodeList evaluate(TNodeList chunk) throws SQLException {
+                    return chunk.getDirectStep(chunkLabel, versionRange);
+                }
+            });
+        }
+        
         TNodeList result;
 
         if (label.equals(".")) {
@@ -815,60 +946,152 @@ public class TNodeList extends TXmlResult implements NodeList {
         } else if (label.equals("..")) {
             result = getParentNodes();
         } else if (label.equals("*")) { 
-            result = getChildrenByType(XmlNodeTypeEnum.ELEMENT.getShortValue());
+            result = getChildrenByType(XmlNodeTypeEnum.ELEMENT.getShortValue(), versionRange);
         } else if (label.contains("txml:")) {
             result = getTXmlChildren(label);
         } else if (label.contains("@")) {   
             label = label.replace("@", "");
-            result = getChildrenByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue());
+            result = getChildrenByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue(), versionRange);
         } else if (label.contains("attribute::")) {
             label = label.replace("attribute::", "");
-            result = getChildrenByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue());
+            result = getChildrenByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue(), versionRange);
         } else if (label.toLowerCase().contains("text(")) {
-            result = getChildrenByTypeAndLabel("value", XmlNodeTypeEnum.TEXT.getShortValue());    
+            result = getChildrenByTypeAndLabel("value", XmlNodeTypeEnum.TEXT.getShortValue(), versionRange);    
         } else {
-            result = getChildrenByTypeAndLabel(label, XmlNodeTypeEnum.ELEMENT.getShortValue());
+            result = getChildrenByTypeAndLabel(label, XmlNodeTypeEnum.ELEMENT.getShortValue(), versionRange);
         }
         
         return result;
     }
     
-    public TNodeList getUndirectStep(String label) throws SQLException {
-        TNodeList result = null;
+    /**
+     * Returns nodes of consecutive child steps by element names separated 
+     * by slash. Steps below the document root are read by one query for 
+     * a chunk of context nodes instead of one query per step.
+     */
+    public TNodeList getDirectPath(final String path) throws SQLException {
+        if (isParallel()) {
+            return evaluateInChunks(new ChunkStep() {
+                @Override
+                public TNodeList evaluate(TNodeList chunk) throws SQLException {
+                    return chunk.getDirectPath(path);
+                }
+            });
+        }
         
-        if (label.equals(".")) {
+        int separator = path.indexOf('/');
+        if (separator < 0) {
+            return getDirectStep(path);
+        }
+        
+        if (this.documentNode) {
+            return getDirectStep(path.substring(0, separator)).getDirectPath(path.substring(separator + 1));
+        }
+        
+        return new TNodeList(this.settings, getDirectPathCursor(path, 0).readAll());
+    }
+    
+    /**
+     * Returns cursor of nodes of consecutive child steps by element names 
+     * separated by slash, rows are fetched by <code>fetchSize</code> if it 
+     * is positive. Null is returned for steps from the document node which 
+     * select only the root.
+     */
+    public TNodeCursor getDirectPathCursor(String path, int fetchSize) throws SQLException {
+        int separator = path.indexOf('/');
+        if (this.documentNode) {
+            return separator < 0 ? null : getDirectStep(path.substring(0, separator)).getDirectPathCursor(path.substring(separator + 1), fetchSize);
+        }
+        
+        final List<NamespaceInfo> steps = new ArrayList<>();
+        for (String label : path.split("/")) {
+            if (label.equals("*")) {
+                steps.add(null);
+            } else {
+                steps.add(this.settings.getDbApi().getNamespaceInfoFromPrefix(this.settings.getConnection(), this.settings.getSchemaName(), label, this.settings.getDocumentId(), XmlNodeTypeEnum.ELEMENT.getShortValue()));
+            }
+        }
+        
+        return new TNodeCursor(this.settings, new ArrayList<TNode>(), this.items, new ContextsStatement() {
+            @Override
+            public PreparedStatement prepare(List<Long> contextIds) throws SQLException {
+                return settings.getDbApi().getDirectPath(settings.getConnection(), settings.getSchemaName(), contextIds, steps);
+            }
+        }, fetchSize);
+    }
+    
+    public TNodeList getUndirectStep(final String label) throws SQLException {
+        if (isParallel()) {
+            return evaluateInChunks(new ChunkStep() {
+                @Override
+                public TNodeList evaluate(TNodeList chunk) throws SQLException {
+                    return chunk.getUndirectStep(label);
+                }
+            });
+        }
+        
+        TNodeList result;
+        
+        if (label.equals("..")) {
             List<Short> types = new ArrayList<>();
             types.add(XmlNodeTypeEnum.ELEMENT.getShortValue());
             types.add(XmlNodeTypeEnum.TEXT.getShortValue());
-            result = getDescendantsByTypes(types);
-        } else if (label.equals("..")) {
+            TNodeList result1 = getDescendantsByTypes(types);
+            result = result1.getParentNodes();
+        } else if (label.contains("txml:")) {
+            result = getTXmlDescendants(label);
+        } else {
+            result = new TNodeList(this.settings, getUndirectStepCursor(label, 0).readAll());
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Returns cursor of nodes of undirect step, rows are fetched by 
+     * <code>fetchSize</code> if it is positive. Null is returned for 
+     * parents and txml labels, which are not read by one query.
+     */
+    public TNodeCursor getUndirectStepCursor(String label, int fetchSize) throws SQLException {
+        TNodeCursor result = null;
+        
+        if (label.equals(".")) {
             List<Short> types = new ArrayList<>();
             types.add(XmlNodeTypeEnum.ELEMENT.getShortValue());
             types.add(XmlNodeTypeEnum.TEXT.getShortValue());
-            TNodeList result1 = getDescendantsByTypes(types);
-            result = result1.getParentNodes();
+            result = getDescendantsByTypes(types, fetchSize);
+        } else if (label.equals("..") || label.contains("txml:")) {
+            result = null;
         } else if (label.equals("*")) { 
             List<Short> types = new ArrayList<>();
             types.add(XmlNodeTypeEnum.ELEMENT.getShortValue());
-            result = getDescendantsByTypes(types);
-        } else if (label.contains("txml:")) {
-            result = getTXmlDescendants(label);
+            result = getDescendantsByTypes(types, fetchSize);
         } else if (label.contains("@")) {   
             label = label.replace("@", "");
-            result = getDescendantsByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue());
+            result = getDescendantsByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue(), fetchSize);
         } else if (label.contains("attribute::")) {
             label = label.replace("attribute::", "");
-            result = getDescendantsByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue());
+            result = getDescendantsByTypeAndLabel(label, XmlNodeTypeEnum.ATTRIBUTE.getShortValue(), fetchSize);
         } else if (label.toLowerCase().contains("text(")) {
-            result = getDescendantsByTypeAndLabel("value", XmlNodeTypeEnum.TEXT.getShortValue());    
+            result = getDescendantsByTypeAndLabel("value", XmlNodeTypeEnum.TEXT.getShortValue(), fetchSize);    
         } else {
-            result = getDescendantsByTypeAndLabel(label, XmlNodeTypeEnum.ELEMENT.getShortValue());
+            result = getDescendantsByTypeAndLabel(label, XmlNodeTypeEnum.ELEMENT.getShortValue(), fetchSize);
         }
         
         return result;
     }
         
     public TNodeList getValues() throws SQLException, TXmlException {
+        return getValues(null, null);
+    }
+    
+    /**
+     * Returns values of nodes. Text values are compared with 
+     * <code>literal</code> by SQL <code>operator</code> in database, so only 
+     * values which satisfy the comparison are read. Values of txml attributes 
+     * are not compared.
+     */
+    public TNodeList getValues(String operator, String literal) throws SQLException, TXmlException {
         short type = XmlNodeTypeEnum.TEXT.getShortValue();
         TNodeList result;
         List<TNode> origItems = this.items;
@@ -918,7 +1141,7 @@ public class TNodeList extends TXmlResult implements NodeList {
                         origItems.get(i),  
                         settings
                 );
-                tNode.getLocalSettings().setSavedNodes(origItems.get(i).getLocalSettings().getSavedNodes());
+                tNode.setSavedNodesOf(origItems.get(i));
 
                 newItems.add(tNode);
             } else {
@@ -926,7 +1149,7 @@ public class TNodeList extends TXmlResult implements NodeList {
             }
         }
 
-        List<TNode> valueNodes = getChildrenByType(type, parentList);
+        List<TNode> valueNodes = getChildrenByType(type, parentList, operator, literal, null);
         newItems.addAll(valueNodes);    
         result = new TNodeList(this.settings, newItems);
                 
@@ -936,6 +1159,7 @@ public class TNodeList extends TXmlResult implements NodeList {
     
     @Override
     public void closeDbConnection() throws SQLException {
+        this.settings.getDbApi().closeStatements(this.settings.getConnection());
         this.settings.getConnection().close();
     }
     
@@ -1024,7 +1248,13 @@ public class TNodeList extends TXmlResult implements NodeList {
     
     @Override
     public String getTrees(boolean sort) throws SQLException, TXmlException {
-        return getTrees(this, null, 0, sort);
+        StringWriter result = new StringWriter();
+        try {
+            new TreeWriter(result, sort).writeTrees(this);
+        } catch (IOException | XMLStreamException ex) {
+            throw new TXmlException(ex.getLocalizedMessage());
+        }
+        return result.toString();
     }
     
     public static String getTrees(NodeList nodes, Node parent, boolean sort) throws SQLException, TXmlException {
@@ -0,0 +1,63 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.model;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable stack of start nodes of predicates. Push and pop return 
+ * a new stack which shares the rest with this one, so nodes created from 
+ * a context node share its stack without copying.
+ */
+public final class TNodeStack {
+    public static final TNodeStack EMPTY = new TNodeStack(null, null);
+    
+    private final TNode head;
+    private final TNodeStack tail;
+
+    private TNodeStack(TNode head, TNodeStack tail) {
+        this.head = head;
+        this.tail = tail;
+    }
+    
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+    
+    public TNodeStack push(TNode tNode) {
+        return new TNodeStack(tNode, this);
+    }
+    
+    /**
+     * Returns the node on top of the stack.
+     */
+    public TNode peek() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return head;
+    }
+    
+    /**
+     * Returns the stack without the node on top.
+     */
+    public TNodeStack pop() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return tail;
+    }
+}
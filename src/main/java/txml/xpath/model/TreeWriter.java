@@ -0,0 +1,336 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import txml.NamedNodeMap;
+import txml.Node;
+import txml.NodeList;
+import txml.database.DbApi;
+import txml.load.model.XmlNodeTypeEnum;
+
+/**
+ * Writes XML subtrees of nodes straight to a character stream in format of
+ * {@link TNode#getTree(boolean) getTree} or as StAX events. Subtrees of a
+ * chunk of nodes are read level by level before they are written and 
+ * released after it, so neither the output nor all subtrees are held in 
+ * memory.
+ */
+public class TreeWriter {
+    public static final String TXML_PREFIX = "txml";
+    public static final String TXML_NAMESPACE_URI = "urn:txml";
+    private static final int SPACE_SIZE = 2;
+    
+    private final Writer writer;
+    private final XMLStreamWriter streamWriter;
+    private final boolean sort;
+
+    public TreeWriter(Writer writer, boolean sort) {
+        this.writer = writer;
+        this.streamWriter = null;
+        this.sort = sort;
+    }
+    
+    /**
+     * Writes trees to <code>outputStream</code> in UTF-8.
+     */
+    public TreeWriter(OutputStream outputStream, boolean sort) {
+        this(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)), sort);
+    }
+    
+    /**
+     * Writes trees as StAX events, attributes of versions are written
+     * in namespace {@link #TXML_NAMESPACE_URI}, which is declared by root 
+     * of every tree.
+     */
+    public TreeWriter(XMLStreamWriter streamWriter, boolean sort) {
+        this.writer = null;
+        this.streamWriter = streamWriter;
+        this.sort = sort;
+    }
+    
+    public void writeTree(Node node) throws SQLException, IOException, XMLStreamException {
+        if (node instanceof TNode) {
+            TNode tNode = (TNode) node;
+            TNodeList.loadSubtrees(tNode.getSettings(), Collections.singletonList(tNode), sort);
+        }
+        writeNode(node, null, 0);
+        flush();
+    }
+    
+    public void writeTrees(NodeList nodes) throws SQLException, IOException, XMLStreamException {
+        if (nodes instanceof TNodeList) {
+            TNodeList tNodeList = sort ? ((TNodeList) nodes).sort() : (TNodeList) nodes;
+            List<TNode> items = tNodeList.getItems();
+            for (int start = 0; start < items.size(); start += DbApi.PARENTS_CHUNK_SIZE) {
+                List<TNode> chunk = new ArrayList<>(items.subList(start, Math.min(start + DbApi.PARENTS_CHUNK_SIZE, items.size())));
+                TNodeList.loadSubtrees(tNodeList.getSettings(), chunk, sort);
+                for (TNode tNode : chunk) {
+                    writeNode(tNode, null, 0);
+                    tNode.releaseChildren();
+                }
+            }
+        } else {
+            for (int i = 0; i < nodes.getLength(); i++) {
+                writeNode(nodes.item(i), null, 0);
+            }
+        }
+        flush();
+    }
+    
+    void writeNode(Node node, Node parent, int spaceSize) throws SQLException, IOException, XMLStreamException {
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            NamedNodeMap namedNodeMap = node.getAttributes();
+            if (sort) {
+                namedNodeMap = namedNodeMap.sort();
+            }
+            
+            boolean attributeFullPrint = false;
+            for (int i = 0; i < namedNodeMap.getLength(); i++) {
+                Node attributeNode = namedNodeMap.item(i);
+                if (!node.getFromAsLong().equals(attributeNode.getFromAsLong()) ||
+                    !node.getToAsLong().equals(attributeNode.getToAsLong()) ||
+                    attributeNode.getChildNodes().getLength() != 1 ||
+                    !node.getFromAsLong().equals(attributeNode.getChildNodes().item(0).getFromAsLong()) ||
+                    !node.getToAsLong().equals(attributeNode.getChildNodes().item(0).getToAsLong())
+                   ) 
+                {
+                    attributeFullPrint = true;
+                    break;
+                }
+            }
+            
+            startElement(node.getPrefix(), node.getLocalName(), node.getNamespaceURI(), node.getNodeName(), spaceSize, parent == null);
+            if (!attributeFullPrint) {
+                for (int i = 0; i < namedNodeMap.getLength(); i++) {
+                    Node attributeNode = namedNodeMap.item(i);
+                    writeAttribute(attributeNode.getPrefix(), attributeNode.getLocalName(), attributeNode.getNamespaceURI(), attributeNode.getNodeName(), attributeNode.getChildNodes().item(0).getNodeValue());
+                }
+            }
+            if (isVersionChanged(node, parent)) {
+                writeVersion(node.getFromAsString(), node.getToAsString(), node.getId());
+            }
+            endStartTag();
+            
+            if (attributeFullPrint) {
+                for (int i = 0; i < namedNodeMap.getLength(); i++) {
+                    writeNode(namedNodeMap.item(i), node, spaceSize + SPACE_SIZE);
+                }
+            }
+            
+            NodeList childNodes = node.getChildNodes();
+            if (childNodes instanceof TNodeList && sort) {
+                childNodes = ((TNodeList) childNodes).sort();
+            }
+            for (int i = 0; i < childNodes.getLength(); i++) {
+                writeNode(childNodes.item(i), node, spaceSize + SPACE_SIZE);
+            }
+            endElement(node.getNodeName(), spaceSize);
+        } else if (node.getNodeType() == XmlNodeTypeEnum.TEXT.getShortValue()) {
+            if (node.getNodeValue() != null) {
+                String val = node.getNodeValue().trim();
+                if (!val.isEmpty()) {
+                    if (isVersionChanged(node, parent)) {
+                        startElement(TXML_PREFIX, "text", TXML_NAMESPACE_URI, "txml:text", spaceSize, parent == null);
+                        writeVersion(node.getFromAsString(), node.getToAsString(), node.getId());
+                        endStartTag();
+                        writeText(val, spaceSize + SPACE_SIZE);
+                        endElement("txml:text", spaceSize);
+                    } else {
+                        writeText(val, spaceSize);
+                    }
+                }
+            }
+        } else if (node.getNodeType() == Node.ATTRIBUTE_NODE ||
+                   node.getNodeType() == Node.TXML_ATTRIBUTE_NODE
+                ) {
+            Long id = node.getNodeType() != XmlNodeTypeEnum.TXML_ATTRIBUTE.getShortValue() ? node.getId() : null;
+            NodeList valueNodeList = node.getChildNodes();
+            if (valueNodeList.getLength() > 0) {
+                for (int i = 0; i < valueNodeList.getLength(); i++) {
+                    Node valueNode = valueNodeList.item(i);
+                    startEmptyElement(spaceSize);
+                    writeAttribute(null, "name", null, "name", node.getNodeName());
+                    writeAttribute(null, "value", null, "value", valueNode.getNodeValue());
+                    if (isVersionChanged(valueNode, parent)) {
+                        writeVersion(valueNode.getFromAsString(), valueNode.getToAsString(), id);
+                    }
+                    endEmptyElement();
+                }
+            } else {
+                startEmptyElement(spaceSize);
+                writeAttribute(null, "name", null, "name", node.getNodeName());
+                writeAttribute(null, "value", null, "value", "");
+                if (isVersionChanged(node, parent)) {
+                    writeVersion(node.getFromAsString(), node.getToAsString(), id);
+                }
+                endEmptyElement();
+            }
+        }
+    }
+    
+    private boolean isVersionChanged(Node node, Node parent) {
+        return parent == null || 
+               !parent.getFromAsLong().equals(node.getFromAsLong()) ||
+               !parent.getToAsLong().equals(node.getToAsLong());
+    }
+    
+    private void writeSpaces(int spaceSize) throws IOException {
+        for (int i = 0; i < spaceSize; i++) {
+            writer.write(' ');
+        }
+    }
+    
+    private void startElement(String prefix, String localName, String namespaceUri, String name, int spaceSize, boolean root) throws IOException, XMLStreamException {
+        if (streamWriter != null) {
+            String elementPrefix = prefix == null ? "" : prefix;
+            String elementNamespaceUri = namespaceUri == null ? "" : namespaceUri;
+            boolean inScope = isNamespaceInScope(elementPrefix, elementNamespaceUri);
+            streamWriter.writeStartElement(elementPrefix, localName, elementNamespaceUri);
+            declareTxmlNamespace(root);
+            if (!inScope) {
+                writeNamespace(elementPrefix, elementNamespaceUri);
+            }
+        } else {
+            writeSpaces(spaceSize);
+            writer.write("<");
+            writer.write(name);
+        }
+    }
+    
+    private void startEmptyElement(int spaceSize) throws IOException, XMLStreamException {
+        if (streamWriter != null) {
+            boolean inScope = isNamespaceInScope(TXML_PREFIX, TXML_NAMESPACE_URI);
+            streamWriter.writeEmptyElement(TXML_PREFIX, "attribute", TXML_NAMESPACE_URI);
+            if (!inScope) {
+                writeNamespace(TXML_PREFIX, TXML_NAMESPACE_URI);
+            }
+        } else {
+            writeSpaces(spaceSize);
+            writer.write("<txml:attribute");
+        }
+    }
+    
+    private void declareTxmlNamespace(boolean root) throws XMLStreamException {
+        if (root && !isNamespaceInScope(TXML_PREFIX, TXML_NAMESPACE_URI)) {
+            writeNamespace(TXML_PREFIX, TXML_NAMESPACE_URI);
+        }
+    }
+    
+    /**
+     * Returns true if <code>prefix</code> is bound to <code>namespaceUri</code>
+     * by the stream writer, empty prefix is the default namespace. Writers 
+     * may bind prefix of an element when it is started, so it is checked 
+     * before.
+     */
+    private boolean isNamespaceInScope(String prefix, String namespaceUri) {
+        String boundUri = streamWriter.getNamespaceContext().getNamespaceURI(prefix);
+        return namespaceUri.equals(boundUri == null ? "" : boundUri);
+    }
+    
+    private void writeNamespace(String prefix, String namespaceUri) throws XMLStreamException {
+        if (prefix.isEmpty()) {
+            streamWriter.writeDefaultNamespace(namespaceUri);
+            streamWriter.setDefaultNamespace(namespaceUri);
+        } else {
+            streamWriter.writeNamespace(prefix, namespaceUri);
+            streamWriter.setPrefix(prefix, namespaceUri);
+        }
+    }
+    
+    private void writeAttribute(String prefix, String localName, String namespaceUri, String name, String value) throws IOException, XMLStreamException {
+        if (streamWriter != null) {
+            if (prefix == null || prefix.isEmpty()) {
+                streamWriter.writeAttribute(localName, value == null ? "" : value);
+            } else {
+                String attributeNamespaceUri = namespaceUri == null ? "" : namespaceUri;
+                if (!isNamespaceInScope(prefix, attributeNamespaceUri)) {
+                    writeNamespace(prefix, attributeNamespaceUri);
+                }
+                streamWriter.writeAttribute(prefix, namespaceUri, localName, value == null ? "" : value);
+            }
+        } else {
+            writer.write(" ");
+            writer.write(name);
+            writer.write("=\"");
+            writer.write(String.valueOf(value));
+            writer.write("\"");
+        }
+    }
+    
+    /**
+     * Writes interval of node version and id of node unless it is null.
+     */
+    private void writeVersion(String from, String to, Long id) throws IOException, XMLStreamException {
+        writeAttribute(TXML_PREFIX, "from", TXML_NAMESPACE_URI, "txml:from", from);
+        writeAttribute(TXML_PREFIX, "to", TXML_NAMESPACE_URI, "txml:to", to);
+        if (id != null) {
+            writeAttribute(TXML_PREFIX, "id", TXML_NAMESPACE_URI, "txml:id", id.toString());
+        }
+    }
+    
+    private void endStartTag() throws IOException {
+        if (streamWriter == null) {
+            writer.write(">\n");
+        }
+    }
+    
+    private void endEmptyElement() throws IOException {
+        if (streamWriter == null) {
+            writer.write("/>\n");
+        }
+    }
+    
+    private void endElement(String name, int spaceSize) throws IOException, XMLStreamException {
+        if (streamWriter != null) {
+            streamWriter.writeEndElement();
+        } else {
+            writeSpaces(spaceSize);
+            writer.write("</");
+            writer.write(name);
+            writer.write(">\n");
+        }
+    }
+    
+    private void writeText(String text, int spaceSize) throws IOException, XMLStreamException {
+        if (streamWriter != null) {
+            streamWriter.writeCharacters(text);
+        } else {
+            writeSpaces(spaceSize);
+            writer.write(text);
+            writer.write("\n");
+        }
+    }
+    
+    private void flush() throws IOException, XMLStreamException {
+        if (streamWriter != null) {
+            streamWriter.flush();
+        } else {
+            writer.flush();
+        }
+    }
+}
@@ -15,38 +15,42 @@
  */
 package txml.xpath.sort;
 
-import txml.xpath.sort.model.LevelValue;
-import txml.xpath.sort.model.TreeKey;
-import txml.xpath.sort.model.LevelKey;
 import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import txml.database.DbApi;
 import txml.TXmlException;
 import txml.load.model.XmlNodeTypeEnum;
-import txml.xpath.model.NodeGlobalSettings;
 import txml.xpath.model.TNode;
+import txml.xpath.sort.model.LevelOrder;
+import txml.xpath.sort.model.OrderKey;
 
-public class XmlTreeComparator implements Comparator<TNode> {
+/**
+ * Sorts nodes to document order in two phases. Ancestor paths of nodes and
+ * orders of the ancestors in rows of table CP are read by bulk queries first 
+ * and order key of each node is computed from them, then keys are compared 
+ * in memory without access to database.
+ */
+public class XmlTreeComparator implements Comparator<OrderKey> {
     
-    private final Map<LevelKey, LevelValue> levels;
-    private final Map<TreeKey, List<TNode>> tree;
-    private DbApi dbApi;
-    private Connection connection; 
-    private String schema; 
-    private String documentName;
+    //orders of ancestors of keys by depth and id, ordered by time
+    private final Map<Integer, Map<Long, List<LevelOrder>>> levels;
     
     public XmlTreeComparator() {
         levels = new HashMap<>();
-        tree = new HashMap<>();
     }
     
     public TNode checkTxmlTNode(TNode n) {
@@ -64,237 +68,236 @@ public class XmlTreeComparator implements Comparator<TNode> {
     }
 
     @Override
-    public int compare(TNode o1, TNode o2)  {
-        o1 = checkTxmlTNode(o1);
-        o2 = checkTxmlTNode(o2);
-        
+    public int compare(OrderKey o1, OrderKey o2)  {
         if  (
-                (o1.getFromAsLong() <= o2.getFromAsLong() &&  o2.getToAsLong() <= o1.getToAsLong()) ||
-                (o2.getFromAsLong() <= o1.getFromAsLong() &&  o1.getToAsLong() <= o2.getToAsLong())
+                (o1.getFrom() <= o2.getFrom() &&  o2.getTo() <= o1.getTo()) ||
+                (o2.getFrom() <= o1.getFrom() &&  o1.getTo() <= o2.getTo())
             ) {
-            if (o1.getDepth().equals(o2.getDepth())) {
-                int result = compareSameLevel(o1, o2, o1.getDepth(), o2.getDepth());
+            //nodes are compared at common time by their ancestors in lower depth
+            long targetFrom = Math.max(o1.getFrom(), o2.getFrom());
+            int depth = Math.min(o1.getDepth(), o2.getDepth());
+            int result = Integer.compare(getOrder(o1, depth, targetFrom), getOrder(o2, depth, targetFrom));
+            if (result != 0) {
                 return result;
             } else {
-                int result = compareDiffLevel(o1, o2, o1.getDepth(), o2.getDepth());
-                return result;
+                return Integer.compare(o1.getDepth(), o2.getDepth());
             }
-            
-        } else {
-            int result;
-            
-            if (o1.getDepth().equals(o2.getDepth())) {
-                LevelValue o1LevelValue = levels.get(new LevelKey(o1.getDepth(), o1.getId(), o1.getFromAsLong()));
-                LevelValue o2LevelValue = levels.get(new LevelKey(o2.getDepth(), o2.getId(), o2.getFromAsLong()));
-                if (!o1LevelValue.getOrder().equals(o2LevelValue.getOrder())) {
-                    result = o1LevelValue.getOrder().compareTo(o2LevelValue.getOrder());
-                } else {
-                    result = o1.getFromAsLong().compareTo(o2.getFromAsLong());
-                }
+        } else if (o1.getDepth() == o2.getDepth()) {
+            int result = Integer.compare(o1.getOrder(o1.getDepth()), o2.getOrder(o2.getDepth()));
+            if (result != 0) {
+                return result;
             } else {
-                result = o1.getDepth().compareTo(o2.getDepth());
+                return Long.compare(o1.getFrom(), o2.getFrom());
             }
-
-            return result;
+        } else {
+            return Integer.compare(o1.getDepth(), o2.getDepth());
         }
     }
     
-    private int compareSameLevel(TNode o1, TNode o2, Integer o1OrigDepth, Integer o2OrigDepth) {
-        Long targetFrom = Math.max(o1.getFromAsLong(), o2.getFromAsLong());
-        LevelValue o1LevelValue = levels.get(new LevelKey(o1.getDepth(), o1.getId(), targetFrom));
-        LevelValue o2LevelValue = levels.get(new LevelKey(o2.getDepth(), o2.getId(), targetFrom));
-
-        if (o1LevelValue == null || o2LevelValue == null) {
+    private int getOrder(OrderKey key, int depth, long time) {
+        if (time <= key.getOrdersTo() && key.getOrder(depth) >= 0) {
+            return key.getOrder(depth);
+        }
+        
+        LevelOrder levelOrder = getLevelOrder(depth, key.getAncestor(depth), time);
+        if (levelOrder == null) {
             throw new TXmlException("Valid array for compare can't be found.");
         }
-
-        int result = o1LevelValue.getOrder().compareTo(o2LevelValue.getOrder());
-        if (result != 0) {
-            return result;
-        } else {
-            return o1OrigDepth.compareTo(o2OrigDepth);
+        return levelOrder.getOrder();
+    }
+    
+    private LevelOrder getLevelOrder(int depth, long id, long time) {
+        Map<Long, List<LevelOrder>> depthOrders = levels.get(depth);
+        List<LevelOrder> levelOrders = depthOrders == null ? null : depthOrders.get(id);
+        if (levelOrders != null) {
+            for (LevelOrder levelOrder : levelOrders) {
+                if (levelOrder.getFrom() > time) {
+                    break;
+                }
+                if (levelOrder.contains(time)) {
+                    return levelOrder;
+                }
+            }
         }
+        return null;
     }
     
-    private int compareDiffLevel(TNode o1, TNode o2, Integer o1OrigDepth, Integer o2OrigDepth) {
-        if (o1.getDepth().equals(o2.getDepth())) {
-            return compareSameLevel(o1, o2, o1OrigDepth, o2OrigDepth); 
+    public List<TNode> sort(List<TNode> tNodes, DbApi dbApi, Connection connection, String schema, String documentName) throws SQLException {
+        OrderKey[] keys = getKeys(tNodes, dbApi, connection, schema, documentName);
+        Arrays.sort(keys, this);
+        
+        for (int i = 0; i < keys.length; i++) {
+            tNodes.set(i, keys[i].getNode());
+        }
+        return tNodes;
+    }
+    
+    /**
+     * Returns node at <code>position</code> of document order, counted from 
+     * 1 from beginning or from end of document, without sorting of all 
+     * nodes. Only <code>position</code> nodes are kept during selection.
+     * Returns null if there are less nodes.
+     */
+    public TNode select(List<TNode> tNodes, int position, boolean fromEnd, DbApi dbApi, Connection connection, String schema, String documentName) throws SQLException {
+        if (position < 1 || position > tNodes.size()) {
+            return null;
         }
         
-        TNode deeperTNode;
-        if (o1.getDepth().compareTo(o2.getDepth()) < 0) {//o1.depth < o2.depth
-            deeperTNode = o2;
-        } else {//o1.depth > o2.depth
-            deeperTNode = o1;
+        OrderKey[] keys = getKeys(tNodes, dbApi, connection, schema, documentName);
+        Comparator<OrderKey> order = fromEnd ? Collections.reverseOrder(this) : this;
+        //head of queue is the last of kept nodes
+        PriorityQueue<OrderKey> selected = new PriorityQueue<>(position, Collections.reverseOrder(order));
+        for (OrderKey key : keys) {
+            if (selected.size() < position) {
+                selected.add(key);
+            } else if (order.compare(key, selected.peek()) < 0) {
+                selected.poll();
+                selected.add(key);
+            }
+        }
+        return selected.peek().getNode();
+    }
+    
+    private OrderKey[] getKeys(List<TNode> tNodes, DbApi dbApi, Connection connection, String schema, String documentName) throws SQLException {
+        OrderKey[] keys = new OrderKey[tNodes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new OrderKey(tNodes.get(i), checkTxmlTNode(tNodes.get(i)));
         }
         
-        boolean inCache = false;
-        List<TNode> tNodeList = this.tree.get(new TreeKey(deeperTNode.getParentId()));
-        TNode parent = null;
-        if (tNodeList != null) {
-            for (TNode n:tNodeList) {
-                if (n.getFromAsLong() <= deeperTNode.getFromAsLong() && deeperTNode.getToAsLong() <= n.getToAsLong() && (n.getDepth() + 1) == deeperTNode.getDepth()) {
-                    parent = n;
-                    inCache = true;
-                    break;
-                }
+        readAncestors(keys, dbApi, connection, schema);
+        readLevels(keys, dbApi, connection, schema, documentName);
+        for (OrderKey key : keys) {
+            computeOrders(key);
+        }
+        return keys;
+    }
+    
+    /**
+     * Sets ancestors of keys from ancestor paths of node versions, ids are 
+     * sent to database in chunks.
+     */
+    private void readAncestors(OrderKey[] keys, DbApi dbApi, Connection connection, String schema) throws SQLException {
+        Map<Long, List<OrderKey>> keysById = new LinkedHashMap<>();
+        for (OrderKey key : keys) {
+            if (!keysById.containsKey(key.getId())) {
+                keysById.put(key.getId(), new ArrayList<OrderKey>());
             }
+            keysById.get(key.getId()).add(key);
         }
         
-        PreparedStatement preparedStatement = null;
-        ResultSet resultSet = null;
-        if (!inCache) {
-            try {
-                preparedStatement = this.dbApi.getParentInInterval(connection, schema, deeperTNode.getParentId(), deeperTNode.getFromAsLong(), deeperTNode.getToAsLong(), deeperTNode.getDepth() - 1);
-                resultSet = preparedStatement.executeQuery();
-                if (!resultSet.next()) {
-                    throw new TXmlException("Node " + deeperTNode.getParentId() + " isn't in database.");
-                }
-
-                parent = new TNode(
-                resultSet.getLong("from"), 
-                resultSet.getLong("to"), 
-                resultSet.getLong("id"), 
-                resultSet.getString("value"), 
-                resultSet.getInt("depth"), 
-                resultSet.getLong("lcp_class"),
-                resultSet.getShort("type"),
-                resultSet.getString("local_part"),
-                resultSet.getString("uri"),
-                resultSet.getString("prefix"),
-                resultSet.getLong("namespace_id"),
-                resultSet.getLong("parentId"),
-                resultSet.getLong("parentFrom"),
-                resultSet.getLong("parentTo"),
-                new NodeGlobalSettings(connection, schema, documentName, dbApi, null)
-                );  
-                
-                parent.getLocalSettings().setSavedNodes(deeperTNode.getLocalSettings().getSavedNodes());
-                
-                if (tNodeList != null) {
-                    tNodeList.add(parent);
-                } else {
-                    List<TNode> newListInCache = new ArrayList<>();
-                    newListInCache.add(parent);
-                    this.tree.put(new TreeKey(deeperTNode.getParentId()), newListInCache);
-                }
- 
-                //vytahnou z cache, vytvorit uzel, hodit do cache, zavolat rekurzi
-            } catch (SQLException ex) {
-                throw new TXmlException(ex.getLocalizedMessage());
-            } finally {
-                if (preparedStatement != null) {
-                    try {
-                        preparedStatement.close();
-                    } catch (SQLException ex) {
-                        throw new TXmlException(ex.getLocalizedMessage());
-                    } finally {
-                        if (resultSet != null) {
-                            try {
-                                resultSet.close();
-                            } catch (SQLException ex) {
-                                throw new TXmlException(ex.getLocalizedMessage());
+        List<Long> ids = new ArrayList<>(keysById.keySet());
+        for (int start = 0; start < ids.size(); start += DbApi.PARENTS_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + DbApi.PARENTS_CHUNK_SIZE, ids.size()));
+            try (PreparedStatement preparedStatement = dbApi.getNodePaths(connection, schema, chunk);
+                 ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    long from = resultSet.getLong("from");
+                    long to = resultSet.getLong("to");
+                    long[] ancestors = null;
+                    for (OrderKey key : keysById.get(resultSet.getLong("id"))) {
+                        if (key.getFrom() == from && key.getTo() == to) {
+                            if (ancestors == null && resultSet.getString("path") != null) {
+                                ancestors = parsePath(resultSet.getString("path"));
                             }
+                            key.setAncestors(ancestors);
                         }
                     }
                 }
             }
         }
         
-        if (o1.getDepth().compareTo(o2.getDepth()) < 0) {//o1.depth < o2.depth
-            return compareDiffLevel(o1, parent, o1OrigDepth, o2OrigDepth);
-        } else {//o1.depth > o2.depth
-            return compareDiffLevel(parent, o2, o1OrigDepth, o2OrigDepth);
+        for (OrderKey key : keys) {
+            if (!key.hasAncestors() || key.getAncestor(key.getDepth()) != key.getId()) {
+                throw new TXmlException("Node " + key.getId() + " isn't in database.");
+            }
         }
-                
     }
     
-    public List<TNode> sort(List<TNode> tNodes, DbApi dbApi, Connection connection, String schema, String documentName) throws SQLException {
-        this.dbApi = dbApi;
-        this.connection = connection; 
-        this.schema = schema; 
-        this.documentName = documentName;
-        
-        for (TNode n:tNodes) {
-            TNode tNode;
-            if (
-                    (n.getNodeType() == XmlNodeTypeEnum.TXML_VALUE_FROM.getShortValue()) ||
-                    (n.getNodeType() == XmlNodeTypeEnum.TXML_VALUE_TO.getShortValue()) ||
-                    (n.getNodeType() == XmlNodeTypeEnum.TXML_VALUE_ID.getShortValue())
-               ) {
-                tNode = (TNode) n.getParentNode().getParentNode();
-            } else if (n.getNodeType() == XmlNodeTypeEnum.TXML_ATTRIBUTE.getShortValue()) {
-                tNode = (TNode) n.getParentNode();
-            } else {
-                tNode = n;                
-            }
-            
-            boolean inSortFound = false;
-            Long currFrom = tNode.getFromAsLong();
-            Long targetTo = tNode.getToAsLong();
-            while (true) {
-                LevelValue inSortLevel = levels.get(new LevelKey(tNode.getDepth(), tNode.getId(), currFrom));
-                if (inSortLevel != null) {
-                    currFrom = inSortLevel.getTo() + 1;
-                    if (inSortLevel.getTo() == targetTo) {
-                        inSortFound = true;
-                        break;
-                    }
-                } else {
-                    inSortFound = false;
-                    break;
+    private long[] parsePath(String path) {
+        String[] ids = path.substring(1).split("/");
+        long[] result = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = Long.parseLong(ids[i]);
+        }
+        return result;
+    }
+    
+    /**
+     * Reads orders of ancestors of keys by one query. Keys are compared at 
+     * beginning of version of one of them, so only rows of table CP of 
+     * ancestor depths, which overlap interval of beginnings of the versions,
+     * are read and only orders of the ancestors are kept from them.
+     */
+    private void readLevels(OrderKey[] keys, DbApi dbApi, Connection connection, String schema, String documentName) throws SQLException {
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        Map<Integer, Set<Long>> ancestors = new HashMap<>();
+        for (OrderKey key : keys) {
+            from = Math.min(from, key.getFrom());
+            to = Math.max(to, key.getFrom());
+            for (int depth = key.getRootDepth(); depth <= key.getDepth(); depth++) {
+                if (!ancestors.containsKey(depth)) {
+                    ancestors.put(depth, new HashSet<Long>());
+                    levels.put(depth, new HashMap<Long, List<LevelOrder>>());
                 }
+                ancestors.get(depth).add(key.getAncestor(depth));
             }
-            
-            PreparedStatement preparedStatement = null;
-            ResultSet resultSet = null;
-            
-            if (!inSortFound) {//TODO vezmu znovu vse
-                preparedStatement = dbApi.getValidsFromIntervalAndDepth(connection, schema, tNode.getFromAsLong(), tNode.getToAsLong(), tNode.getDepth(), documentName);
-                resultSet = preparedStatement.executeQuery();
-                
-                boolean noResult = true;
-                while (resultSet.next()) {
-                    noResult = false;
-                    
-                    Array validArray = resultSet.getArray("valid");
-                    ResultSet resultSetArray = validArray.getResultSet();
-                    Long from = resultSet.getLong("from");
-                    Long to = resultSet.getLong("to");
-
-                    while(resultSetArray.next()) {
-                        boolean hasKey = levels.containsKey(new LevelKey(tNode.getDepth(), resultSetArray.getLong(2), from));
-                        if (!hasKey) {
-                            LevelValue levelValue = new LevelValue(to, resultSetArray.getInt(1));
-                            levels.put(new LevelKey(tNode.getDepth(), resultSetArray.getLong(2), from), levelValue);
-                        } 
-                    }
-                }
-                
-                if (preparedStatement != null) { 
-                    try {
-                        preparedStatement.close();
-                    } catch (SQLException ex) {
-                        throw new TXmlException(ex.getLocalizedMessage());
-                    } finally {
-                        if (resultSet != null) {
-                            try {
-                                resultSet.close();
-                            } catch (SQLException ex) {
-                                throw new TXmlException(ex.getLocalizedMessage());
-                            }
+        }
+        if (ancestors.isEmpty()) {
+            return;
+        }
+        
+        try (PreparedStatement preparedStatement = dbApi.getLevelsInInterval(connection, schema, from, to, Collections.min(ancestors.keySet()), Collections.max(ancestors.keySet()), documentName);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                int depth = resultSet.getInt("depth");
+                long rowFrom = resultSet.getLong("from");
+                long rowTo = resultSet.getLong("to");
+                Set<Long> depthAncestors = ancestors.get(depth);
+                Map<Long, List<LevelOrder>> depthOrders = levels.get(depth);
+                Array validArray = resultSet.getArray("valid");
+                try (ResultSet resultSetArray = validArray.getResultSet()) {
+                    while (resultSetArray.next()) {
+                        long id = resultSetArray.getLong(2);
+                        if (!depthAncestors.contains(id)) {
+                            continue;
+                        }
+                        
+                        if (!depthOrders.containsKey(id)) {
+                            depthOrders.put(id, new ArrayList<LevelOrder>());
+                        }
+                        List<LevelOrder> levelOrders = depthOrders.get(id);
+                        //the first position of id in one row is its order
+                        if (levelOrders.isEmpty() || levelOrders.get(levelOrders.size() - 1).getFrom() != rowFrom) {
+                            levelOrders.add(new LevelOrder(rowFrom, rowTo, resultSetArray.getInt(1)));
                         }
                     }
                 }
-                
-                if (noResult) {
-                    throw new TXmlException("In table cp misses in column valid array.");
-                }
             }
         }
-
-        Collections.sort(tNodes, this);
-        
-        return tNodes;
+    }
+    
+    /**
+     * Sets orders of ancestors of key at beginning of its version, they
+     * are valid until the first of their rows ends. Unknown orders of 
+     * ancestors are -1.
+     */
+    private void computeOrders(OrderKey key) {
+        int rootDepth = key.getRootDepth();
+        int[] orders = new int[key.getDepth() - rootDepth + 1];
+        long ordersTo = key.getTo();
+        for (int depth = rootDepth; depth <= key.getDepth(); depth++) {
+            LevelOrder levelOrder = getLevelOrder(depth, key.getAncestor(depth), key.getFrom());
+            if (levelOrder != null) {
+                orders[depth - rootDepth] = levelOrder.getOrder();
+                ordersTo = Math.min(ordersTo, levelOrder.getTo());
+            } else if (depth == key.getDepth()) {
+                throw new TXmlException("In table cp misses in column valid array.");
+            } else {
+                //ancestor is looked up at time of compare
+                orders[depth - rootDepth] = -1;
+            }
+        }
+        key.setOrders(orders, ordersTo);
     }
 }
@@ -1,71 +0,0 @@
-/* 
- * Copyright 2016 Tomas Kunovsky.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package txml.xpath.sort.model;
-
-public class LevelKey {
-    private final int depth;
-    private final long id;
-    private final long from;
-
-    public LevelKey(int depth, long id, long from) {
-        this.depth = depth;
-        this.id = id;
-        this.from = from;
-    }
-    
-    public int getDepth() {
-        return depth;
-    }
-
-    public long getId() {
-        return id;
-    }
-
-    public long getFrom() {
-        return from;
-    }
-
-    @Override
-    public int hashCode() {
-        int hash = 7;
-        hash = 67 * hash + this.depth;
-        hash = 67 * hash + (int) (this.id ^ (this.id >>> 32));
-        hash = 67 * hash + (int) (this.from ^ (this.from >>> 32));
-        return hash;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
-        }
-        final LevelKey other = (LevelKey) obj;
-        if (this.depth != other.depth) {
-            return false;
-        }
-        if (this.id != other.id) {
-            return false;
-        }
-        if (this.from != other.from) {
-            return false;
-        }
-        return true;
-    }
-
-}
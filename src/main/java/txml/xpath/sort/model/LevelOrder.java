@@ -0,0 +1,48 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.sort.model;
+
+/**
+ * Order of one node in one row of table CP, the order is position of node 
+ * id in column valid of the row.
+ */
+public class LevelOrder {
+    private final long from;
+    private final long to;
+    private final int order;
+
+    public LevelOrder(long from, long to, int order) {
+        this.from = from;
+        this.to = to;
+        this.order = order;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+    
+    public boolean contains(long time) {
+        return from <= time && time <= to;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+}
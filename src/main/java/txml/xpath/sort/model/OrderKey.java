@@ -0,0 +1,99 @@
+/* 
+ * Copyright 2016 Tomas Kunovsky.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package txml.xpath.sort.model;
+
+import txml.xpath.model.TNode;
+
+/**
+ * Document order key of node computed before sorting. It holds ids of
+ * ancestors of the node and their orders valid from beginning of the node
+ * version to <code>ordersTo</code>, so nodes are compared in memory only.
+ */
+public class OrderKey {
+    private final TNode node;
+    private final long id;
+    private final int depth;
+    private final long from;
+    private final long to;
+    private long[] ancestors;
+    private int[] orders;
+    private long ordersTo;
+
+    /**
+     * @param node node of sorted list
+     * @param orderedNode element, whose position in document is position of
+     * the node
+     */
+    public OrderKey(TNode node, TNode orderedNode) {
+        this.node = node;
+        this.id = orderedNode.getId();
+        this.depth = orderedNode.getDepth();
+        this.from = orderedNode.getFromAsLong();
+        this.to = orderedNode.getToAsLong();
+    }
+
+    public TNode getNode() {
+        return node;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    /**
+     * Returns depth of the root, ancestors are stored from it.
+     */
+    public int getRootDepth() {
+        return depth - ancestors.length + 1;
+    }
+    
+    public long getAncestor(int ancestorDepth) {
+        return ancestors[ancestorDepth - getRootDepth()];
+    }
+
+    public boolean hasAncestors() {
+        return ancestors != null;
+    }
+
+    public void setAncestors(long[] ancestors) {
+        this.ancestors = ancestors;
+    }
+
+    public int getOrder(int ancestorDepth) {
+        return orders[ancestorDepth - getRootDepth()];
+    }
+    
+    public long getOrdersTo() {
+        return ordersTo;
+    }
+
+    public void setOrders(int[] orders, long ordersTo) {
+        this.orders = orders;
+        this.ordersTo = ordersTo;
+    }
+}
@@ -248,6 +248,11 @@ attributeName
 
 value            
     :   StringLiteral
+    |   parameter
+    ;
+
+parameter
+    :   '$' Name
     ;
  
 insert_pos
@@ -1,26 +1,49 @@
 package txml;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
 import static org.junit.Assert.*;
 import txml.database.DbApi;
+import txml.database.IdBlockAllocator;
+import txml.database.StatementCache;
 import txml.xpath.model.TNodeList;
 import txml.xpath.model.TNode;
+import txml.xpath.model.TreeWriter;
 
 public class TXmlTest {    
     private TXml instance;
@@ -109,6 +132,291 @@ public class TXmlTest {
         assertEquals(expResult, result);
     }
 
+    @Test
+    public void testNumericFilter() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//book[price > '35']", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        
+        List<TNode> expList = new ArrayList<>();
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 30l, null, null, null, null, null, null, null, null, null, null, null, null));
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 56l, null, null, null, null, null, null, null, null, null, null, null, null));
+        assertEquals(new TNodeList(null, expList), result);
+        
+        code = String.format("txml:doc('%s', '%s')//book['35' >= price]", schemaName, document1);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        
+        expList = new ArrayList<>();
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 2l, null, null, null, null, null, null, null, null, null, null, null, null));
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 16l, null, null, null, null, null, null, null, null, null, null, null, null));
+        assertEquals(new TNodeList(null, expList), result);
+        
+        code = String.format("txml:doc('%s', '%s')//book[name > '0']", schemaName, document1);
+        assertEquals(0, instance.eval(code, dbConn, true).asNodeList().getLength());
+    }
+
+    @Test
+    public void testDirectPath() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')/bookstore/book/author/name", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        
+        code = String.format("txml:doc('%s', '%s')//author/name", schemaName, document1);
+        NodeList expResult = instance.eval(code, dbConn, true).asNodeList();
+        assertTrue(expResult.getLength() > 0);
+        assertEquals(expResult, result);
+        
+        code = String.format("txml:doc('%s', '%s')/bookstore/*/author/name", schemaName, document1);
+        assertEquals(expResult, instance.eval(code, dbConn, true).asNodeList());
+        
+        code = String.format("txml:doc('%s', '%s')/bookstore/book/name/author", schemaName, document1);
+        assertEquals(0, instance.eval(code, dbConn, true).asNodeList().getLength());
+    }
+
+    @Test
+    public void testDirectPathAfterSetParent() throws Exception {
+        String document = "moved.xml";
+        InputStream stream = new ByteArrayInputStream("<r><a><b>1</b><c><b>2</b></c></a><a><x>3</x></a></r>".getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentToDb(dbConn, schemaName, document, stream);
+        stream.close();
+        
+        String modificationCode = String.format("for $n in txml:doc(\"%s\", \"%s\")//x SET PARENT $n AS /r/a/c ", schemaName, document);
+        instance.eval(modificationCode, dbConn, true);
+        modificationCode = String.format("for $n in txml:doc(\"%s\", \"%s\")//c SET PARENT $n AS /r ", schemaName, document);
+        instance.eval(modificationCode, dbConn, true);
+        
+        String[][] paths = {
+            {"/r/c/x", "/r/c[./txml:id != '']/x"},
+            {"/r/a/c/b", "/r/a/c[./txml:id != '']/b"},
+            {"/r/*/x", "/r/*[./txml:id != '']/x"}
+        };
+        for (String[] path : paths) {
+            String code = String.format("txml:doc('%s', '%s')%s", schemaName, document, path[0]);
+            NodeList result = instance.eval(code, dbConn, true).asNodeList();
+            code = String.format("txml:doc('%s', '%s')%s", schemaName, document, path[1]);
+            assertEquals(instance.eval(code, dbConn, true).asNodeList(), result);
+        }
+        
+        String code = String.format("txml:doc('%s', '%s')/r/c/x", schemaName, document);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(1, result.getLength());
+        assertEquals(dbApi.getNOW(), (long) ((TNode) result.item(0)).getToAsLong());
+        
+        code = String.format("txml:doc('%s', '%s')/r/a/c/b", schemaName, document);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(1, result.getLength());
+        assertNotEquals(dbApi.getNOW(), (long) ((TNode) result.item(0)).getToAsLong());
+        
+        //descendants are selected by ancestor paths of versions stored by the moves
+        code = String.format("txml:doc('%s', '%s')/r/c//*", schemaName, document);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(2, result.getLength());
+        for (int i = 0; i < result.getLength(); i++) {
+            assertEquals(dbApi.getNOW(), (long) ((TNode) result.item(i)).getToAsLong());
+        }
+        
+        code = String.format("txml:doc('%s', '%s')/r/a//x", schemaName, document);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(2, result.getLength());
+        for (int i = 0; i < result.getLength(); i++) {
+            assertNotEquals(dbApi.getNOW(), (long) ((TNode) result.item(i)).getToAsLong());
+        }
+    }
+
+    @Test
+    public void testPreparedQuery() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//book[price > $price][name != $name]", schemaName, document1);
+        TXmlQuery query = instance.prepare(code);
+        assertSame(query, instance.prepare(code));
+        assertEquals(new HashSet<>(Arrays.asList("price", "name")), query.getParameterNames());
+        
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("price", "35");
+        parameters.put("name", "");
+        String literalCode = String.format("txml:doc('%s', '%s')//book[price > '35'][name != '']", schemaName, document1);
+        assertEquals(instance.eval(literalCode, dbConn, true), instance.eval(query, dbConn, parameters));
+        
+        parameters.put("price", "0");
+        literalCode = String.format("txml:doc('%s', '%s')//book[price > '0'][name != '']", schemaName, document1);
+        assertEquals(instance.eval(literalCode, dbConn, true), instance.eval(query, dbConn, parameters));
+        
+        parameters.remove("name");
+        try {
+            instance.eval(query, dbConn, parameters);
+            fail("Unbound parameter was accepted.");
+        } catch (TXmlException ex) {
+            assertTrue(ex.getMessage().contains("$name"));
+        }
+    }
+
+    @Test
+    public void testStatementCache() throws Exception {
+        StatementCache statementCache = new StatementCache();
+        PreparedStatement statement = statementCache.prepare(dbConn, "SELECT ? as value");
+        PreparedStatement cached = statement.unwrap(PreparedStatement.class);
+        statement.close();
+        assertTrue(statement.isClosed());
+        assertFalse(cached.isClosed());
+        
+        statement = statementCache.prepare(dbConn, "SELECT ? as value");
+        assertSame(cached, statement.unwrap(PreparedStatement.class));
+        PreparedStatement nested = statementCache.prepare(dbConn, "SELECT ? as value");
+        assertNotSame(cached, nested.unwrap(PreparedStatement.class));
+        
+        statement.setString(1, "outer");
+        nested.setString(1, "inner");
+        try (ResultSet outer = statement.executeQuery(); ResultSet inner = nested.executeQuery()) {
+            assertTrue(outer.next() && inner.next());
+            assertEquals("outer", outer.getString("value"));
+            assertEquals("inner", inner.getString("value"));
+        }
+        nested.close();
+        statement.close();
+        
+        statementCache.close(dbConn);
+        assertTrue(cached.isClosed());
+    }
+
+    @Test
+    public void testEvalCursor() throws Exception {
+        String[] paths = {"//book//name", "/bookstore/book/author/name", "//book[price > '35']", "/bookstore"};
+        for (String path : paths) {
+            TXmlQuery query = instance.prepare(String.format("txml:doc('%s', '%s')%s", schemaName, document1, path));
+            NodeList expResult = instance.eval(query, dbConn, false, null).asNodeList();
+            Set<Node> expNodes = new HashSet<>();
+            for (int i = 0; i < expResult.getLength(); i++) {
+                expNodes.add(expResult.item(i));
+            }
+            
+            List<Node> nodes = new ArrayList<>();
+            try (NodeCursor cursor = instance.evalCursor(query, dbConn, null, 2)) {
+                while (cursor.hasNext()) {
+                    nodes.add(cursor.next());
+                }
+            }
+            dbConn.commit();
+            assertEquals(path, expResult.getLength(), nodes.size());
+            assertEquals(path, expNodes, new HashSet<>(nodes));
+        }
+    }
+
+    @Test
+    public void testNodeNames() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//book", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        assertTrue(result.getLength() > 1);
+        TNode first = (TNode) result.item(0);
+        TNode second = (TNode) result.item(1);
+        assertSame(first.getLocalName(), second.getLocalName());
+        
+        TNode tNode = new TNode(document1CreationTime, dbApi.getNOW(), 30l, null, null, null, null, null, null, null, null, null, null, null, null);
+        assertNull(tNode.getDepth());
+        assertNull(tNode.getParentId());
+        assertEquals(Long.valueOf(30l), tNode.getId());
+    }
+
+    @Test
+    public void testNestedPredicates() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//book[author[name = 'Erik T. Ray']/name = 'Erik T. Ray'][price > '0']", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        
+        code = String.format("txml:doc('%s', '%s')//book[author/name = 'Erik T. Ray']", schemaName, document1);
+        NodeList expResult = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(1, expResult.getLength());
+        assertEquals(expResult, result);
+    }
+
+    @Test
+    public void testSortToDocumentOrder() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//*", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        
+        code = String.format("txml:doc('%s', '%s')/*", schemaName, document1);
+        List<TNode> expList = new ArrayList<>();
+        addElementsInDocumentOrder((TNode) instance.eval(code, dbConn, true).asNodeList().item(0), expList);
+        
+        assertEquals(expList.size(), result.getLength());
+        for (int i = 0; i < expList.size(); i++) {
+            assertEquals(expList.get(i), result.item(i));
+        }
+    }
+    
+    private void addElementsInDocumentOrder(TNode node, List<TNode> elements) throws SQLException {
+        elements.add(node);
+        for (TNode child : node.getChildNodes().sort().getItems()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                addElementsInDocumentOrder(child, elements);
+            }
+        }
+    }
+    
+    @Test
+    public void testPositionWithoutSort() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//*", schemaName, document1);
+        NodeList sorted = instance.eval(code, dbConn, true).asNodeList();
+        assertTrue(sorted.getLength() > 2);
+        
+        code = String.format("txml:doc('%s', '%s')//*[2]", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(1, result.getLength());
+        assertEquals(sorted.item(1), result.item(0));
+        
+        code = String.format("txml:doc('%s', '%s')//*[last()]", schemaName, document1);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(1, result.getLength());
+        assertEquals(sorted.item(sorted.getLength() - 1), result.item(0));
+        
+        code = String.format("txml:doc('%s', '%s')//*[%d]", schemaName, document1, sorted.getLength() + 1);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(0, result.getLength());
+        
+        TNodeList sortedList = ((TNodeList) sorted).sort();
+        assertEquals(sorted.item(1), sortedList.getInDocumentOrder(2, false));
+        assertEquals(sorted.item(sorted.getLength() - 1), sortedList.getInDocumentOrder(1, true));
+        assertNull(sortedList.getInDocumentOrder(sorted.getLength() + 1, false));
+    }
+    
+    @Test
+    public void testTreeWriter() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//book", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TreeWriter(out, true).writeTrees(result);
+        assertEquals(result.getTrees(true), new String(out.toByteArray(), StandardCharsets.UTF_8));
+        
+        StringWriter xml = new StringWriter();
+        XMLStreamWriter streamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(xml);
+        streamWriter.writeStartElement("result");
+        new TreeWriter(streamWriter, true).writeTrees(result);
+        streamWriter.writeEndElement();
+        streamWriter.close();
+        
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml.toString())));
+        org.w3c.dom.NodeList books = document.getElementsByTagName("book");
+        assertEquals(result.getLength(), books.getLength());
+        for (int i = 0; i < books.getLength(); i++) {
+            org.w3c.dom.Element book = (org.w3c.dom.Element) books.item(i);
+            assertEquals(result.item(i).getId().toString(), book.getAttributeNS(TreeWriter.TXML_NAMESPACE_URI, "id"));
+        }
+        
+        code = String.format("txml:doc('%s', '%s')/*", schemaName, document2);
+        result = instance.eval(code, dbConn, true).asNodeList();
+        xml = new StringWriter();
+        streamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(xml);
+        streamWriter.writeStartElement("result");
+        new TreeWriter(streamWriter, true).writeTrees(result);
+        streamWriter.writeEndElement();
+        streamWriter.close();
+        
+        document = factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml.toString())));
+        assertEquals(2, document.getElementsByTagNameNS("http://eric.van-der-vlist.com/ns/library", "book").getLength());
+        assertTrue(document.getElementsByTagNameNS("http://eric.van-der-vlist.com/ns/person", "author").getLength() > 0);
+        assertEquals(0, document.getElementsByTagNameNS("", "book").getLength());
+        org.w3c.dom.Element title = (org.w3c.dom.Element) document.getElementsByTagNameNS("http://eric.van-der-vlist.com/ns/library", "title").item(0);
+        assertEquals("en", title.getAttributeNS("http://www.w3.org/XML/1998/namespace", "lang"));
+    }
+    
     @Test
     public void testLongDirectFilter() throws Exception {
         String code = String.format("txml:doc('%s', '%s')/bookstore[book/author/name = 'Erik T. Ray']", schemaName, document1);
@@ -449,6 +757,25 @@ public class TXmlTest {
         assertEquals(expResult, result);
     }
     
+    @Test
+    public void testIntervalFilterOfStep() throws Exception {
+        Boolean sort = true;
+        
+        String modificationCode = String.format("for $n in txml:doc('%s', '%s')/bookstore delete node $n//*[txml:id = '5']", schemaName, document1);
+        instance.eval(modificationCode, dbConn, sort);
+        Long modificationTime = instance.lastTimeChanges();
+        String interval = "[" + new SimpleDateFormat("d. M. yyyy H:mm:ss").format(new Date(modificationTime + 1000)) + "; Now]";
+        String code = String.format("txml:doc('%s', '%s')//*[* PRECEDES '%s']", schemaName, document1, interval);
+        NodeList result = instance.eval(code, dbConn, sort).asNodeList();
+        
+        List<TNode> expList = new ArrayList<>();        
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 2l, null, null, null, null, null, null, null, null, null, null, null, null));
+        assertEquals(new TNodeList(null, expList), result);
+        
+        code = String.format("txml:doc('%s', '%s')//book['[1. 1. 2000 0:00:00; 1. 1. 2001 0:00:00]' CONTAINS name]", schemaName, document1);
+        assertEquals(0, instance.eval(code, dbConn, sort).asNodeList().getLength());
+    }
+    
     @Test
     public void testUndirectSimpleInsert() throws Exception {
         Boolean sort = true;
@@ -1112,6 +1439,261 @@ public class TXmlTest {
         assertEquals(xmlResult, expDocument);
     }
     
+    @Test
+    public void testLoadWithSmallBatchSize() throws Exception {
+        Boolean sort = true;
+        String document = "book-small-batch.xml";
+        
+        instance.setBatchSize(3);
+        InputStream stream = new ByteArrayInputStream(xmlDocument2.getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentToDb(dbConn, schemaName, document, stream);
+        stream.close();
+        
+        String code = String.format("txml:doc-snapshot('%s', '%s', 'Now')", schemaName, document);
+        XMLEventReader reader = instance.eval(code, dbConn, sort).asXMLEventReader();
+        String xmlResult = reader.getXMLDocFormatA();
+
+        assertEquals(xmlResult, xmlDocument2);
+    }
+    
+    @Test
+    public void testLoadWithCopyFallback() throws Exception {
+        Boolean sort = true;
+        String document = "book-copy.xml";
+        
+        instance.setUseCopy(true);
+        InputStream stream = new ByteArrayInputStream(xmlDocument1.getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentToDb(dbConn, schemaName, document, stream);
+        stream.close();
+        
+        String code = String.format("txml:doc-snapshot('%s', '%s', 'Now')", schemaName, document);
+        XMLEventReader reader = instance.eval(code, dbConn, sort).asXMLEventReader();
+        String xmlResult = reader.getXMLDocFormatA();
+
+        assertEquals(xmlResult, xmlDocument1);
+    }
+    
+    @Test
+    public void testParallelLoad() throws Exception {
+        Boolean sort = true;
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("123");
+        
+        Map<String, InputStream> documents = new LinkedHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            documents.put("parallel" + i + ".xml", new ByteArrayInputStream(xmlDocument2.getBytes(StandardCharsets.UTF_8)));
+        }
+        documents.put("broken.xml", new ByteArrayInputStream("<library><book></library>".getBytes(StandardCharsets.UTF_8)));
+        
+        List<DocumentLoadResult> results = instance.loadDocumentsToDb(dataSource, schemaName, documents, 2);
+        
+        assertEquals(5, results.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("parallel" + i + ".xml", results.get(i).getDocumentName());
+            assertTrue(results.get(i).isLoaded());
+            
+            String code = String.format("txml:doc-snapshot('%s', '%s', 'Now')", schemaName, results.get(i).getDocumentName());
+            XMLEventReader reader = instance.eval(code, dbConn, sort).asXMLEventReader();
+            assertEquals(reader.getXMLDocFormatA(), xmlDocument2);
+        }
+        assertFalse(results.get(4).isLoaded());
+        assertNotNull(results.get(4).getException());
+    }
+    
+    @Test
+    public void testParallelEval() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("123");
+        
+        String[] codes = {
+            String.format("txml:doc('%s', '%s')//*", schemaName, document1),
+            String.format("txml:doc('%s', '%s')//book/author/name", schemaName, document1),
+            String.format("txml:doc('%s', '%s')//book[author/name = 'Erik T. Ray']/author", schemaName, document1),
+            String.format("txml:doc('%s', '%s')//name/..", schemaName, document1)
+        };
+        List<NodeList> expResults = new ArrayList<>();
+        for (String code : codes) {
+            expResults.add(instance.eval(code, dbConn, true).asNodeList());
+        }
+        
+        instance.setParallelExecution(dataSource, 2, 1);
+        try {
+            for (int i = 0; i < codes.length; i++) {
+                NodeList result = instance.eval(codes[i], dbConn, true).asNodeList();
+                assertTrue(expResults.get(i).getLength() > 0);
+                assertEquals(expResults.get(i), result);
+            }
+        } finally {
+            instance.setParallelExecution(null, 0, 0);
+        }
+    }
+    
+    @Test
+    public void testLoadDocumentVersion() throws Exception {
+        Boolean sort = true;
+        int childrenBookStart = xmlDocument1.indexOf("  <book category=\"CHILDREN\">");
+        int childrenBookEnd = xmlDocument1.indexOf("  <book category=\"WEB\">");
+        String newVersion = xmlDocument1.substring(0, childrenBookStart) + xmlDocument1.substring(childrenBookEnd);
+        newVersion = newVersion.replace("30.00", "35.00").replace("</bookstore>",
+            "  <book category=\"POETRY\">\n" +
+            "    <name lang=\"en\">\n" +
+            "      Odes\n" +
+            "    </name>\n" +
+            "  </book>\n" +
+            "</bookstore>");
+
+        InputStream stream = new ByteArrayInputStream(newVersion.getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentVersion(dbConn, schemaName, document1, stream);
+        stream.close();
+        Long modificationTime = instance.lastTimeChanges();
+
+        String code = String.format("txml:doc-snapshot('%s', '%s', 'Now')", schemaName, document1);
+        XMLEventReader reader = instance.eval(code, dbConn, sort).asXMLEventReader();
+        assertEquals(reader.getXMLDocFormatA(), newVersion);
+
+        code = String.format("txml:doc('%s', '%s')/bookstore/book", schemaName, document1);
+        NodeList result = instance.eval(code, dbConn, sort).asNodeList();
+
+        List<TNode> expList = new ArrayList<>();
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 2l, null, null, null, null, null, null, null, null, null, null, null, null));
+        expList.add(new TNode(document1CreationTime, modificationTime - 1, 16l, null, null, null, null, null, null, null, null, null, null, null, null));
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 30l, null, null, null, null, null, null, null, null, null, null, null, null));
+        expList.add(new TNode(document1CreationTime, dbApi.getNOW(), 56l, null, null, null, null, null, null, null, null, null, null, null, null));
+        expList.add(new TNode(modificationTime, dbApi.getNOW(), 138l, null, null, null, null, null, null, null, null, null, null, null, null));
+        NodeList expResult = new TNodeList(null, expList);
+
+        assertEquals(expResult, result);
+    }
+
+    @Test
+    public void testLoadDocumentVersionWithEqualHashes() throws Exception {
+        String document = "hashes.xml";
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        InputStream stream = new ByteArrayInputStream("<r><t>Aa</t></r>".getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentToDb(dbConn, schemaName, document, stream);
+        stream.close();
+        
+        stream = new ByteArrayInputStream("<r><t>BB</t></r>".getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentVersion(dbConn, schemaName, document, stream);
+        stream.close();
+        
+        String code = String.format("txml:doc('%s', '%s')/r/t[. = 'BB']", schemaName, document);
+        assertEquals(1, instance.eval(code, dbConn, true).asNodeList().getLength());
+        code = String.format("txml:doc('%s', '%s')/r/t/text()", schemaName, document);
+        assertEquals(2, instance.eval(code, dbConn, true).asNodeList().getLength());
+    }
+
+    @Test
+    public void testBulkLoad() throws Exception {
+        Boolean sort = true;
+        String document = "book-bulk.xml";
+
+        instance.setBulkLoad(true);
+        InputStream stream = new ByteArrayInputStream(xmlDocument2.getBytes(StandardCharsets.UTF_8));
+        instance.loadDocumentToDb(dbConn, schemaName, document, stream);
+        stream.close();
+
+        String code = String.format("txml:doc-snapshot('%s', '%s', 'Now')", schemaName, document);
+        XMLEventReader reader = instance.eval(code, dbConn, sort).asXMLEventReader();
+        assertEquals(reader.getXMLDocFormatA(), xmlDocument2);
+
+        try (Statement statement = dbConn.createStatement()) {
+            statement.executeUpdate(String.format("INSERT INTO %s.LCP (id, \"from\", \"to\", LCP_Class) VALUES (-1, 0, 0, -1)", schemaName));
+            fail("Referential integrity wasn't restored");
+        } catch (SQLException ex) {
+            dbConn.rollback();
+        }
+        
+        try (Connection otherConn = DriverManager.getConnection("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1;USER=sa;PASSWORD=123");
+                Statement statement = otherConn.createStatement();
+                ResultSet resultSet = statement.executeQuery(String.format("SELECT count(*) FROM %s.Document", schemaName))) {
+            assertTrue(resultSet.next());
+        }
+        
+        stream = new ByteArrayInputStream("<r><a></r>".getBytes(StandardCharsets.UTF_8));
+        try {
+            instance.loadDocumentToDb(dbConn, schemaName, "book-bulk-broken.xml", stream);
+            fail("Malformed document was loaded");
+        } catch (XMLStreamException ex) {
+            stream.close();
+        }
+        
+        try (Statement statement = dbConn.createStatement()) {
+            statement.executeUpdate(String.format("INSERT INTO %s.LCP (id, \"from\", \"to\", LCP_Class) VALUES (-1, 0, 0, -1)", schemaName));
+            fail("Referential integrity wasn't restored after failed load");
+        } catch (SQLException ex) {
+            dbConn.rollback();
+        }
+    }
+
+    @Test
+    public void testUpgradeSchemaIndexes() throws Exception {
+        try (Statement statement = dbConn.createStatement()) {
+            statement.executeUpdate(String.format("DROP INDEX %s.idx_lcp_parent", schemaName));
+            statement.executeUpdate(String.format("DROP INDEX %s.idx_lcp_class_document_label", schemaName));
+            statement.executeUpdate(String.format("CREATE INDEX %s.idx_lcp_class_label ON %s.lcp_class(type, local_part, namespace_id)", schemaName, schemaName));
+        }
+        dbConn.commit();
+
+        instance.upgradeSchemaIndexes(dbConn, schemaName);
+        instance.upgradeSchemaIndexes(dbConn, schemaName);
+
+        Set<String> indexNames = new HashSet<>();
+        try (ResultSet resultSet = dbConn.getMetaData().getIndexInfo(null, schemaName.toUpperCase(), "LCP", false, false)) {
+            while (resultSet.next()) {
+                indexNames.add(resultSet.getString("INDEX_NAME").toLowerCase());
+            }
+        }
+        assertTrue(indexNames.contains("idx_lcp_parent"));
+        assertTrue(indexNames.contains("idx_lcp_lcp_class"));
+        
+        indexNames.clear();
+        try (ResultSet resultSet = dbConn.getMetaData().getIndexInfo(null, schemaName.toUpperCase(), "LCP_CLASS", false, false)) {
+            while (resultSet.next()) {
+                indexNames.add(resultSet.getString("INDEX_NAME").toLowerCase());
+            }
+        }
+        assertTrue(indexNames.contains("idx_lcp_class_document_label"));
+        assertFalse(indexNames.contains("idx_lcp_class_label"));
+    }
+
+    @Test
+    public void testUpgradeSchemaPaths() throws Exception {
+        String code = String.format("txml:doc('%s', '%s')//book//name", schemaName, document1);
+        NodeList expResult = instance.eval(code, dbConn, true).asNodeList();
+        
+        try (Statement statement = dbConn.createStatement()) {
+            statement.executeUpdate(String.format("ALTER TABLE %s.lcp DROP COLUMN path", schemaName));
+        }
+        dbConn.commit();
+        
+        instance.upgradeSchemaPaths(dbConn, schemaName);
+        instance.upgradeSchemaPaths(dbConn, schemaName);
+        
+        NodeList result = instance.eval(code, dbConn, true).asNodeList();
+        assertEquals(12, result.getLength());
+        assertEquals(expResult, result);
+        assertEquals("/1/2/3/", dbApi.getNodePath(dbConn, schemaName, 3l, document1CreationTime, dbApi.getNOW()));
+    }
+
+    @Test
+    public void testIdBlockAllocatorsDoNotShareIds() throws Exception {
+        IdBlockAllocator allocator1 = new IdBlockAllocator(dbConn, schemaName, "node_id_seq", 5);
+        IdBlockAllocator allocator2 = new IdBlockAllocator(dbConn, schemaName, "node_id_seq", 3);
+        Set<Long> ids = new HashSet<>();
+        
+        for (int i = 0; i < 20; i++) {
+            assertTrue(ids.add(allocator1.next()));
+            assertTrue(ids.add(allocator2.next()));
+        }
+        allocator1.close();
+        allocator2.close();
+    }
+    
     private final String xmlDocument1 =
         "<?xml version=\"1.0\" encoding=\"iso-8859-1\"?>\n" +
         "<bookstore>\n" +